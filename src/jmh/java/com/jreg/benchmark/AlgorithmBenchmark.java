@@ -0,0 +1,70 @@
+package com.jreg.benchmark;
+
+import com.jreg.model.Digest;
+import com.jreg.util.DigestEngine;
+import com.jreg.util.MultiDigest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of each digest algorithm over a pooled direct buffer, and of sha256 plus
+ * sha512 in one {@link MultiDigest} pass against two separate passes.
+ * Divide the buffer size by the reported time for bytes per second.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlgorithmBenchmark {
+
+    @Param({"65536", "8388608"})
+    public int size;
+
+    @Param({"sha256", "sha512"})
+    public String algorithm;
+
+    private ByteBuffer direct;
+
+    @Setup
+    public void setup() {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        direct = ByteBuffer.allocateDirect(size).put(data).flip();
+    }
+
+    @Benchmark
+    public Digest single() {
+        return DigestEngine.digest(algorithm, direct.duplicate());
+    }
+
+    @Benchmark
+    public void bothOnePass(Blackhole blackhole) {
+        try (MultiDigest md = MultiDigest.of("sha256", "sha512")) {
+            md.update(direct.duplicate());
+            blackhole.consume(md.result("sha256"));
+            blackhole.consume(md.result("sha512"));
+        }
+    }
+
+    @Benchmark
+    public void bothTwoPasses(Blackhole blackhole) {
+        blackhole.consume(DigestEngine.digest("sha256", direct.duplicate()));
+        blackhole.consume(DigestEngine.digest("sha512", direct.duplicate()));
+    }
+}
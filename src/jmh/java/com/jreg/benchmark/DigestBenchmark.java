@@ -0,0 +1,74 @@
+package com.jreg.benchmark;
+
+import com.jreg.model.Digest;
+import com.jreg.util.DigestEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SHA-256 over one buffer of each size: the previous per-call {@code getInstance} with
+ * {@code String.format} hex, against {@link DigestEngine} on heap arrays, direct buffers
+ * and streams.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DigestBenchmark {
+
+    @Param({"1024", "65536", "1048576", "8388608"})
+    public int size;
+
+    private byte[] data;
+    private ByteBuffer direct;
+
+    @Setup
+    public void setup() {
+        data = new byte[size];
+        new Random(size).nextBytes(data);
+        direct = ByteBuffer.allocateDirect(size).put(data).flip();
+    }
+
+    @Benchmark
+    public Digest getInstanceAndFormat() throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[] hash = md.digest(data);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b));
+        }
+        return new Digest("sha256", hex.toString());
+    }
+
+    @Benchmark
+    public Digest engineArray() {
+        return DigestEngine.digest("sha256", data);
+    }
+
+    @Benchmark
+    public Digest engineDirectBuffer() {
+        return DigestEngine.digest("sha256", direct.duplicate());
+    }
+
+    @Benchmark
+    public Digest engineStream() {
+        return DigestEngine.digest("sha256", new ByteArrayInputStream(data));
+    }
+}
@@ -0,0 +1,69 @@
+package com.jreg.benchmark;
+
+import com.jreg.model.Digest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Digest} as it is used per request: parsed from a path or header, rendered back
+ * for keys and headers, and looked up in digest-keyed caches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DigestParseBenchmark {
+
+    private static final int CACHED_DIGESTS = 100_000;
+
+    @Param({"sha256", "sha512"})
+    public String algorithm;
+
+    private String text;
+    private Digest digest;
+    private final Map<Digest, Boolean> cache = new HashMap<>();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(50);
+        int length = "sha256".equals(algorithm) ? 32 : 64;
+        for (int i = 0; i < CACHED_DIGESTS; i++) {
+            byte[] hash = new byte[length];
+            random.nextBytes(hash);
+            digest = Digest.of(algorithm, hash);
+            cache.put(digest, Boolean.TRUE);
+        }
+        text = digest.toString();
+    }
+
+    @Benchmark
+    public Digest parse() {
+        return Digest.parse(text);
+    }
+
+    @Benchmark
+    public String render() {
+        return digest.toString();
+    }
+
+    @Benchmark
+    public Boolean parseAndLookup() {
+        return cache.get(Digest.parse(text));
+    }
+}
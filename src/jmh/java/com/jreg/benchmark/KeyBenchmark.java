@@ -0,0 +1,73 @@
+package com.jreg.benchmark;
+
+import com.jreg.model.Digest;
+import com.jreg.util.S3KeyGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storage key generation, done several times per request, against the
+ * {@code String.format} it used to be built with.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyBenchmark {
+
+    @Param({"nginx", "myorg/team-a/build.tools/app_server"})
+    public String repository;
+
+    public String tag = "v1.25.3-alpine3.18";
+
+    public Digest digest =
+            Digest.parse("sha256:b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9");
+
+    @Benchmark
+    public String blobKey() {
+        return S3KeyGenerator.blobKey(digest);
+    }
+
+    @Benchmark
+    public String blobKeyFormat() {
+        String hex = digest.hex();
+        return String.format("blobs/%s/%s/%s", digest.algorithm(), hex.substring(0, 2), hex);
+    }
+
+    @Benchmark
+    public String manifestKey() {
+        return S3KeyGenerator.manifestKey(repository, digest);
+    }
+
+    @Benchmark
+    public String manifestKeyFormat() {
+        return String.format("manifests/%s/%s/%s", repository, digest.algorithm(), digest.hex());
+    }
+
+    @Benchmark
+    public String tagKey() {
+        return S3KeyGenerator.tagKey(repository, tag);
+    }
+
+    @Benchmark
+    public String tagKeyFormat() {
+        return String.format("tags/%s/%s", repository, tag);
+    }
+
+    @Benchmark
+    public String referrersKey() {
+        return S3KeyGenerator.referrersKey(repository, digest);
+    }
+}
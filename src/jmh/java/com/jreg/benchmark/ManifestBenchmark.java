@@ -0,0 +1,69 @@
+package com.jreg.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jreg.service.ValidationService;
+import com.jreg.util.DigestEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manifest push checks on realistic manifests: structural validation alone, validation
+ * with the digest check a push by digest needs, and the bare JSON parse underneath both.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ManifestBenchmark {
+
+    @Param({"image", "index", "signature"})
+    public String manifest;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ValidationService validationService = new ValidationService(objectMapper);
+
+    private byte[] content;
+    private String digest;
+
+    @Setup
+    public void setup() {
+        content = switch (manifest) {
+            case "image" -> Manifests.image(12);
+            case "index" -> Manifests.index();
+            default -> Manifests.signature(DigestEngine.digest("sha256", Manifests.image(12)), 0);
+        };
+        digest = DigestEngine.digest("sha256", content).toString();
+    }
+
+    @Benchmark
+    public byte[] validate() {
+        validationService.validateManifest(content, null);
+        return content;
+    }
+
+    @Benchmark
+    public byte[] validateWithDigest() {
+        validationService.validateManifest(content, digest);
+        return content;
+    }
+
+    @Benchmark
+    public JsonNode parse() throws IOException {
+        return objectMapper.readTree(content);
+    }
+}
@@ -0,0 +1,68 @@
+package com.jreg.benchmark;
+
+import com.jreg.model.Digest;
+import com.jreg.util.DigestEngine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+
+/**
+ * Realistic manifests for the benchmarks: a multi-layer image, a multi-platform index and
+ * a signature artifact that refers to the image.
+ */
+final class Manifests {
+
+    static final String IMAGE_TYPE = "application/vnd.oci.image.manifest.v1+json";
+    static final String INDEX_TYPE = "application/vnd.oci.image.index.v1+json";
+
+    private static final String[] PLATFORMS = {
+            "linux/amd64", "linux/arm64", "linux/arm/v7", "linux/ppc64le", "linux/s390x", "windows/amd64"};
+
+    private Manifests() {
+    }
+
+    static byte[] image(int layers) {
+        StringJoiner layerList = new StringJoiner(",");
+        for (int i = 0; i < layers; i++) {
+            layerList.add(descriptor("application/vnd.oci.image.layer.v1.tar+gzip", 3_000_000L + i * 7919L,
+                    "layer-" + i));
+        }
+        return bytes("{\"schemaVersion\":2,\"mediaType\":\"" + IMAGE_TYPE + "\","
+                + "\"config\":" + descriptor("application/vnd.oci.image.config.v1+json", 7023, "config") + ","
+                + "\"layers\":[" + layerList + "],"
+                + "\"annotations\":{\"org.opencontainers.image.created\":\"2024-01-15T10:30:00Z\","
+                + "\"org.opencontainers.image.source\":\"https://github.com/example/app\","
+                + "\"org.opencontainers.image.revision\":\"0123456789abcdef0123456789abcdef01234567\"}}");
+    }
+
+    static byte[] index() {
+        StringJoiner manifests = new StringJoiner(",");
+        for (String platform : PLATFORMS) {
+            String[] parts = platform.split("/");
+            String descriptor = descriptor(IMAGE_TYPE, 1_500L + platform.length(), platform);
+            manifests.add(descriptor.substring(0, descriptor.length() - 1)
+                    + ",\"platform\":{\"os\":\"" + parts[0] + "\",\"architecture\":\"" + parts[1] + "\""
+                    + (parts.length > 2 ? ",\"variant\":\"" + parts[2] + "\"" : "") + "}}");
+        }
+        return bytes("{\"schemaVersion\":2,\"mediaType\":\"" + INDEX_TYPE + "\",\"manifests\":[" + manifests + "]}");
+    }
+
+    static byte[] signature(Digest subject, int index) {
+        return bytes("{\"schemaVersion\":2,\"mediaType\":\"" + IMAGE_TYPE + "\","
+                + "\"artifactType\":\"application/vnd.dev.cosign.artifact.sig.v1+json\","
+                + "\"config\":{\"mediaType\":\"application/vnd.oci.empty.v1+json\",\"size\":2,"
+                + "\"digest\":\"" + DigestEngine.digest("sha256", bytes("{}")) + "\"},"
+                + "\"layers\":[" + descriptor("application/vnd.dev.cosign.simplesigning.v1+json", 242,
+                        "signature-" + index) + "],"
+                + "\"subject\":{\"mediaType\":\"" + IMAGE_TYPE + "\",\"size\":2190,\"digest\":\"" + subject + "\"}}");
+    }
+
+    private static String descriptor(String mediaType, long size, String seed) {
+        return "{\"mediaType\":\"" + mediaType + "\",\"size\":" + size
+                + ",\"digest\":\"" + DigestEngine.digest("sha256", bytes(seed)) + "\"}";
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,125 @@
+package com.jreg.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jreg.model.Digest;
+import com.jreg.model.Manifest;
+import com.jreg.model.Tag;
+import com.jreg.service.ManifestService;
+import com.jreg.service.PullThroughCache;
+import com.jreg.service.TagService;
+import com.jreg.service.ValidationService;
+import com.jreg.storage.DirectBufferPool;
+import com.jreg.storage.InMemoryAsyncStorageBackend;
+import com.jreg.storage.InMemoryStorageBackend;
+import com.jreg.storage.ParallelPartUploader;
+import com.jreg.storage.UpstreamRegistryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tag and referrers JSON as the services read and write it, over in-memory storage so
+ * the numbers are serialization and bookkeeping rather than storage latency.
+ * {@code entries} is the number of tags in the repository and of referrers to the image.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistryJsonBenchmark {
+
+    private static final String REPOSITORY = "myorg/app";
+
+    @Param({"10", "200"})
+    public int entries;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InMemoryStorageBackend storage = new InMemoryStorageBackend();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private TagService tagService;
+    private ManifestService manifestService;
+    private Digest image;
+    private Manifest referrer;
+
+    @Setup
+    public void setup() throws Exception {
+        InMemoryAsyncStorageBackend asyncStorage = new InMemoryAsyncStorageBackend(storage);
+        ValidationService validationService = new ValidationService(objectMapper);
+        DirectBufferPool bufferPool = new DirectBufferPool(DataSize.ofKilobytes(64), 8,
+                DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+        UpstreamRegistryClient upstream = new UpstreamRegistryClient("", "", "", Duration.ofSeconds(1), "",
+                objectMapper);
+        PullThroughCache pullThroughCache = new PullThroughCache(upstream, storage,
+                new ParallelPartUploader(storage, bufferPool, executor,
+                        DataSize.ofMegabytes(8), 2),
+                bufferPool, executor, Files.createTempDirectory("jreg-bench").toString(), new SimpleMeterRegistry());
+        tagService = new TagService(storage, Optional.of(asyncStorage), validationService, objectMapper);
+        manifestService = new ManifestService(storage, Optional.of(asyncStorage), validationService, objectMapper,
+                pullThroughCache, new SimpleMeterRegistry());
+
+        image = manifestService.storeManifest(REPOSITORY, Manifests.image(12), Manifests.IMAGE_TYPE).getDigest();
+        for (int i = 0; i < entries; i++) {
+            tagService.tagManifest(REPOSITORY, "v1." + i, image);
+            referrer = manifestService.storeManifest(REPOSITORY, Manifests.signature(image, i), Manifests.IMAGE_TYPE);
+            manifestService.updateReferrersIndex(REPOSITORY, image, referrer);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Tag tagWrite() {
+        return tagService.tagManifest(REPOSITORY, "latest", image);
+    }
+
+    @Benchmark
+    public Digest tagResolve() {
+        return tagService.resolveTag(REPOSITORY, "v1.0");
+    }
+
+    @Benchmark
+    public byte[] tagList() throws Exception {
+        List<String> tags = tagService.listTags(REPOSITORY);
+        return objectMapper.writeValueAsBytes(Map.of("name", REPOSITORY, "tags", tags));
+    }
+
+    @Benchmark
+    public String referrersList() {
+        return manifestService.getReferrersIndex(REPOSITORY, image, null).toString();
+    }
+
+    /**
+     * Re-adding a known referrer: the index is read, searched and written back unchanged
+     */
+    @Benchmark
+    public Manifest referrersUpdate() {
+        manifestService.updateReferrersIndex(REPOSITORY, image, referrer);
+        return referrer;
+    }
+}
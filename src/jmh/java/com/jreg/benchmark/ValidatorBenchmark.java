@@ -0,0 +1,91 @@
+package com.jreg.benchmark;
+
+import com.jreg.util.RegexValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Name, tag and digest validation: the hand-written scanners against the regexes they
+ * replaced, both as {@code String.matches} (compiled per call) and precompiled.
+ * Run with {@code -prof gc} to compare allocation per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidatorBenchmark {
+
+    private static final String REPOSITORY_REGEX =
+            "^[a-z0-9]+(?:[._-][a-z0-9]+)*(?:/[a-z0-9]+(?:[._-][a-z0-9]+)*)*$";
+    private static final String TAG_REGEX = "^[A-Za-z0-9_][A-Za-z0-9._-]{0,127}$";
+    private static final String DIGEST_REGEX = "^(sha256|sha512):[a-f0-9]{64,128}$";
+
+    private static final Pattern REPOSITORY = Pattern.compile(REPOSITORY_REGEX);
+    private static final Pattern TAG = Pattern.compile(TAG_REGEX);
+    private static final Pattern DIGEST = Pattern.compile(DIGEST_REGEX);
+
+    @Param({"nginx", "library/nginx", "myorg/team-a/build.tools/app_server"})
+    public String repository;
+
+    public String tag = "v1.25.3-alpine3.18";
+
+    public String digest = "sha256:b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9";
+
+    @Benchmark
+    public boolean repositoryScanner() {
+        return RegexValidator.isValidRepository(repository);
+    }
+
+    @Benchmark
+    public boolean repositoryStringMatches() {
+        return repository.matches(REPOSITORY_REGEX);
+    }
+
+    @Benchmark
+    public boolean repositoryPattern() {
+        return REPOSITORY.matcher(repository).matches();
+    }
+
+    @Benchmark
+    public boolean tagScanner() {
+        return RegexValidator.isValidTag(tag);
+    }
+
+    @Benchmark
+    public boolean tagStringMatches() {
+        return tag.matches(TAG_REGEX);
+    }
+
+    @Benchmark
+    public boolean tagPattern() {
+        return TAG.matcher(tag).matches();
+    }
+
+    @Benchmark
+    public boolean digestScanner() {
+        return RegexValidator.isValidDigest(digest);
+    }
+
+    @Benchmark
+    public boolean digestStringMatches() {
+        return digest.matches(DIGEST_REGEX);
+    }
+
+    @Benchmark
+    public boolean digestPattern() {
+        return DIGEST.matcher(digest).matches();
+    }
+}
@@ -0,0 +1,44 @@
+package com.jreg.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One line per completed request on the {@code com.jreg.access} logger, which
+ * logback-spring.xml routes to a batched asynchronous appender.
+ * Shared by the servlet and reactive logging filters.
+ */
+final class AccessLog {
+
+    static final String LOGGER_NAME = "com.jreg.access";
+
+    private static final Logger accessLogger = LoggerFactory.getLogger(LOGGER_NAME);
+    private static final Logger logger = LoggerFactory.getLogger(AccessLog.class);
+
+    // Requests slower than this are also reported as warnings
+    private static final long SLOW_REQUEST_MILLIS = 200;
+
+    private AccessLog() {
+    }
+
+    /**
+     * Log a completed request. Time to first byte is when the first body byte was written,
+     * or the full duration for responses without a body.
+     */
+    static void log(String method, String uri, int status, long bytesIn, long bytesOut,
+                    long startNanos, long firstByteNanos, long endNanos, String clientIp) {
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos);
+        long ttfbMillis = firstByteNanos != 0
+                ? TimeUnit.NANOSECONDS.toMillis(firstByteNanos - startNanos) : durationMillis;
+
+        accessLogger.info("{} {} {} in={} out={} duration={}ms ttfb={}ms client={}",
+                method, uri, status, bytesIn, bytesOut, durationMillis, ttfbMillis, clientIp);
+
+        // Only the time to the first byte is ours; the rest of a blob download is the client's pace
+        if (ttfbMillis > SLOW_REQUEST_MILLIS) {
+            logger.warn("Slow request detected: {} {} took {}ms to first byte", method, uri, ttfbMillis);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.jreg.config;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import net.logstash.logback.appender.listener.AppenderListener;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts log events an async appender could not queue, by appender name.
+ * Logback creates the listener from logback-spring.xml before the application context
+ * exists, so the counts are static and {@link LoggingConfig} exposes them as metrics.
+ */
+public class DroppedLogEvents implements AppenderListener<ILoggingEvent> {
+
+    private static final Map<String, LongAdder> dropped = new ConcurrentHashMap<>();
+
+    @Override
+    public void appenderStarted(Appender<ILoggingEvent> appender) {
+        counter(appender.getName());
+    }
+
+    @Override
+    public void eventAppendFailed(Appender<ILoggingEvent> appender, ILoggingEvent event, Throwable reason) {
+        counter(appender.getName()).increment();
+    }
+
+    /**
+     * Names of the appenders this listener is attached to
+     */
+    static Set<String> appenders() {
+        return dropped.keySet();
+    }
+
+    /**
+     * Events dropped so far by the named appender
+     */
+    static long count(String appender) {
+        LongAdder counter = dropped.get(appender);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    private static LongAdder counter(String appender) {
+        return dropped.computeIfAbsent(appender, name -> new LongAdder());
+    }
+}
@@ -0,0 +1,33 @@
+package com.jreg.config;
+
+import com.jreg.util.EventLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Map;
+
+/**
+ * Applies the hot-path log sample rates from {@code jreg.logging.sample} and publishes
+ * the number of log events the async appenders had to drop.
+ */
+@Configuration
+public class LoggingConfig {
+
+    public LoggingConfig(Environment environment, MeterRegistry meterRegistry) {
+        Binder.get(environment)
+                .bind("jreg.logging.sample", Bindable.mapOf(String.class, Integer.class))
+                .orElse(Map.of())
+                .forEach(EventLog::setSampleRate);
+
+        for (String appender : DroppedLogEvents.appenders()) {
+            FunctionCounter.builder("jreg.logging.dropped", appender, DroppedLogEvents::count)
+                    .description("Log events dropped because the async appender's ring buffer was full")
+                    .tag("appender", appender)
+                    .register(meterRegistry);
+        }
+    }
+}
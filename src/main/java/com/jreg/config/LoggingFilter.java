@@ -1,29 +1,44 @@
 package com.jreg.config;
 
+import com.jreg.storage.DirectBufferPool;
+import com.jreg.storage.ReadableChannelSource;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.UUID;
 
 /**
- * HTTP request/response logging filter for observability.
- * Logs method, path, status, and duration for all requests.
+ * HTTP access logging filter for observability.
+ * Logs method, path, status, bytes received and sent, duration and time to first byte
+ * for all requests, counted by wrappers around the body streams.
  * Adds request_id to MDC for correlation across logs.
+ * Bodies are passed through untouched so blobs stream instead of being buffered;
+ * async responses are logged when they complete.
  */
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class LoggingFilter extends OncePerRequestFilter {
     
     private static final Logger logger = LoggerFactory.getLogger(LoggingFilter.class);
@@ -47,27 +62,21 @@ public class LoggingFilter extends OncePerRequestFilter {
         // Add request ID to response header
         response.setHeader(REQUEST_ID_HEADER, requestId);
         
-        // Wrap request/response for potential content inspection
-        ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request);
-        ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
-        
-        long startTime = System.currentTimeMillis();
+        CountingRequest countingRequest = new CountingRequest(request);
+        CountingResponse countingResponse = new CountingResponse(response, System.nanoTime());
         
         try {
-            // Log incoming request
-            logRequest(wrappedRequest);
-            
             // Process the request
-            filterChain.doFilter(wrappedRequest, wrappedResponse);
+            filterChain.doFilter(countingRequest, countingResponse);
             
         } finally {
-            long duration = System.currentTimeMillis() - startTime;
-            
-            // Log response
-            logResponse(wrappedRequest, wrappedResponse, duration);
-            
-            // Copy cached response content to actual response
-            wrappedResponse.copyBodyToResponse();
+            if (request.isAsyncStarted()) {
+                // The body is still being written on another thread; log once it is done
+                request.getAsyncContext().addListener(
+                        new ResponseLogger(countingRequest, countingResponse, requestId));
+            } else {
+                logResponse(countingRequest, countingResponse);
+            }
             
             // Clear MDC
             MDC.clear();
@@ -75,47 +84,62 @@ public class LoggingFilter extends OncePerRequestFilter {
     }
     
     /**
-     * Log incoming HTTP request
+     * Logs an async response when it completes, under the request's ID
      */
-    private void logRequest(HttpServletRequest request) {
-        String method = request.getMethod();
-        String uri = request.getRequestURI();
-        String queryString = request.getQueryString();
-        String clientIp = getClientIp(request);
+    private class ResponseLogger implements AsyncListener {
+        private final CountingRequest request;
+        private final CountingResponse response;
+        private final String requestId;
         
-        if (queryString != null && !queryString.isEmpty()) {
-            uri = uri + "?" + queryString;
+        ResponseLogger(CountingRequest request, CountingResponse response, String requestId) {
+            this.request = request;
+            this.response = response;
+            this.requestId = requestId;
+        }
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            MDC.put(REQUEST_ID_MDC_KEY, requestId);
+            try {
+                logResponse(request, response);
+            } finally {
+                MDC.remove(REQUEST_ID_MDC_KEY);
+            }
         }
         
-        logger.info("HTTP Request: {} {} from {}", method, uri, clientIp);
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            MDC.put(REQUEST_ID_MDC_KEY, requestId);
+            try {
+                logger.warn("Async response timed out: {} {}", request.getMethod(), request.getRequestURI());
+            } finally {
+                MDC.remove(REQUEST_ID_MDC_KEY);
+            }
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            // onComplete follows and logs the final status
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Nothing to do
+        }
     }
     
     /**
-     * Log HTTP response with status and duration
+     * Write the access log line for a completed request
      */
-    private void logResponse(HttpServletRequest request, 
-                            HttpServletResponse response, 
-                            long duration) {
-        String method = request.getMethod();
+    private void logResponse(CountingRequest request, CountingResponse response) {
         String uri = request.getRequestURI();
-        int status = response.getStatus();
-        
-        // Log with appropriate level based on status code
-        if (status >= 500) {
-            logger.error("HTTP Response: {} {} - {} ({}ms) [SERVER ERROR]", 
-                        method, uri, status, duration);
-        } else if (status >= 400) {
-            logger.warn("HTTP Response: {} {} - {} ({}ms) [CLIENT ERROR]", 
-                       method, uri, status, duration);
-        } else {
-            logger.info("HTTP Response: {} {} - {} ({}ms)", 
-                       method, uri, status, duration);
+        String queryString = request.getQueryString();
+        if (queryString != null && !queryString.isEmpty()) {
+            uri = uri + "?" + queryString;
         }
         
-        // Warn on slow requests (>200ms threshold)
-        if (duration > 200) {
-            logger.warn("Slow request detected: {} {} took {}ms", method, uri, duration);
-        }
+        AccessLog.log(request.getMethod(), uri, response.getStatus(), request.bytesRead, response.bytesWritten,
+                response.startNanos, response.firstByteNanos, System.nanoTime(), getClientIp(request));
     }
     
     /**
@@ -159,4 +183,160 @@ public class LoggingFilter extends OncePerRequestFilter {
         String path = request.getRequestURI();
         return path.startsWith("/actuator/health") || path.startsWith("/actuator/prometheus");
     }
+    
+    /**
+     * Request wrapper that counts body bytes as they are read
+     */
+    private static final class CountingRequest extends HttpServletRequestWrapper {
+        private volatile long bytesRead;
+        private ServletInputStream inputStream;
+        
+        CountingRequest(HttpServletRequest request) {
+            super(request);
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new CountingInputStream(super.getInputStream());
+            }
+            return inputStream;
+        }
+        
+        /**
+         * Counts the bytes read from the container stream. As a {@link ReadableChannelSource}
+         * it lets ingest read the container stream into direct buffers, counting each read.
+         */
+        private final class CountingInputStream extends ServletInputStream implements ReadableChannelSource {
+            private final ServletInputStream delegate;
+            
+            CountingInputStream(ServletInputStream delegate) {
+                this.delegate = delegate;
+            }
+            
+            @Override
+            public int read() throws IOException {
+                int b = delegate.read();
+                if (b >= 0) {
+                    bytesRead++;
+                }
+                return b;
+            }
+            
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = delegate.read(b, off, len);
+                if (n > 0) {
+                    bytesRead += n;
+                }
+                return n;
+            }
+            
+            @Override
+            public ReadableByteChannel channel() {
+                ReadableByteChannel channel = DirectBufferPool.channelFor(delegate);
+                return new ReadableByteChannel() {
+                    @Override
+                    public int read(ByteBuffer dst) throws IOException {
+                        int n = channel.read(dst);
+                        if (n > 0) {
+                            bytesRead += n;
+                        }
+                        return n;
+                    }
+                    
+                    @Override
+                    public boolean isOpen() {
+                        return channel.isOpen();
+                    }
+                    
+                    @Override
+                    public void close() throws IOException {
+                        channel.close();
+                    }
+                };
+            }
+            
+            @Override
+            public boolean isFinished() {
+                return delegate.isFinished();
+            }
+            
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+            
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                delegate.setReadListener(readListener);
+            }
+        }
+    }
+    
+    /**
+     * Response wrapper that counts body bytes and notes when the first one is written.
+     * Bytes are only counted, never copied.
+     */
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private final long startNanos;
+        private volatile long bytesWritten;
+        private volatile long firstByteNanos;
+        private ServletOutputStream outputStream;
+        
+        CountingResponse(HttpServletResponse response, long startNanos) {
+            super(response);
+            this.startNanos = startNanos;
+        }
+        
+        private void written(long n) {
+            if (firstByteNanos == 0) {
+                firstByteNanos = System.nanoTime();
+            }
+            bytesWritten += n;
+        }
+        
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        written(1);
+                    }
+                    
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        if (len > 0) {
+                            written(len);
+                        }
+                    }
+                    
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+                    
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+                    
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+                    
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegate.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package com.jreg.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Request mapping that dispatches OCI repository endpoints without pattern matching.
+ * {@link OciRoute} parses the path in one scan, which also accepts repository names
+ * with slashes that the {@code {name:.+}} patterns cannot match, and the route is
+ * looked up in a table built from the annotated controller methods at startup.
+ * Every other path falls through to the regular pattern lookup.
+ */
+class OciHandlerMapping extends RequestMappingHandlerMapping {
+
+    // Candidates per route and method; those with params conditions are tried first
+    private final Map<OciRoute.Kind, Map<RequestMethod, List<Candidate>>> routes =
+            new EnumMap<>(OciRoute.Kind.class);
+
+    private record Candidate(RequestMappingInfo info, HandlerMethod handlerMethod) {
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+
+        Map<String, OciRoute.Kind> kinds = new HashMap<>();
+        for (OciRoute.Kind kind : OciRoute.Kind.values()) {
+            kinds.put(kind.pattern, kind);
+        }
+        getHandlerMethods().forEach((info, handlerMethod) -> {
+            for (String pattern : info.getPatternValues()) {
+                OciRoute.Kind kind = kinds.get(pattern);
+                if (kind == null) {
+                    continue;
+                }
+                for (RequestMethod method : info.getMethodsCondition().getMethods()) {
+                    routes.computeIfAbsent(kind, k -> new EnumMap<>(RequestMethod.class))
+                            .computeIfAbsent(method, m -> new ArrayList<>())
+                            .add(new Candidate(info, handlerMethod));
+                }
+            }
+        });
+        routes.values().forEach(byMethod -> byMethod.values().forEach(candidates -> candidates.sort(
+                Comparator.comparing((Candidate c) -> c.info().getParamsCondition().isEmpty()))));
+    }
+
+    @Override
+    protected HandlerMethod lookupHandlerMethod(String lookupPath, HttpServletRequest request) throws Exception {
+        OciRoute route = OciRoute.parse(lookupPath);
+        Map<RequestMethod, List<Candidate>> byMethod = route != null ? routes.get(route.kind()) : null;
+        if (byMethod == null) {
+            return super.lookupHandlerMethod(lookupPath, request);
+        }
+
+        String methodName = CorsUtils.isPreFlightRequest(request)
+                ? request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD) : request.getMethod();
+        RequestMethod method = RequestMethod.resolve(methodName);
+        List<Candidate> candidates = method != null ? byMethod.get(method) : null;
+        if (candidates == null && method == RequestMethod.HEAD) {
+            candidates = byMethod.get(RequestMethod.GET);
+        }
+        if (candidates == null) {
+            if (method == RequestMethod.OPTIONS) {
+                // Let the regular lookup answer OPTIONS with the allowed methods
+                return super.lookupHandlerMethod(lookupPath, request);
+            }
+            Set<String> allowed = byMethod.keySet().stream().map(RequestMethod::name).collect(Collectors.toSet());
+            throw new HttpRequestMethodNotSupportedException(methodName, allowed);
+        }
+
+        for (Candidate candidate : candidates) {
+            RequestMappingInfo info = candidate.info();
+            if (info.getParamsCondition().getMatchingCondition(request) != null
+                    && info.getHeadersCondition().getMatchingCondition(request) != null
+                    && info.getConsumesCondition().getMatchingCondition(request) != null
+                    && info.getProducesCondition().getMatchingCondition(request) != null) {
+                request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, candidate.handlerMethod());
+                request.setAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE, route.kind().pattern);
+                request.setAttribute(URI_TEMPLATE_VARIABLES_ATTRIBUTE, route.variables());
+                if (!info.getProducesCondition().isEmpty()) {
+                    request.setAttribute(PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE,
+                            info.getProducesCondition().getProducibleMediaTypes());
+                }
+                return candidate.handlerMethod();
+            }
+        }
+        // Conditions other than path and method failed; the regular lookup reports why
+        return super.lookupHandlerMethod(lookupPath, request);
+    }
+}
@@ -0,0 +1,104 @@
+package com.jreg.config;
+
+import java.util.Map;
+
+/**
+ * An OCI distribution API route parsed from a request path.
+ * Repository names may contain slashes, so the path is read from the right: the
+ * trailing segments select the endpoint and everything between {@code /v2/} and
+ * them is the repository name.
+ */
+record OciRoute(Kind kind, String name, String argument) {
+
+    private static final String PREFIX = "/v2/";
+
+    /**
+     * Endpoint shapes, each with the controller mapping pattern it resolves to
+     */
+    enum Kind {
+        BLOB("/v2/{name:.+}/blobs/{digest}", "digest"),
+        UPLOAD_START("/v2/{name:.+}/blobs/uploads/", null),
+        UPLOAD("/v2/{name:.+}/blobs/uploads/{uuid}", "uuid"),
+        MANIFEST("/v2/{name:.+}/manifests/{reference}", "reference"),
+        TAGS("/v2/{name:.+}/tags/list", null),
+        REFERRERS("/v2/{name:.+}/referrers/{digest}", "digest");
+
+        final String pattern;
+        final String variable;
+
+        Kind(String pattern, String variable) {
+            this.pattern = pattern;
+            this.variable = variable;
+        }
+    }
+
+    /**
+     * Path variables for the controller method, as a pattern match would have bound them
+     */
+    Map<String, String> variables() {
+        return kind.variable != null ? Map.of("name", name, kind.variable, argument) : Map.of("name", name);
+    }
+
+    /**
+     * Parse a decoded request path.
+     *
+     * @return the route, or null if the path is not an OCI repository endpoint
+     */
+    static OciRoute parse(String path) {
+        if (path == null || !path.startsWith(PREFIX)) {
+            return null;
+        }
+        int end = path.length();
+        if (path.charAt(end - 1) == '/') {
+            // Trailing slashes are ignored, as trailing slash matching does for the other routes
+            end--;
+        }
+
+        int last = path.lastIndexOf('/', end - 1);
+        int previous = last > PREFIX.length() ? path.lastIndexOf('/', last - 1) : -1;
+        if (previous <= PREFIX.length()) {
+            return null;
+        }
+
+        if (segment(path, previous, last, "blobs")) {
+            if (segment(path, last, end, "uploads")) {
+                return route(Kind.UPLOAD_START, path, previous, null);
+            }
+            return route(Kind.BLOB, path, previous, argument(path, last, end));
+        }
+        if (segment(path, previous, last, "manifests")) {
+            return route(Kind.MANIFEST, path, previous, argument(path, last, end));
+        }
+        if (segment(path, previous, last, "referrers")) {
+            return route(Kind.REFERRERS, path, previous, argument(path, last, end));
+        }
+        if (segment(path, previous, last, "tags") && segment(path, last, end, "list")) {
+            return route(Kind.TAGS, path, previous, null);
+        }
+        if (segment(path, previous, last, "uploads")) {
+            int blobs = path.lastIndexOf('/', previous - 1);
+            if (blobs > PREFIX.length() && segment(path, blobs, previous, "blobs")) {
+                return route(Kind.UPLOAD, path, blobs, argument(path, last, end));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the segment between the slashes at {@code from} and {@code to} is {@code expected}
+     */
+    private static boolean segment(String path, int from, int to, String expected) {
+        return to - from - 1 == expected.length() && path.startsWith(expected, from + 1);
+    }
+
+    private static String argument(String path, int last, int end) {
+        return end - last > 1 ? path.substring(last + 1, end) : null;
+    }
+
+    private static OciRoute route(Kind kind, String path, int nameEnd, String argument) {
+        if (kind.variable != null && argument == null) {
+            return null;
+        }
+        return new OciRoute(kind, path.substring(PREFIX.length(), nameEnd), argument);
+    }
+}
@@ -0,0 +1,98 @@
+package com.jreg.config;
+
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Access logging for the reactive stack, with the same fields as {@link LoggingFilter}.
+ * Body buffers are counted as they pass through and never retained.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoggingFilter implements WebFilter {
+
+    private static final String REQUEST_ID_HEADER = "X-Request-ID";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().value();
+        if (path.startsWith("/actuator/health") || path.startsWith("/actuator/prometheus")) {
+            return chain.filter(exchange);
+        }
+
+        String requestId = request.getHeaders().getFirst(REQUEST_ID_HEADER);
+        if (requestId == null || requestId.isEmpty()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        exchange.getResponse().getHeaders().set(REQUEST_ID_HEADER, requestId);
+
+        long startNanos = System.nanoTime();
+        AtomicLong bytesIn = new AtomicLong();
+        AtomicLong bytesOut = new AtomicLong();
+        AtomicLong firstByteNanos = new AtomicLong();
+
+        ServerHttpRequest countingRequest = new ServerHttpRequestDecorator(request) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return super.getBody().doOnNext(buffer -> bytesIn.addAndGet(buffer.readableByteCount()));
+            }
+        };
+        ServerHttpResponse countingResponse = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return super.writeWith(counted(body));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                return super.writeAndFlushWith(Flux.from(body).map(this::counted));
+            }
+
+            private Flux<? extends DataBuffer> counted(Publisher<? extends DataBuffer> body) {
+                return Flux.from(body).doOnNext(buffer -> {
+                    firstByteNanos.compareAndSet(0, System.nanoTime());
+                    bytesOut.addAndGet(buffer.readableByteCount());
+                });
+            }
+        };
+
+        String uri = request.getURI().getRawQuery() != null
+                ? path + "?" + request.getURI().getRawQuery() : path;
+        return chain.filter(exchange.mutate().request(countingRequest).response(countingResponse).build())
+                .doFinally(signal -> {
+                    HttpStatusCode status = countingResponse.getStatusCode();
+                    AccessLog.log(request.getMethod().name(), uri, status != null ? status.value() : 200,
+                            bytesIn.get(), bytesOut.get(), startNanos, firstByteNanos.get(), System.nanoTime(),
+                            clientIp(request));
+                });
+    }
+
+    private static String clientIp(ServerHttpRequest request) {
+        String forwarded = request.getHeaders().getFirst("X-Forwarded-For");
+        if (forwarded != null && !forwarded.isEmpty()) {
+            return forwarded.split(",")[0].trim();
+        }
+        InetSocketAddress remote = request.getRemoteAddress();
+        return remote != null ? remote.getHostString() : null;
+    }
+}
@@ -1,17 +1,26 @@
 package com.jreg.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
 
 @Configuration
 public class S3Config {
@@ -31,21 +40,31 @@ public class S3Config {
     @Value("${aws.s3.secret-key:}")
     private String secretKey;
 
+    @Value("${jreg.storage.transfer-threads:16}")
+    private int transferThreads;
+
+    @Value("${jreg.storage.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${jreg.storage.connection-acquisition-timeout:10s}")
+    private Duration connectionAcquisitionTimeout;
+
+    @Value("${jreg.storage.async.max-concurrency:500}")
+    private int asyncMaxConcurrency;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean
     public S3Client s3Client() {
         S3ClientBuilder builder = S3Client.builder()
-                .region(Region.of(region));
-
-        // Use custom credentials if provided (LocalStack)
-        if (!accessKey.isEmpty() && !secretKey.isEmpty()) {
-            AwsCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(
-                    AwsBasicCredentials.create(accessKey, secretKey)
-            );
-            builder.credentialsProvider(credentialsProvider);
-        } else {
-            // Use default credentials chain for production
-            builder.credentialsProvider(DefaultCredentialsProvider.create());
-        }
+                .region(Region.of(region))
+                .credentialsProvider(credentialsProvider())
+                // Every open blob stream holds a connection; this, not a thread pool,
+                // bounds concurrent storage reads when requests run on virtual threads
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(maxConnections)
+                        .connectionAcquisitionTimeout(connectionAcquisitionTimeout));
 
         // Use custom endpoint if provided (LocalStack)
         if (!endpoint.isEmpty()) {
@@ -56,8 +75,77 @@ public class S3Config {
         return builder.build();
     }
 
+    /**
+     * Non-blocking client for the async storage backend. Requests share a few Netty
+     * event-loop threads; max concurrency bounds open connections rather than threads.
+     * Only the reactive stack uses it, so the servlet stack starts no event loop.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public S3AsyncClient s3AsyncClient() {
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentialsProvider())
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(asyncMaxConcurrency)
+                        .connectionAcquisitionTimeout(connectionAcquisitionTimeout));
+
+        if (!endpoint.isEmpty()) {
+            builder.endpointOverride(URI.create(endpoint));
+            builder.forcePathStyle(true);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Presigner for direct-from-storage blob downloads, configured like the S3 client
+     */
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner() {
+        S3Presigner.Builder builder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentialsProvider());
+
+        if (!endpoint.isEmpty()) {
+            builder.endpointOverride(URI.create(endpoint));
+            builder.serviceConfiguration(S3Configuration.builder()
+                    .pathStyleAccessEnabled(true)
+                    .build());
+        }
+
+        return builder.build();
+    }
+
+    private AwsCredentialsProvider credentialsProvider() {
+        // Use custom credentials if provided (LocalStack)
+        if (!accessKey.isEmpty() && !secretKey.isEmpty()) {
+            return StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(accessKey, secretKey)
+            );
+        }
+        // Use default credentials chain for production
+        return DefaultCredentialsProvider.create();
+    }
+
     @Bean
     public String s3BucketName() {
         return bucketName;
     }
+
+    /**
+     * Shared pool for parallel part transfers to and from storage.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService storageTransferExecutor() {
+        return TaskExecutors.fixed("storage-transfer-", transferThreads);
+    }
+
+    /**
+     * Threads that drain spooled downloads from storage; one per download being spooled.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService downloadSpoolExecutor() {
+        return TaskExecutors.perTask("download-spool-", virtualThreads);
+    }
 }
@@ -0,0 +1,88 @@
+package com.jreg.config;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the internal executors. With virtual threads enabled, unbounded fan-out
+ * gets a fresh virtual thread per task instead of a platform thread pool.
+ * Every executor propagates the submitter's MDC.
+ */
+final class TaskExecutors {
+
+    private static final MdcTaskDecorator MDC_DECORATOR = new MdcTaskDecorator();
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * One thread per task: a virtual thread, or a cached daemon platform thread
+     */
+    static ExecutorService perTask(String namePrefix, boolean virtualThreads) {
+        if (virtualThreads) {
+            return withMdc(Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(namePrefix, 0).factory()));
+        }
+        return withMdc(Executors.newCachedThreadPool(
+                Thread.ofPlatform().name(namePrefix, 0).daemon(true).factory()));
+    }
+
+    /**
+     * A fixed number of daemon platform threads. Used where the pool size is a deliberate
+     * concurrency cap rather than a thread budget, so it stays the same in both modes.
+     */
+    static ExecutorService fixed(String namePrefix, int threads) {
+        ThreadFactory factory = Thread.ofPlatform().name(namePrefix, 0).daemon(true).factory();
+        return withMdc(Executors.newFixedThreadPool(threads, factory));
+    }
+
+    static ExecutorService withMdc(ExecutorService delegate) {
+        return new MdcExecutorService(delegate);
+    }
+
+    /**
+     * Decorates every task with the submitter's MDC; {@code submit} and {@code invokeAll}
+     * go through {@link #execute} so they are covered too.
+     */
+    private static final class MdcExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+
+        MdcExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(MDC_DECORATOR.decorate(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
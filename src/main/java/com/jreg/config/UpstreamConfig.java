@@ -0,0 +1,23 @@
+package com.jreg.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+public class UpstreamConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Threads that drain upstream blob downloads into local spool files.
+     * One thread per in-flight digest; fetches outlive the request that started them.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService upstreamFetchExecutor() {
+        return TaskExecutors.perTask("upstream-fetch-", virtualThreads);
+    }
+}
@@ -1,35 +1,109 @@
 package com.jreg.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // Response headers OCI clients read from cross-origin responses; shared with the reactive stack
+    static final String[] EXPOSED_HEADERS = {
+            "Docker-Content-Digest",
+            "Docker-Distribution-API-Version",
+            "Docker-Upload-UUID",
+            "Location",
+            "Range",
+            "Content-Range",
+            "Link",
+            "ETag",
+            "OCI-Subject",
+            "OCI-Filters-Applied",
+            "OCI-Chunk-Min-Length",
+            "Jreg-Chunk-Max-Length",
+            "Jreg-Out-Of-Order-Chunks"
+    };
+
+    @Value("${jreg.blob.async-delivery.threads:64}")
+    private int asyncDeliveryThreads;
+
+    @Value("${jreg.blob.async-delivery.queue-capacity:256}")
+    private int asyncDeliveryQueueCapacity;
+
+    @Value("${jreg.blob.async-delivery.timeout:1h}")
+    private Duration asyncDeliveryTimeout;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Bounded pool that writes async blob bodies. When it is saturated the request
+     * thread writes the body itself, which is how every download behaves without it.
+     * With virtual threads each body gets its own virtual thread and no pool is needed.
+     */
+    @Bean
+    public AsyncTaskExecutor blobDeliveryExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("blob-delivery-");
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(new MdcTaskDecorator());
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncDeliveryThreads);
+        executor.setMaxPoolSize(asyncDeliveryThreads);
+        executor.setQueueCapacity(asyncDeliveryQueueCapacity);
+        executor.setThreadNamePrefix("blob-delivery-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        return executor;
+    }
+
+    /**
+     * Dispatch OCI repository endpoints through {@link OciHandlerMapping}, which also
+     * routes repository names with slashes.
+     */
+    @Bean
+    public WebMvcRegistrations ociRouting() {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new OciHandlerMapping();
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(blobDeliveryExecutor());
+        // Layer downloads can legitimately take far longer than the container's 30s default
+        configurer.setDefaultTimeout(asyncDeliveryTimeout.toMillis());
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/v2/**")
                 .allowedOrigins("*")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "HEAD", "PATCH", "OPTIONS")
                 .allowedHeaders("*")
-                .exposedHeaders(
-                        "Docker-Content-Digest",
-                        "Docker-Distribution-API-Version",
-                        "Docker-Upload-UUID",
-                        "Location",
-                        "Range",
-                        "Content-Range",
-                        "Link",
-                        "OCI-Subject",
-                        "OCI-Filters-Applied"
-                );
+                .exposedHeaders(EXPOSED_HEADERS);
     }
 
     @Override
     public void configurePathMatch(PathMatchConfigurer configurer) {
-        // Disable PathPatternParser to use AntPathMatcher which supports {name:.+} regex
+        // OCI endpoints are routed by OciHandlerMapping; the rest keep AntPathMatcher patterns
         configurer.setPatternParser(null);
         configurer.setUseTrailingSlashMatch(true);
     }
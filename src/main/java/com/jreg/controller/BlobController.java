@@ -3,16 +3,22 @@ package com.jreg.controller;
 import com.jreg.exception.BlobNotFoundException;
 import com.jreg.exception.DigestInvalidException;
 import com.jreg.model.Blob;
+import com.jreg.model.ByteRange;
 import com.jreg.model.Digest;
+import com.jreg.service.BlobRedirectService;
 import com.jreg.service.BlobService;
-import com.jreg.storage.StorageBackend;
+import com.jreg.service.PullThroughCache.PulledBlob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.InputStream;
+import java.util.List;
 
 /**
  * OCI Distribution Spec - Blob operations
@@ -20,14 +26,25 @@ import java.io.InputStream;
  */
 @RestController
 @RequestMapping("/v2")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class BlobController {
     
+    // Ranges closer than this are sent as one part; roughly the size of a part header
+    private static final long PART_MERGE_GAP = 80;
+    
     private final BlobService blobService;
-    private final StorageBackend storage;
+    private final BlobRedirectService blobRedirectService;
+    private final BlobDelivery blobDelivery;
+    private final long rangeReadGap;
 
-    public BlobController(BlobService blobService, StorageBackend storage) {
+    public BlobController(BlobService blobService,
+                          BlobRedirectService blobRedirectService,
+                          BlobDelivery blobDelivery,
+                          @Value("${jreg.blob.range-read-gap:64KB}") DataSize rangeReadGap) {
         this.blobService = blobService;
-        this.storage = storage;
+        this.blobRedirectService = blobRedirectService;
+        this.blobDelivery = blobDelivery;
+        this.rangeReadGap = rangeReadGap.toBytes();
     }
 
     /**
@@ -40,13 +57,14 @@ public class BlobController {
     )
     public ResponseEntity<Void> checkBlobExists(
             @PathVariable("name") String repository,
-            @PathVariable("digest") String digestStr) {
+            @PathVariable("digest") String digestStr,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
         try {
             Digest digest = Digest.parse(digestStr);
             
-            if (!blobService.blobExists(repository, digest)) {
-                throw new BlobNotFoundException(repository, digest);
+            if (ContentCaching.isNotModified(ifNoneMatch, digest)) {
+                return notModified(repository, digest);
             }
             
             Blob blob = blobService.getBlobMetadata(repository, digest);
@@ -55,6 +73,9 @@ public class BlobController {
                     .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(blob.getSize()))
                     .header(HttpHeaders.CONTENT_TYPE, blob.getMediaType())
                     .header("Docker-Content-Digest", digest.toString())
+                    .eTag(ContentCaching.etag(digest))
+                    .cacheControl(ContentCaching.IMMUTABLE)
+                    .lastModified(blob.getUploadedAt())
                     .build();
                     
         } catch (IllegalArgumentException e) {
@@ -65,31 +86,62 @@ public class BlobController {
     /**
      * Download a blob (OCI end-4)
      * GET /v2/{name}/blobs/{digest}
-     * Supports HTTP Range requests for partial content delivery
+     * Supports HTTP Range requests for partial content delivery.
+     * In redirect mode the client is sent to a presigned storage URL instead;
+     * it repeats any Range header against storage.
+     * With async delivery the body is written from the delivery pool, not the request thread.
      */
     @GetMapping("/{name:.+}/blobs/{digest}")
-    public ResponseEntity<InputStreamResource> downloadBlob(
+    public ResponseEntity<?> downloadBlob(
             @PathVariable("name") String repository,
             @PathVariable("digest") String digestStr,
-            @RequestHeader(value = "Range", required = false) String rangeHeader) {
+            @RequestHeader(value = "Range", required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        
+        return blobDelivery.deliver(serveBlob(repository, digestStr, rangeHeader, ifRange, ifNoneMatch));
+    }
+
+    private ResponseEntity<InputStreamResource> serveBlob(
+            String repository, String digestStr, String rangeHeader, String ifRange, String ifNoneMatch) {
         
         try {
             Digest digest = Digest.parse(digestStr);
             
-            Blob blob = blobService.getBlobMetadata(repository, digest);
+            if (ContentCaching.isNotModified(ifNoneMatch, digest)) {
+                return notModified(repository, digest);
+            }
             
-            // Handle Range requests (RFC 7233)
-            if (rangeHeader != null && rangeHeader.startsWith("bytes=")) {
-                return handleRangeRequest(repository, digest, blob, rangeHeader);
+            Blob blob = blobService.findBlob(repository, digest).orElse(null);
+            if (blob == null) {
+                return pullThrough(repository, digest);
+            }
+            
+            if (blobRedirectService.isEnabled()) {
+                return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                        .location(blobRedirectService.getDownloadUrl(digest))
+                        .header("Docker-Content-Digest", digest.toString())
+                        .build();
+            }
+            
+            // Handle Range requests (RFC 7233) unless If-Range says the client's copy is stale
+            if (rangeHeader != null && ContentCaching.isRangeApplicable(ifRange, digest, blob.getUploadedAt())) {
+                ResponseEntity<InputStreamResource> partial = handleRangeRequest(repository, digest, blob, rangeHeader);
+                if (partial != null) {
+                    return partial;
+                }
             }
             
             // Full content download
-            InputStream content = blobService.getBlobContent(repository, digest);
+            InputStream content = blobService.getBlobContent(repository, blob);
             
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(blob.getSize()))
                     .header(HttpHeaders.CONTENT_TYPE, blob.getMediaType())
                     .header("Docker-Content-Digest", digest.toString())
+                    .eTag(ContentCaching.etag(digest))
+                    .cacheControl(ContentCaching.IMMUTABLE)
+                    .lastModified(blob.getUploadedAt())
                     .body(new InputStreamResource(content));
                     
         } catch (IllegalArgumentException e) {
@@ -98,60 +150,89 @@ public class BlobController {
     }
 
     /**
-     * Handle HTTP Range request for partial content delivery
-     * Supports:
-     * - bytes=start-end (specific range)
-     * - bytes=-suffix (last N bytes)
-     * - bytes=start- (from start to end)
+     * Serve a blob missing locally from the upstream registry while it is being cached.
+     * Range headers are ignored; the whole blob is sent, as the first puller needs it anyway.
+     */
+    private ResponseEntity<InputStreamResource> pullThrough(String repository, Digest digest) {
+        PulledBlob pulled = blobService.pullBlob(repository, digest);
+        Blob blob = pulled.blob();
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, blob.getMediaType())
+                .header("Docker-Content-Digest", digest.toString())
+                .eTag(ContentCaching.etag(digest))
+                .cacheControl(ContentCaching.IMMUTABLE);
+        if (blob.getSize() >= 0) {
+            response.header(HttpHeaders.CONTENT_LENGTH, String.valueOf(blob.getSize()));
+        }
+        return response.body(new InputStreamResource(pulled.content()));
+    }
+
+    /**
+     * Answer a conditional request whose ETag still matches.
+     * Blob content is immutable, so only existence is checked, as for an unconditional HEAD:
+     * locally, then in pull-through mode at the upstream. The content is never read.
+     */
+    private <T> ResponseEntity<T> notModified(String repository, Digest digest) {
+        // Throws BlobNotFoundException when the blob exists in neither place
+        blobService.getBlobMetadata(repository, digest);
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .header("Docker-Content-Digest", digest.toString())
+                .eTag(ContentCaching.etag(digest))
+                .cacheControl(ContentCaching.IMMUTABLE)
+                .build();
+    }
+
+    /**
+     * Handle HTTP Range request for partial content delivery (RFC 7233).
+     * Supports bytes=start-end, bytes=start- and bytes=-suffix, and several comma-separated
+     * ranges answered as multipart/byteranges. Nearby ranges are merged, and parts close
+     * enough together are served from a single storage read.
+     * Returns null when the header is malformed and must be ignored.
      */
     private ResponseEntity<InputStreamResource> handleRangeRequest(
             String repository, Digest digest, Blob blob, String rangeHeader) {
         
-        String rangeValue = rangeHeader.substring(6); // Remove "bytes="
         long totalSize = blob.getSize();
-        long rangeStart;
-        long rangeEnd;
-        
-        if (rangeValue.startsWith("-")) {
-            // Suffix-byte-range: bytes=-10 (last 10 bytes)
-            long suffix = Long.parseLong(rangeValue.substring(1));
-            rangeStart = Math.max(0, totalSize - suffix);
-            rangeEnd = totalSize - 1;
-        } else if (rangeValue.endsWith("-")) {
-            // From start to end: bytes=100-
-            rangeStart = Long.parseLong(rangeValue.substring(0, rangeValue.length() - 1));
-            rangeEnd = totalSize - 1;
-        } else {
-            // Specific range: bytes=0-9
-            String[] parts = rangeValue.split("-");
-            rangeStart = Long.parseLong(parts[0]);
-            rangeEnd = Long.parseLong(parts[1]);
+        List<ByteRange> requested = RangeHeader.parse(rangeHeader, totalSize);
+        if (requested == null) {
+            return null;
         }
-        
-        // Validate range
-        if (rangeStart < 0 || rangeEnd >= totalSize || rangeStart > rangeEnd) {
-            return ResponseEntity.status(416) // Range Not Satisfiable
+        if (requested.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
                     .header("Content-Range", "bytes */" + totalSize)
                     .build();
         }
         
-        long contentLength = rangeEnd - rangeStart + 1;
-        String s3Range = "bytes=" + rangeStart + "-" + rangeEnd;
+        // Merging parts closer than a part header costs nothing extra on the wire
+        List<ByteRange> parts = RangeHeader.coalesce(requested, PART_MERGE_GAP);
         
-        try {
-            String key = "blobs/" + digest.algorithm() + "/" + digest.hex().substring(0, 2) + "/" + digest.hex();
-            InputStream content = storage.getObjectRange(key, s3Range);
+        if (parts.size() == 1) {
+            ByteRange range = parts.get(0);
+            InputStream content = blobService.getBlobRange(repository, blob, range);
             
-            return ResponseEntity.status(206) // Partial Content
-                    .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(contentLength))
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(range.size()))
                     .header(HttpHeaders.CONTENT_TYPE, blob.getMediaType())
-                    .header("Content-Range", "bytes " + rangeStart + "-" + rangeEnd + "/" + totalSize)
+                    .header("Content-Range", range.toContentRange(totalSize))
                     .header("Docker-Content-Digest", digest.toString())
+                    .eTag(ContentCaching.etag(digest))
+                    .cacheControl(ContentCaching.IMMUTABLE)
+                    .lastModified(blob.getUploadedAt())
                     .body(new InputStreamResource(content));
-                    
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
         }
+        
+        MultipartByteRanges body = new MultipartByteRanges(parts, blob.getMediaType(), totalSize);
+        InputStream content = body.open(window -> blobService.getBlobRange(repository, blob, window), rangeReadGap);
+        
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(body.getContentLength()))
+                .header(HttpHeaders.CONTENT_TYPE, body.getContentType())
+                .header("Docker-Content-Digest", digest.toString())
+                .eTag(ContentCaching.etag(digest))
+                .cacheControl(ContentCaching.IMMUTABLE)
+                .lastModified(blob.getUploadedAt())
+                .body(new InputStreamResource(content));
     }
 
     /**
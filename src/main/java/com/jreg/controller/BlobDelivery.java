@@ -0,0 +1,54 @@
+package com.jreg.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Hands blob bodies to the async delivery pool instead of the servlet worker thread.
+ * With async delivery on, the worker returns to Tomcat as soon as headers are decided,
+ * so manifest and HEAD requests do not queue behind long layer transfers.
+ */
+@Component
+public class BlobDelivery {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final boolean asyncEnabled;
+
+    public BlobDelivery(@Value("${jreg.blob.async-delivery.enabled:false}") boolean asyncEnabled) {
+        this.asyncEnabled = asyncEnabled;
+    }
+
+    /**
+     * Return the response as is, or with its body turned into a {@link StreamingResponseBody}
+     * that Spring MVC runs on the async delivery executor
+     */
+    public ResponseEntity<?> deliver(ResponseEntity<InputStreamResource> response) {
+        InputStreamResource resource = response.getBody();
+        if (!asyncEnabled || resource == null) {
+            return response;
+        }
+        InputStream content;
+        try {
+            content = resource.getInputStream();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open blob content: " + e.getMessage(), e);
+        }
+        StreamingResponseBody body = out -> {
+            try (content) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int n;
+                while ((n = content.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            }
+        };
+        return new ResponseEntity<>(body, response.getHeaders(), response.getStatusCode());
+    }
+}
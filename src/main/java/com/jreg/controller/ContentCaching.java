@@ -0,0 +1,81 @@
+package com.jreg.controller;
+
+import com.jreg.model.Digest;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * HTTP caching helpers for content addressed by digest.
+ * The digest identifies the exact bytes, so it doubles as a strong ETag.
+ */
+final class ContentCaching {
+
+    /**
+     * Content fetched by digest never changes
+     */
+    static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    /**
+     * Content fetched by tag may change; caches must revalidate (cheap with the ETag)
+     */
+    static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    private ContentCaching() {
+    }
+
+    /**
+     * Strong ETag for digest-addressed content
+     */
+    static String etag(Digest digest) {
+        return "\"" + digest + "\"";
+    }
+
+    /**
+     * Check if an If-None-Match header matches the digest, meaning the client's copy is current.
+     * Uses weak comparison as RFC 9110 requires for If-None-Match.
+     */
+    static boolean isNotModified(String ifNoneMatch, Digest digest) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String expected = etag(digest);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a Range request should be honoured given its If-Range header (RFC 7233 3.2).
+     * An entity tag must match strongly; a date must equal the last modification time.
+     */
+    static boolean isRangeApplicable(String ifRange, Digest digest, Instant lastModified) {
+        if (ifRange == null || ifRange.isBlank()) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return value.equals(etag(digest));
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return lastModified != null && date.toEpochSecond() == lastModified.getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
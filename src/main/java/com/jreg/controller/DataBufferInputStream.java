@@ -0,0 +1,157 @@
+package com.jreg.controller;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Blocking view of a request body for the services that consume an {@link InputStream}.
+ * Only a few buffers are requested ahead of the reader, so a slow storage write slows the
+ * client down instead of piling the body up in memory. Must be read off the event loop.
+ */
+final class DataBufferInputStream extends InputStream implements Subscriber<DataBuffer> {
+
+    private static final Object COMPLETE = new Object();
+
+    private final int prefetch;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private volatile Subscription subscription;
+    private DataBuffer current;
+    private IOException failure;
+    private boolean done;
+    // Set before close drains the queue; a buffer delivered after that releases itself
+    private volatile boolean closed;
+
+    private DataBufferInputStream(int prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Subscribe to a body, keeping at most {@code prefetch} unread buffers
+     */
+    static DataBufferInputStream subscribe(Publisher<DataBuffer> body, int prefetch) {
+        DataBufferInputStream stream = new DataBufferInputStream(prefetch);
+        body.subscribe(stream);
+        return stream;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(DataBuffer buffer) {
+        queue.add(buffer);
+        if (closed) {
+            // In flight when close cancelled the subscription; the reader is gone
+            drain();
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        queue.add(error);
+    }
+
+    @Override
+    public void onComplete() {
+        queue.add(COMPLETE);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!advance()) {
+            return -1;
+        }
+        int n = Math.min(len, current.readableByteCount());
+        current.read(b, off, n);
+        return n;
+    }
+
+    /**
+     * Make sure {@link #current} has unread bytes, waiting for the next buffer if needed.
+     * Returns false at the end of the body.
+     */
+    private boolean advance() throws IOException {
+        while (current == null || current.readableByteCount() == 0) {
+            if (current != null) {
+                DataBufferUtils.release(current);
+                current = null;
+                subscription.request(1);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (done) {
+                return false;
+            }
+            Object next;
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for request body");
+            }
+            if (next == COMPLETE) {
+                done = true;
+            } else if (next instanceof Throwable error) {
+                failure = error instanceof IOException io ? io : new IOException("Failed to read request body", error);
+            } else {
+                current = (DataBuffer) next;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int available() {
+        return current != null ? current.readableByteCount() : 0;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!done && failure == null && subscription != null) {
+            subscription.cancel();
+        }
+        if (current != null) {
+            DataBufferUtils.release(current);
+            current = null;
+        }
+        drain();
+    }
+
+    private void drain() {
+        Object next;
+        while ((next = queue.poll()) != null) {
+            if (next instanceof DataBuffer buffer) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+}
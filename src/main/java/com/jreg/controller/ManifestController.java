@@ -3,11 +3,13 @@ package com.jreg.controller;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.jreg.exception.DigestInvalidException;
 import com.jreg.exception.ManifestInvalidException;
+import com.jreg.exception.ManifestNotFoundException;
 import com.jreg.model.Digest;
 import com.jreg.model.Manifest;
 import com.jreg.service.ManifestService;
 import com.jreg.service.TagService;
 import com.jreg.util.RegexValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +25,7 @@ import java.util.Map;
  */
 @RestController
 @RequestMapping("/v2")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ManifestController {
     
     private final ManifestService manifestService;
@@ -48,11 +51,14 @@ public class ManifestController {
         try {
             byte[] manifestBytes = request.getInputStream().readAllBytes();
             
+            // A digest reference names the algorithm the manifest is addressed and verified with
+            Digest expectedDigest = RegexValidator.isValidDigest(reference) ? Digest.parse(reference) : null;
+            
             // Store manifest
-            Manifest manifest = manifestService.storeManifest(repository, manifestBytes, contentType);
+            Manifest manifest = manifestService.storeManifest(repository, manifestBytes, contentType, expectedDigest);
             
             // If reference is a tag, create/update the tag
-            if (!RegexValidator.isValidDigest(reference)) {
+            if (expectedDigest == null) {
                 tagService.tagManifest(repository, reference, manifest.getDigest());
             }
             
@@ -84,23 +90,26 @@ public class ManifestController {
     @GetMapping("/{name:.+}/manifests/{reference}")
     public ResponseEntity<byte[]> pullManifest(
             @PathVariable("name") String repository,
-            @PathVariable("reference") String reference) {
+            @PathVariable("reference") String reference,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
         try {
-            Manifest manifest;
+            boolean byDigest = RegexValidator.isValidDigest(reference);
+            Digest digest = resolveReference(repository, reference);
             
-            // Check if reference is a digest or tag
-            if (RegexValidator.isValidDigest(reference)) {
-                Digest digest = Digest.parse(reference);
-                manifest = manifestService.getManifest(repository, digest);
-            } else {
-                manifest = manifestService.getManifestByTag(repository, reference, tagService);
+            if (ContentCaching.isNotModified(ifNoneMatch, digest)) {
+                return notModified(repository, digest, byDigest);
             }
             
+            Manifest manifest = manifestService.getManifest(repository, digest);
+            
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_TYPE, manifest.getMediaType())
                     .header("Docker-Content-Digest", manifest.getDigest().toString())
                     .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(manifest.getSize()))
+                    .eTag(ContentCaching.etag(digest))
+                    .cacheControl(byDigest ? ContentCaching.IMMUTABLE : ContentCaching.REVALIDATE)
+                    .lastModified(manifest.getUploadedAt())
                     .body(manifest.getContent());
                     
         } catch (IllegalArgumentException e) {
@@ -118,23 +127,26 @@ public class ManifestController {
     )
     public ResponseEntity<Void> checkManifestExists(
             @PathVariable("name") String repository,
-            @PathVariable("reference") String reference) {
+            @PathVariable("reference") String reference,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
         try {
-            Manifest manifest;
+            boolean byDigest = RegexValidator.isValidDigest(reference);
+            Digest digest = resolveReference(repository, reference);
             
-            // Check if reference is a digest or tag
-            if (RegexValidator.isValidDigest(reference)) {
-                Digest digest = Digest.parse(reference);
-                manifest = manifestService.getManifest(repository, digest);
-            } else {
-                manifest = manifestService.getManifestByTag(repository, reference, tagService);
+            if (ContentCaching.isNotModified(ifNoneMatch, digest)) {
+                return notModified(repository, digest, byDigest);
             }
             
+            Manifest manifest = manifestService.getManifest(repository, digest);
+            
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_TYPE, manifest.getMediaType())
                     .header("Docker-Content-Digest", manifest.getDigest().toString())
                     .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(manifest.getSize()))
+                    .eTag(ContentCaching.etag(digest))
+                    .cacheControl(byDigest ? ContentCaching.IMMUTABLE : ContentCaching.REVALIDATE)
+                    .lastModified(manifest.getUploadedAt())
                     .build();
                     
         } catch (IllegalArgumentException e) {
@@ -142,6 +154,36 @@ public class ManifestController {
         }
     }
 
+    /**
+     * Resolve a manifest reference (digest or tag) to a digest.
+     * Tags unknown locally are resolved against the upstream in pull-through mode.
+     */
+    private Digest resolveReference(String repository, String reference) {
+        if (RegexValidator.isValidDigest(reference)) {
+            return Digest.parse(reference);
+        }
+        try {
+            return tagService.resolveTag(repository, reference);
+        } catch (ManifestNotFoundException e) {
+            return manifestService.resolveUpstreamTag(repository, reference).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Answer a conditional request whose ETag still matches without reading the manifest.
+     * A tag has just been resolved to this digest; a digest reference only needs an existence check.
+     */
+    private <T> ResponseEntity<T> notModified(String repository, Digest digest, boolean byDigest) {
+        if (byDigest && !manifestService.manifestExists(repository, digest)) {
+            throw new ManifestNotFoundException(repository, digest);
+        }
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .header("Docker-Content-Digest", digest.toString())
+                .eTag(ContentCaching.etag(digest))
+                .cacheControl(byDigest ? ContentCaching.IMMUTABLE : ContentCaching.REVALIDATE)
+                .build();
+    }
+
     /**
      * Delete a manifest (OCI end-9)
      * DELETE /v2/{name}/manifests/{reference}
@@ -0,0 +1,165 @@
+package com.jreg.controller;
+
+import com.jreg.model.ByteRange;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * A multipart/byteranges response body (RFC 7233 Appendix A).
+ * Parts that lie close together are served from one backend read, skipping the bytes between them.
+ */
+final class MultipartByteRanges {
+
+    private final List<ByteRange> parts;
+    private final String partContentType;
+    private final long totalSize;
+    private final String boundary = UUID.randomUUID().toString().replace("-", "");
+
+    /**
+     * @param parts non-overlapping ranges in ascending order
+     */
+    MultipartByteRanges(List<ByteRange> parts, String partContentType, long totalSize) {
+        this.parts = parts;
+        this.partContentType = partContentType;
+        this.totalSize = totalSize;
+    }
+
+    /**
+     * Content-Type header value for the whole response
+     */
+    String getContentType() {
+        return "multipart/byteranges; boundary=" + boundary;
+    }
+
+    /**
+     * Exact length of the body
+     */
+    long getContentLength() {
+        long length = closingDelimiter().length;
+        for (ByteRange part : parts) {
+            length += partHeader(part).length + part.size();
+        }
+        return length;
+    }
+
+    /**
+     * Stream the body, opening one backend read per group of parts that are at most
+     * {@code maxReadGap} bytes apart. Reads are opened lazily as the body is consumed.
+     */
+    InputStream open(Function<ByteRange, InputStream> reader, long maxReadGap) {
+        List<InputStream> segments = new ArrayList<>();
+        for (ByteRange window : RangeHeader.coalesce(parts, maxReadGap)) {
+            WindowRead read = new WindowRead(reader, window);
+            for (ByteRange part : parts) {
+                if (part.start() >= window.start() && part.end() <= window.end()) {
+                    segments.add(new ByteArrayInputStream(partHeader(part)));
+                    segments.add(new PartSlice(read, part, part.end() == window.end()));
+                }
+            }
+        }
+        segments.add(new ByteArrayInputStream(closingDelimiter()));
+        return new SequenceInputStream(Collections.enumeration(segments));
+    }
+
+    private byte[] partHeader(ByteRange part) {
+        return ("\r\n--" + boundary + "\r\n"
+                + "Content-Type: " + partContentType + "\r\n"
+                + "Content-Range: " + part.toContentRange(totalSize) + "\r\n"
+                + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private byte[] closingDelimiter() {
+        return ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * One backend read covering several parts; opened on first use
+     */
+    private static final class WindowRead {
+        private final Function<ByteRange, InputStream> reader;
+        private final ByteRange window;
+        private InputStream stream;
+        private long position;
+
+        WindowRead(Function<ByteRange, InputStream> reader, ByteRange window) {
+            this.reader = reader;
+            this.window = window;
+            this.position = window.start();
+        }
+
+        InputStream seek(long offset) throws IOException {
+            if (stream == null) {
+                stream = reader.apply(window);
+            }
+            if (offset > position) {
+                stream.skipNBytes(offset - position);
+                position = offset;
+            }
+            return stream;
+        }
+
+        void advance(long bytes) {
+            position += bytes;
+        }
+
+        void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    /**
+     * The bytes of one part, read from its window
+     */
+    private static final class PartSlice extends InputStream {
+        private final WindowRead read;
+        private final ByteRange part;
+        private final boolean lastInWindow;
+        private long remaining;
+
+        PartSlice(WindowRead read, ByteRange part, boolean lastInWindow) {
+            this.read = read;
+            this.part = part;
+            this.lastInWindow = lastInWindow;
+            this.remaining = part.size();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            InputStream stream = read.seek(part.end() - remaining + 1);
+            int n = stream.read(b, off, (int) Math.min(len, remaining));
+            if (n < 0) {
+                throw new IOException("Unexpected end of content at offset " + (part.end() - remaining + 1));
+            }
+            remaining -= n;
+            read.advance(n);
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (lastInWindow) {
+                read.close();
+            }
+        }
+    }
+}
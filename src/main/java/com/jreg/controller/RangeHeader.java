@@ -0,0 +1,102 @@
+package com.jreg.controller;
+
+import com.jreg.model.ByteRange;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Parses HTTP Range request headers (RFC 7233) for byte ranges.
+ */
+final class RangeHeader {
+
+    /**
+     * More ranges than this are treated as a malformed header and the full content is served
+     */
+    static final int MAX_RANGES = 256;
+
+    private RangeHeader() {
+    }
+
+    /**
+     * Resolve a Range header against the representation size.
+     * Supports bytes=start-end, bytes=start- and bytes=-suffix, comma separated.
+     *
+     * @return satisfiable ranges in request order, clamped to the content; an empty list
+     *         if none is satisfiable; or null if the header is malformed or uses another
+     *         unit, in which case it must be ignored
+     */
+    static List<ByteRange> parse(String header, long totalSize) {
+        if (header == null || !header.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>();
+        int specs = 0;
+        for (String element : header.substring(6).split(",")) {
+            String spec = element.trim();
+            if (spec.isEmpty()) {
+                continue;
+            }
+            if (++specs > MAX_RANGES) {
+                return null;
+            }
+
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+
+            try {
+                if (first.isEmpty()) {
+                    // Suffix range: bytes=-10 (last 10 bytes)
+                    long suffix = Long.parseLong(last);
+                    if (suffix < 0) {
+                        return null;
+                    }
+                    if (suffix > 0 && totalSize > 0) {
+                        ranges.add(new ByteRange(Math.max(0, totalSize - suffix), totalSize - 1));
+                    }
+                    continue;
+                }
+
+                long start = Long.parseLong(first);
+                long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                if (start < 0 || end < start) {
+                    return null;
+                }
+                if (start < totalSize) {
+                    ranges.add(new ByteRange(start, Math.min(end, totalSize - 1)));
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return specs == 0 ? null : ranges;
+    }
+
+    /**
+     * Sort ranges and merge those that overlap or are at most {@code maxGap} bytes apart
+     */
+    static List<ByteRange> coalesce(List<ByteRange> ranges, long maxGap) {
+        List<ByteRange> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(ByteRange::start));
+
+        List<ByteRange> merged = new ArrayList<>();
+        for (ByteRange range : sorted) {
+            if (!merged.isEmpty()) {
+                ByteRange previous = merged.get(merged.size() - 1);
+                if (range.start() - previous.end() - 1 <= maxGap) {
+                    merged.set(merged.size() - 1,
+                            new ByteRange(previous.start(), Math.max(previous.end(), range.end())));
+                    continue;
+                }
+            }
+            merged.add(range);
+        }
+        return merged;
+    }
+}
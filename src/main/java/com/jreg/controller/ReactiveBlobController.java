@@ -0,0 +1,288 @@
+package com.jreg.controller;
+
+import com.jreg.exception.BlobNotFoundException;
+import com.jreg.exception.DigestInvalidException;
+import com.jreg.model.Blob;
+import com.jreg.model.ByteRange;
+import com.jreg.model.Digest;
+import com.jreg.service.BlobRedirectService;
+import com.jreg.service.BlobService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * OCI Distribution Spec - Blob operations on the reactive stack.
+ * Local blob bodies are streamed from the async storage backend as the client reads them,
+ * so a download holds no thread and at most a few buffers while it is in flight.
+ */
+@RestController
+@RequestMapping("/v2")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBlobController {
+
+    // Ranges closer than this are sent as one part; roughly the size of a part header
+    private static final long PART_MERGE_GAP = 80;
+
+    private final BlobService blobService;
+    private final BlobRedirectService blobRedirectService;
+    private final long rangeReadGap;
+
+    public ReactiveBlobController(BlobService blobService,
+                                  BlobRedirectService blobRedirectService,
+                                  @Value("${jreg.blob.range-read-gap:64KB}") DataSize rangeReadGap) {
+        this.blobService = blobService;
+        this.blobRedirectService = blobRedirectService;
+        this.rangeReadGap = rangeReadGap.toBytes();
+    }
+
+    /**
+     * Check if a blob exists (OCI end-3)
+     * HEAD /v2/{name}/blobs/{digest}
+     */
+    @RequestMapping(
+            method = RequestMethod.HEAD,
+            path = "/{name}/blobs/{digest}"
+    )
+    public Mono<ResponseEntity<Void>> checkBlobExists(
+            @PathVariable("name") String repository,
+            @PathVariable("digest") String digestStr,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        Digest digest;
+        try {
+            digest = Digest.parse(digestStr);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        if (ContentCaching.isNotModified(ifNoneMatch, digest)) {
+            return notModified(repository, digest);
+        }
+
+        return Mono.fromFuture(blobService.findBlobAsync(repository, digest))
+                .flatMap(local -> local.map(Mono::just)
+                        .orElseGet(() -> ReactiveBodies.blocking(() -> blobService.getBlobMetadata(repository, digest))))
+                .map(blob -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(blob.getSize()))
+                        .header(HttpHeaders.CONTENT_TYPE, blob.getMediaType())
+                        .header("Docker-Content-Digest", digest.toString())
+                        .eTag(ContentCaching.etag(digest))
+                        .cacheControl(ContentCaching.IMMUTABLE)
+                        .lastModified(blob.getUploadedAt())
+                        .<Void>build());
+    }
+
+    /**
+     * Download a blob (OCI end-4)
+     * GET /v2/{name}/blobs/{digest}
+     * Supports HTTP Range requests and redirect mode like the servlet stack.
+     */
+    @GetMapping("/{name}/blobs/{digest}")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadBlob(
+            @PathVariable("name") String repository,
+            @PathVariable("digest") String digestStr,
+            @RequestHeader(value = "Range", required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        Digest digest;
+        try {
+            digest = Digest.parse(digestStr);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        if (ContentCaching.isNotModified(ifNoneMatch, digest)) {
+            return notModified(repository, digest);
+        }
+
+        return Mono.fromFuture(blobService.findBlobAsync(repository, digest)).flatMap(found -> {
+            Blob blob = found.orElse(null);
+            if (blob == null) {
+                return pullThrough(repository, digest);
+            }
+
+            if (blobRedirectService.isEnabled()) {
+                return Mono.just(ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                        .location(blobRedirectService.getDownloadUrl(digest))
+                        .header("Docker-Content-Digest", digest.toString())
+                        .build());
+            }
+
+            // Handle Range requests (RFC 7233) unless If-Range says the client's copy is stale
+            if (rangeHeader != null && ContentCaching.isRangeApplicable(ifRange, digest, blob.getUploadedAt())) {
+                Mono<ResponseEntity<Flux<DataBuffer>>> partial = handleRangeRequest(repository, digest, blob, rangeHeader);
+                if (partial != null) {
+                    return partial;
+                }
+            }
+
+            // Full content download
+            return Mono.fromFuture(blobService.openBlobAsync(repository, blob))
+                    .map(body -> ResponseEntity.ok()
+                            .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(blob.getSize()))
+                            .header(HttpHeaders.CONTENT_TYPE, blob.getMediaType())
+                            .header("Docker-Content-Digest", digest.toString())
+                            .eTag(ContentCaching.etag(digest))
+                            .cacheControl(ContentCaching.IMMUTABLE)
+                            .lastModified(blob.getUploadedAt())
+                            .body(ReactiveBodies.fromStorage(body)));
+        });
+    }
+
+    /**
+     * Serve a blob missing locally from the upstream registry while it is being cached.
+     * The upstream fetch is blocking, so it is read on the bounded elastic scheduler.
+     */
+    private Mono<ResponseEntity<Flux<DataBuffer>>> pullThrough(String repository, Digest digest) {
+        return ReactiveBodies.blocking(() -> blobService.pullBlob(repository, digest)).map(pulled -> {
+            Blob blob = pulled.blob();
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_TYPE, blob.getMediaType())
+                    .header("Docker-Content-Digest", digest.toString())
+                    .eTag(ContentCaching.etag(digest))
+                    .cacheControl(ContentCaching.IMMUTABLE);
+            if (blob.getSize() >= 0) {
+                response.header(HttpHeaders.CONTENT_LENGTH, String.valueOf(blob.getSize()));
+            }
+            return response.body(ReactiveBodies.fromInputStream(pulled::content));
+        });
+    }
+
+    /**
+     * Answer a conditional request whose ETag still matches; only existence is checked,
+     * as for an unconditional HEAD: locally, then in pull-through mode at the upstream
+     */
+    private <T> Mono<ResponseEntity<T>> notModified(String repository, Digest digest) {
+        return Mono.fromFuture(blobService.findBlobAsync(repository, digest))
+                .flatMap(local -> local.map(Mono::just)
+                        .orElseGet(() -> ReactiveBodies.blocking(() -> blobService.getBlobMetadata(repository, digest))))
+                .map(blob -> ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .header("Docker-Content-Digest", digest.toString())
+                        .eTag(ContentCaching.etag(digest))
+                        .cacheControl(ContentCaching.IMMUTABLE)
+                        .<T>build());
+    }
+
+    /**
+     * Handle HTTP Range request for partial content delivery (RFC 7233).
+     * A single range streams from the async backend; several ranges are assembled
+     * as multipart/byteranges from blocking range reads off the event loop.
+     * Returns null when the header is malformed and must be ignored.
+     */
+    private Mono<ResponseEntity<Flux<DataBuffer>>> handleRangeRequest(
+            String repository, Digest digest, Blob blob, String rangeHeader) {
+
+        long totalSize = blob.getSize();
+        List<ByteRange> requested = RangeHeader.parse(rangeHeader, totalSize);
+        if (requested == null) {
+            return null;
+        }
+        if (requested.isEmpty()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header("Content-Range", "bytes */" + totalSize)
+                    .build());
+        }
+
+        List<ByteRange> parts = RangeHeader.coalesce(requested, PART_MERGE_GAP);
+
+        if (parts.size() == 1) {
+            ByteRange range = parts.get(0);
+            return Mono.fromFuture(blobService.openBlobRangeAsync(repository, blob, range))
+                    .map(body -> ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                            .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(range.size()))
+                            .header(HttpHeaders.CONTENT_TYPE, blob.getMediaType())
+                            .header("Content-Range", range.toContentRange(totalSize))
+                            .header("Docker-Content-Digest", digest.toString())
+                            .eTag(ContentCaching.etag(digest))
+                            .cacheControl(ContentCaching.IMMUTABLE)
+                            .lastModified(blob.getUploadedAt())
+                            .body(ReactiveBodies.fromStorage(body)));
+        }
+
+        MultipartByteRanges body = new MultipartByteRanges(parts, blob.getMediaType(), totalSize);
+        return Mono.just(ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(body.getContentLength()))
+                .header(HttpHeaders.CONTENT_TYPE, body.getContentType())
+                .header("Docker-Content-Digest", digest.toString())
+                .eTag(ContentCaching.etag(digest))
+                .cacheControl(ContentCaching.IMMUTABLE)
+                .lastModified(blob.getUploadedAt())
+                .body(ReactiveBodies.fromInputStream(() -> body.open(
+                        window -> blobService.getBlobRange(repository, blob, window), rangeReadGap))));
+    }
+
+    /**
+     * Delete a blob (OCI end-9)
+     * DELETE /v2/{name}/blobs/{digest}
+     *
+     * Returns 202 Accepted whether the blob exists or not (idempotent).
+     */
+    @DeleteMapping("/{name}/blobs/{digest}")
+    public Mono<ResponseEntity<Void>> deleteBlob(
+            @PathVariable("name") String repository,
+            @PathVariable("digest") String digestStr) {
+
+        Digest digest;
+        try {
+            digest = Digest.parse(digestStr);
+        } catch (IllegalArgumentException e) {
+            throw new DigestInvalidException(digestStr);
+        }
+
+        return ReactiveBodies.blocking(() -> {
+            try {
+                blobService.deleteBlob(repository, digest);
+            } catch (BlobNotFoundException e) {
+                // Blob doesn't exist - still return 202 (idempotent)
+            }
+            return ResponseEntity.accepted().<Void>build();
+        });
+    }
+
+    /**
+     * Check if blob exists in source repository for mounting (OCI end-11)
+     */
+    @RequestMapping(
+            method = RequestMethod.HEAD,
+            path = "/{name}/blobs/{digest}",
+            params = "mount"
+    )
+    public Mono<ResponseEntity<Void>> checkBlobForMount(
+            @PathVariable("name") String repository,
+            @PathVariable("digest") String digestStr,
+            @RequestParam("mount") String mountDigest,
+            @RequestParam("from") String fromRepository) {
+
+        Digest mountDigestParsed;
+        try {
+            mountDigestParsed = Digest.parse(mountDigest);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return Mono.fromFuture(blobService.findBlobAsync(fromRepository, mountDigestParsed))
+                .map(Optional::isPresent)
+                .flatMap(exists -> exists
+                        ? ReactiveBodies.blocking(() -> blobService.mountBlob(fromRepository, repository, mountDigestParsed))
+                        : Mono.just(false))
+                .map(mounted -> mounted
+                        ? ResponseEntity.status(HttpStatus.CREATED)
+                                .header(HttpHeaders.LOCATION, "/v2/" + repository + "/blobs/" + mountDigest)
+                                .header("Docker-Content-Digest", mountDigest)
+                                .<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+}
@@ -0,0 +1,65 @@
+package com.jreg.controller;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+
+/**
+ * Adapters between WebFlux bodies, async storage bodies and the blocking services.
+ * Storage streams are passed through without buffering, so demand from the client
+ * socket is what pulls bytes from storage.
+ */
+final class ReactiveBodies {
+
+    // Read size when a blocking InputStream is turned into a body
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private ReactiveBodies() {
+    }
+
+    /**
+     * Response body over a storage stream
+     */
+    static Flux<DataBuffer> fromStorage(Publisher<ByteBuffer> body) {
+        return Flux.from(body).map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    /**
+     * Storage body over a request body. Each buffer is copied out and released at once,
+     * so nothing is retained beyond what storage has requested.
+     */
+    static Flux<ByteBuffer> toStorage(Flux<DataBuffer> body) {
+        return body.map(buffer -> {
+            try {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                return ByteBuffer.wrap(bytes);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        });
+    }
+
+    /**
+     * Response body over a blocking stream, read on the bounded elastic scheduler as it is consumed
+     */
+    static Flux<DataBuffer> fromInputStream(Callable<InputStream> content) {
+        return DataBufferUtils.readInputStream(content, DefaultDataBufferFactory.sharedInstance, READ_BUFFER_SIZE)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Run a blocking service call off the event loop
+     */
+    static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,263 @@
+package com.jreg.controller;
+
+import com.jreg.exception.DigestInvalidException;
+import com.jreg.exception.ManifestInvalidException;
+import com.jreg.exception.ManifestNotFoundException;
+import com.jreg.model.Digest;
+import com.jreg.model.Manifest;
+import com.jreg.service.ManifestService;
+import com.jreg.service.TagService;
+import com.jreg.util.RegexValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OCI Distribution Spec - Manifest operations on the reactive stack.
+ * Tag resolution and manifest reads use the async storage backend; writes and the
+ * upstream fallback call the blocking services off the event loop.
+ */
+@RestController
+@RequestMapping("/v2")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveManifestController {
+
+    private final ManifestService manifestService;
+    private final TagService tagService;
+
+    public ReactiveManifestController(ManifestService manifestService, TagService tagService) {
+        this.manifestService = manifestService;
+        this.tagService = tagService;
+    }
+
+    /**
+     * Push a manifest (OCI end-7)
+     * PUT /v2/{name}/manifests/{reference}
+     * Reference can be a tag or digest
+     */
+    @PutMapping("/{name}/manifests/{reference}")
+    public Mono<ResponseEntity<Void>> pushManifest(
+            @PathVariable("name") String repository,
+            @PathVariable("reference") String reference,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE) String contentType,
+            ServerHttpRequest request) {
+
+        return DataBufferUtils.join(request.getBody())
+                .map(buffer -> {
+                    try {
+                        byte[] manifestBytes = new byte[buffer.readableByteCount()];
+                        buffer.read(manifestBytes);
+                        return manifestBytes;
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(manifestBytes -> ReactiveBodies.blocking(() -> {
+                    // A digest reference names the algorithm the manifest is addressed and verified with
+                    Digest expectedDigest = RegexValidator.isValidDigest(reference) ? Digest.parse(reference) : null;
+                    Manifest manifest = manifestService.storeManifest(repository, manifestBytes, contentType,
+                            expectedDigest);
+
+                    // If reference is a tag, create/update the tag
+                    if (expectedDigest == null) {
+                        tagService.tagManifest(repository, reference, manifest.getDigest());
+                    }
+
+                    // If manifest has a subject, update referrers index
+                    if (manifest.getSubject() != null) {
+                        manifestService.updateReferrersIndex(repository, manifest.getSubject(), manifest);
+                    }
+                    return manifest;
+                }))
+                .map(manifest -> ResponseEntity.status(HttpStatus.CREATED)
+                        .header(HttpHeaders.LOCATION, "/v2/" + repository + "/manifests/" + manifest.getDigest())
+                        .header("Docker-Content-Digest", manifest.getDigest().toString())
+                        .<Void>build())
+                .onErrorMap(e -> !(e instanceof ManifestInvalidException) && !(e instanceof DigestInvalidException),
+                        e -> new ManifestInvalidException("Failed to store manifest: " + e.getMessage()));
+    }
+
+    /**
+     * Pull a manifest (OCI end-3)
+     * GET /v2/{name}/manifests/{reference}
+     */
+    @GetMapping("/{name}/manifests/{reference}")
+    public Mono<ResponseEntity<byte[]>> pullManifest(
+            @PathVariable("name") String repository,
+            @PathVariable("reference") String reference,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        return serveManifest(repository, reference, ifNoneMatch, true);
+    }
+
+    /**
+     * Check if a manifest exists (OCI end-2)
+     * HEAD /v2/{name}/manifests/{reference}
+     */
+    @RequestMapping(
+            method = RequestMethod.HEAD,
+            path = "/{name}/manifests/{reference}"
+    )
+    public Mono<ResponseEntity<byte[]>> checkManifestExists(
+            @PathVariable("name") String repository,
+            @PathVariable("reference") String reference,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        return serveManifest(repository, reference, ifNoneMatch, false);
+    }
+
+    private Mono<ResponseEntity<byte[]>> serveManifest(
+            String repository, String reference, String ifNoneMatch, boolean withBody) {
+
+        boolean byDigest = RegexValidator.isValidDigest(reference);
+        return resolveReference(repository, reference).<ResponseEntity<byte[]>>flatMap(digest -> {
+            if (ContentCaching.isNotModified(ifNoneMatch, digest)) {
+                return notModified(repository, digest, byDigest);
+            }
+            return findManifest(repository, digest).map(manifest -> {
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_TYPE, manifest.getMediaType())
+                        .header("Docker-Content-Digest", manifest.getDigest().toString())
+                        .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(manifest.getSize()))
+                        .eTag(ContentCaching.etag(digest))
+                        .cacheControl(byDigest ? ContentCaching.IMMUTABLE : ContentCaching.REVALIDATE)
+                        .lastModified(manifest.getUploadedAt());
+                return withBody ? response.body(manifest.getContent()) : response.<byte[]>build();
+            });
+        }).onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().<byte[]>build()));
+    }
+
+    /**
+     * Read a manifest held locally, falling back to the pull-through cache on a miss
+     */
+    private Mono<Manifest> findManifest(String repository, Digest digest) {
+        return Mono.fromFuture(manifestService.findManifestAsync(repository, digest))
+                .flatMap(local -> local.map(Mono::just)
+                        .orElseGet(() -> ReactiveBodies.blocking(() -> manifestService.getManifest(repository, digest))));
+    }
+
+    /**
+     * Resolve a manifest reference (digest or tag) to a digest.
+     * Tags unknown locally are resolved against the upstream in pull-through mode.
+     */
+    private Mono<Digest> resolveReference(String repository, String reference) {
+        if (RegexValidator.isValidDigest(reference)) {
+            return Mono.fromCallable(() -> Digest.parse(reference));
+        }
+        return Mono.defer(() -> Mono.fromFuture(tagService.resolveTagAsync(repository, reference)))
+                .onErrorResume(ManifestNotFoundException.class, e -> ReactiveBodies.blocking(
+                        () -> manifestService.resolveUpstreamTag(repository, reference).orElseThrow(() -> e)));
+    }
+
+    /**
+     * Answer a conditional request whose ETag still matches without reading the manifest
+     */
+    private <T> Mono<ResponseEntity<T>> notModified(String repository, Digest digest, boolean byDigest) {
+        Mono<Boolean> exists = byDigest
+                ? ReactiveBodies.blocking(() -> manifestService.manifestExists(repository, digest))
+                : Mono.just(true);
+        return exists.map(found -> {
+            if (!found) {
+                throw new ManifestNotFoundException(repository, digest);
+            }
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header("Docker-Content-Digest", digest.toString())
+                    .eTag(ContentCaching.etag(digest))
+                    .cacheControl(byDigest ? ContentCaching.IMMUTABLE : ContentCaching.REVALIDATE)
+                    .build();
+        });
+    }
+
+    /**
+     * Delete a manifest (OCI end-9)
+     * DELETE /v2/{name}/manifests/{reference}
+     *
+     * Returns 202 Accepted whether the manifest exists or not (idempotent).
+     * DELETE by tag deletes only the tag; DELETE by digest deletes the manifest content.
+     */
+    @DeleteMapping("/{name}/manifests/{reference}")
+    public Mono<ResponseEntity<Void>> deleteManifest(
+            @PathVariable("name") String repository,
+            @PathVariable("reference") String reference) {
+
+        if (!RegexValidator.isValidDigest(reference) && !RegexValidator.isValidTag(reference)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return ReactiveBodies.blocking(() -> {
+            try {
+                if (RegexValidator.isValidDigest(reference)) {
+                    manifestService.deleteManifest(repository, Digest.parse(reference));
+                } else {
+                    tagService.deleteTag(repository, reference);
+                }
+            } catch (Exception e) {
+                // Manifest or tag doesn't exist - still return 202 (idempotent)
+            }
+            return ResponseEntity.accepted().<Void>build();
+        });
+    }
+
+    /**
+     * List tags (OCI end-8a)
+     * GET /v2/{name}/tags/list
+     */
+    @GetMapping("/{name}/tags/list")
+    public Mono<ResponseEntity<Map<String, Object>>> listTags(
+            @PathVariable("name") String repository,
+            @RequestParam(value = "n", required = false) Integer limit,
+            @RequestParam(value = "last", required = false) String last) {
+
+        return ReactiveBodies.blocking(() -> tagService.listTags(repository)).map(allTags -> {
+            List<String> tags = allTags;
+            if (last != null) {
+                int lastIndex = tags.indexOf(last);
+                if (lastIndex >= 0) {
+                    tags = tags.subList(lastIndex + 1, tags.size());
+                }
+            }
+
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (limit != null && limit > 0 && tags.size() > limit) {
+                String lastTag = tags.get(limit - 1);
+                tags = tags.subList(0, limit);
+                builder.header("Link", String.format("</v2/%s/tags/list?n=%d&last=%s>; rel=\"next\"",
+                        repository, limit, lastTag));
+            }
+
+            return builder.body(Map.<String, Object>of("name", repository, "tags", tags));
+        });
+    }
+
+    /**
+     * List referrers (OCI Referrers API)
+     * GET /v2/{name}/referrers/{digest}
+     */
+    @GetMapping("/{name}/referrers/{digest}")
+    public Mono<ResponseEntity<String>> listReferrers(
+            @PathVariable("name") String repository,
+            @PathVariable("digest") String digestStr,
+            @RequestParam(value = "artifactType", required = false) String artifactType) {
+
+        Digest subjectDigest;
+        try {
+            subjectDigest = Digest.parse(digestStr);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return ReactiveBodies.blocking(() -> manifestService.getReferrersIndex(repository, subjectDigest, artifactType))
+                .map(index -> ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_TYPE, "application/vnd.oci.image.index.v1+json")
+                        .body(index.toString()));
+    }
+}
@@ -0,0 +1,285 @@
+package com.jreg.controller;
+
+import com.jreg.exception.BlobUploadInvalidException;
+import com.jreg.exception.DigestInvalidException;
+import com.jreg.model.Blob;
+import com.jreg.model.ByteRange;
+import com.jreg.model.Digest;
+import com.jreg.model.UploadSession;
+import com.jreg.service.BlobService;
+import com.jreg.service.UploadSessionService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * OCI Distribution Spec - Blob upload operations on the reactive stack.
+ * Monolithic sha256 uploads of known length stream straight from the request to storage
+ * with storage checking the digest. Chunked uploads go through the upload session service,
+ * reading the body off the event loop with only a few buffers requested ahead of storage.
+ */
+@RestController
+@RequestMapping("/v2")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUploadController {
+
+    private static final String OUT_OF_ORDER_CHUNKS_HEADER = "Jreg-Out-Of-Order-Chunks";
+    private static final String CHUNK_MAX_LENGTH_HEADER = "Jreg-Chunk-Max-Length";
+
+    // Request body buffers read ahead of a blocking storage write
+    private static final int BODY_PREFETCH = 4;
+
+    private final UploadSessionService uploadSessionService;
+    private final BlobService blobService;
+
+    public ReactiveUploadController(UploadSessionService uploadSessionService, BlobService blobService) {
+        this.uploadSessionService = uploadSessionService;
+        this.blobService = blobService;
+    }
+
+    /**
+     * Initiate a blob upload (OCI end-4a - POST)
+     * POST /v2/{name}/blobs/uploads/
+     */
+    @PostMapping("/{name}/blobs/uploads/")
+    public Mono<ResponseEntity<Void>> initiateUpload(
+            @PathVariable("name") String repository,
+            @RequestParam(value = "digest", required = false) String digestStr,
+            @RequestParam(value = "mount", required = false) String mountDigest,
+            @RequestParam(value = "from", required = false) String fromRepository,
+            ServerHttpRequest request) {
+
+        // Handle cross-repository blob mount; fall through to a regular upload if it fails
+        if (mountDigest != null && fromRepository != null) {
+            Digest digest;
+            try {
+                digest = Digest.parse(mountDigest);
+            } catch (IllegalArgumentException e) {
+                return Mono.just(ResponseEntity.badRequest().build());
+            }
+            return ReactiveBodies.blocking(() -> blobService.mountBlob(fromRepository, repository, digest))
+                    .flatMap(mounted -> mounted
+                            ? Mono.just(ResponseEntity.status(HttpStatus.CREATED)
+                                    .header(HttpHeaders.LOCATION, "/v2/" + repository + "/blobs/" + mountDigest)
+                                    .header("Docker-Content-Digest", mountDigest)
+                                    .<Void>build())
+                            : initiateUpload(repository, digestStr, null, null, request));
+        }
+
+        // Handle monolithic upload (digest provided with POST)
+        if (digestStr != null) {
+            Digest expectedDigest;
+            try {
+                expectedDigest = Digest.parse(digestStr);
+            } catch (IllegalArgumentException e) {
+                throw new BlobUploadInvalidException("Failed to upload blob: " + e.getMessage());
+            }
+            return storeMonolithic(repository, expectedDigest, request)
+                    .map(blob -> ResponseEntity.status(HttpStatus.CREATED)
+                            .header(HttpHeaders.LOCATION, "/v2/" + repository + "/blobs/" + blob.getDigest())
+                            .header("Docker-Content-Digest", blob.getDigest().toString())
+                            .<Void>build())
+                    .onErrorMap(e -> !(e instanceof DigestInvalidException),
+                            e -> new BlobUploadInvalidException("Failed to upload blob: " + e.getMessage()));
+        }
+
+        // Initiate chunked upload
+        return ReactiveBodies.blocking(() -> uploadSessionService.startSession(repository)).map(session -> {
+            String uploadUrl = "/v2/" + repository + "/blobs/uploads/" + session.getSessionId();
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, uploadUrl)
+                    .header("Docker-Upload-UUID", session.getSessionId().toString())
+                    .header("Range", "0-0")
+                    .header("OCI-Chunk-Min-Length", String.valueOf(uploadSessionService.getChunkMinLength()))
+                    .header(CHUNK_MAX_LENGTH_HEADER, String.valueOf(uploadSessionService.getChunkMaxLength()));
+            if (uploadSessionService.isOutOfOrderChunksEnabled()) {
+                response.header(OUT_OF_ORDER_CHUNKS_HEADER, "enabled");
+            }
+            return response.<Void>build();
+        });
+    }
+
+    /**
+     * Store a whole blob sent in one request body. Bodies the async path cannot take
+     * (unknown length, non-sha256 digest, larger than one storage PUT) use the streaming
+     * multipart upload of the servlet stack.
+     */
+    private Mono<Blob> storeMonolithic(String repository, Digest expectedDigest, ServerHttpRequest request) {
+        String contentType = contentType(request);
+        long contentLength = request.getHeaders().getContentLength();
+
+        if (blobService.canStoreAsync(expectedDigest, contentLength)) {
+            return Mono.fromFuture(() -> blobService.storeBlobAsync(repository,
+                    ReactiveBodies.toStorage(request.getBody()), contentLength, expectedDigest, contentType));
+        }
+        return ReactiveBodies.blocking(() -> {
+            try (InputStream content = DataBufferInputStream.subscribe(request.getBody(), BODY_PREFETCH)) {
+                return blobService.storeBlobWithDigest(repository, content, expectedDigest, contentType);
+            }
+        });
+    }
+
+    /**
+     * Upload a chunk (OCI end-4b - PATCH)
+     * PATCH /v2/{name}/blobs/uploads/{uuid}
+     */
+    @PatchMapping("/{name}/blobs/uploads/{uuid}")
+    public Mono<ResponseEntity<Void>> uploadChunk(
+            @PathVariable("name") String repository,
+            @PathVariable("uuid") String uuidStr,
+            @RequestHeader(value = "Content-Range", required = false) String contentRange,
+            ServerHttpRequest request) {
+
+        UUID sessionId;
+        ByteRange range;
+        try {
+            sessionId = UUID.fromString(uuidStr);
+            range = contentRange != null ? ByteRange.parse(contentRange) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return ReactiveBodies.blocking(() -> {
+            // Content-Length is absent (-1) for Transfer-Encoding: chunked bodies
+            long length = range != null ? range.size() : request.getHeaders().getContentLength();
+            long startByte = range != null
+                    ? range.start() : uploadSessionService.getStatus(sessionId).getLastUploadedByte() + 1;
+
+            try (InputStream chunk = DataBufferInputStream.subscribe(request.getBody(), BODY_PREFETCH)) {
+                uploadSessionService.uploadChunk(sessionId, chunk, startByte, length);
+            }
+            return uploadSessionService.getStatus(sessionId);
+        }).map(session -> rangeResponse(ResponseEntity.accepted(), repository, session))
+                .onErrorMap(e -> !(e instanceof IllegalArgumentException),
+                        e -> new BlobUploadInvalidException("Failed to upload chunk: " + e.getMessage()));
+    }
+
+    /**
+     * Complete the upload (OCI end-4c - PUT)
+     * PUT /v2/{name}/blobs/uploads/{uuid}?digest={digest}
+     */
+    @PutMapping("/{name}/blobs/uploads/{uuid}")
+    public Mono<ResponseEntity<Void>> completeUpload(
+            @PathVariable("name") String repository,
+            @PathVariable("uuid") String uuidStr,
+            @RequestParam("digest") String digestStr,
+            ServerHttpRequest request) {
+
+        UUID sessionId;
+        Digest expectedDigest;
+        try {
+            sessionId = UUID.fromString(uuidStr);
+            expectedDigest = Digest.parse(digestStr);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        String contentType = contentType(request);
+        long contentLength = request.getHeaders().getContentLength();
+        boolean chunkedBody = "chunked".equalsIgnoreCase(request.getHeaders().getFirst(HttpHeaders.TRANSFER_ENCODING));
+        boolean hasBody = contentLength > 0 || chunkedBody;
+
+        return ReactiveBodies.blocking(() -> uploadSessionService.getStatus(sessionId)).flatMap(session -> {
+            if (hasBody && session.getTotalUploadedBytes() == 0 && !session.hasChunksInFlight()) {
+                // Whole blob in the PUT body: stream it straight to storage, no chunk objects.
+                // The session stays open until the blob is stored, so a failed PUT can be retried.
+                return storeMonolithic(repository, expectedDigest, request)
+                        .flatMap(blob -> ReactiveBodies.blocking(() -> {
+                            uploadSessionService.releaseSession(sessionId);
+                            return blob;
+                        }));
+            }
+            return ReactiveBodies.blocking(() -> {
+                if (hasBody) {
+                    long startByte = session.getLastUploadedByte() + 1;
+                    try (InputStream chunk = DataBufferInputStream.subscribe(request.getBody(), BODY_PREFETCH)) {
+                        uploadSessionService.uploadChunk(sessionId, chunk, startByte, contentLength);
+                    }
+                }
+                return completeSession(repository, sessionId, expectedDigest, contentType);
+            });
+        }).map(blob -> ResponseEntity.status(HttpStatus.CREATED)
+                .header(HttpHeaders.LOCATION, "/v2/" + repository + "/blobs/" + blob.getDigest())
+                .header("Docker-Content-Digest", blob.getDigest().toString())
+                .<Void>build())
+                .onErrorMap(e -> !(e instanceof DigestInvalidException),
+                        e -> new BlobUploadInvalidException("Failed to complete upload: " + e.getMessage()));
+    }
+
+    /**
+     * Store the data accumulated in an upload session as a blob
+     */
+    private Blob completeSession(String repository, UUID sessionId, Digest expectedDigest, String contentType) {
+        if (uploadSessionService.isSpooled(sessionId)) {
+            return uploadSessionService.completeSpooledSession(sessionId, expectedDigest, contentType);
+        }
+        InputStream assembledContent = uploadSessionService.completeSession(sessionId);
+        return blobService.storeBlobWithDigest(repository, assembledContent, expectedDigest, contentType);
+    }
+
+    /**
+     * Get upload status (OCI end-4d - GET)
+     * GET /v2/{name}/blobs/uploads/{uuid}
+     */
+    @GetMapping("/{name}/blobs/uploads/{uuid}")
+    public Mono<ResponseEntity<Void>> getUploadStatus(
+            @PathVariable("name") String repository,
+            @PathVariable("uuid") String uuidStr) {
+
+        UUID sessionId;
+        try {
+            sessionId = UUID.fromString(uuidStr);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return ReactiveBodies.blocking(() -> uploadSessionService.getStatus(sessionId))
+                .map(session -> rangeResponse(ResponseEntity.noContent(), repository, session));
+    }
+
+    /**
+     * Cancel an upload (OCI end-4e - DELETE)
+     * DELETE /v2/{name}/blobs/uploads/{uuid}
+     */
+    @DeleteMapping("/{name}/blobs/uploads/{uuid}")
+    public Mono<ResponseEntity<Void>> cancelUpload(
+            @PathVariable("name") String repository,
+            @PathVariable("uuid") String uuidStr) {
+
+        UUID sessionId;
+        try {
+            sessionId = UUID.fromString(uuidStr);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return ReactiveBodies.blocking(() -> {
+            uploadSessionService.cancelSession(sessionId);
+            return ResponseEntity.noContent().<Void>build();
+        });
+    }
+
+    private static ResponseEntity<Void> rangeResponse(ResponseEntity.HeadersBuilder<?> builder,
+                                                      String repository, UploadSession session) {
+        long lastByte = session.getLastUploadedByte();
+        return builder
+                .header(HttpHeaders.LOCATION, "/v2/" + repository + "/blobs/uploads/" + session.getSessionId())
+                .header("Docker-Upload-UUID", session.getSessionId().toString())
+                .header("Range", lastByte >= 0 ? "0-" + lastByte : "0-0")
+                .build();
+    }
+
+    private static String contentType(ServerHttpRequest request) {
+        MediaType contentType = request.getHeaders().getContentType();
+        return contentType != null ? contentType.toString() : "application/octet-stream";
+    }
+}
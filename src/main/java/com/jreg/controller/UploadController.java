@@ -10,6 +10,7 @@ import com.jreg.service.BlobService;
 import com.jreg.service.UploadSessionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,9 +26,13 @@ import java.util.UUID;
  */
 @RestController
 @RequestMapping("/v2")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UploadController {
     
     private static final Logger log = LoggerFactory.getLogger(UploadController.class);
+
+    private static final String OUT_OF_ORDER_CHUNKS_HEADER = "Jreg-Out-Of-Order-Chunks";
+    private static final String CHUNK_MAX_LENGTH_HEADER = "Jreg-Chunk-Max-Length";
     
     private final UploadSessionService uploadSessionService;
     private final BlobService blobService;
@@ -99,11 +104,18 @@ public class UploadController {
         UploadSession session = uploadSessionService.startSession(repository);
         String uploadUrl = "/v2/" + repository + "/blobs/uploads/" + session.getSessionId();
         
-        return ResponseEntity.accepted()
+        ResponseEntity.BodyBuilder response = ResponseEntity.accepted()
                 .header(HttpHeaders.LOCATION, uploadUrl)
                 .header("Docker-Upload-UUID", session.getSessionId().toString())
                 .header("Range", "0-0")
-                .build();
+                // Chunk sizes aligned to the backend's efficient part size; smaller chunks get coalesced
+                .header("OCI-Chunk-Min-Length", String.valueOf(uploadSessionService.getChunkMinLength()))
+                .header(CHUNK_MAX_LENGTH_HEADER, String.valueOf(uploadSessionService.getChunkMaxLength()));
+        if (uploadSessionService.isOutOfOrderChunksEnabled()) {
+            // Lets clients that understand the extension PATCH disjoint ranges in parallel
+            response.header(OUT_OF_ORDER_CHUNKS_HEADER, "enabled");
+        }
+        return response.build();
     }
 
     /**
@@ -115,24 +127,26 @@ public class UploadController {
             @PathVariable("name") String repository,
             @PathVariable("uuid") String uuidStr,
             @RequestHeader(value = "Content-Range", required = false) String contentRange,
-            @RequestHeader(value = "Content-Length") long contentLength,
             HttpServletRequest request) {
         
         try {
             UUID sessionId = UUID.fromString(uuidStr);
             InputStream chunk = request.getInputStream();
             
-            // Parse Content-Range header (e.g., "0-1023")
-            long startByte = 0;
-            long endByte = contentLength - 1;
+            // Content-Length is absent (-1) for Transfer-Encoding: chunked bodies
+            long length = request.getContentLengthLong();
+            long startByte;
             
+            // Parse Content-Range header (e.g., "0-1023"); without it the chunk is appended
             if (contentRange != null) {
                 ByteRange range = ByteRange.parse(contentRange);
                 startByte = range.start();
-                endByte = range.end();
+                length = range.size();
+            } else {
+                startByte = uploadSessionService.getStatus(sessionId).getLastUploadedByte() + 1;
             }
             
-            uploadSessionService.uploadChunk(sessionId, chunk, startByte, endByte);
+            uploadSessionService.uploadChunk(sessionId, chunk, startByte, length);
             
             UploadSession session = uploadSessionService.getStatus(sessionId);
             String uploadUrl = "/v2/" + repository + "/blobs/uploads/" + sessionId;
@@ -141,7 +155,7 @@ public class UploadController {
             return ResponseEntity.accepted()
                     .header(HttpHeaders.LOCATION, uploadUrl)
                     .header("Docker-Upload-UUID", sessionId.toString())
-                    .header("Range", "0-" + lastByte)
+                    .header("Range", lastByte >= 0 ? "0-" + lastByte : "0-0")
                     .build();
                     
         } catch (IllegalArgumentException e) {
@@ -166,24 +180,30 @@ public class UploadController {
             UUID sessionId = UUID.fromString(uuidStr);
             Digest expectedDigest = Digest.parse(digestStr);
             
-            // Check if there's a final chunk in the request body
-            long contentLength = request.getContentLengthLong();
-            if (contentLength > 0) {
-                InputStream finalChunk = request.getInputStream();
-                UploadSession session = uploadSessionService.getStatus(sessionId);
-                long startByte = session.getLastUploadedByte() + 1;
-                long endByte = startByte + contentLength - 1;
-                uploadSessionService.uploadChunk(sessionId, finalChunk, startByte, endByte);
-            }
-            
-            // Assemble chunks and store as blob
-            InputStream assembledContent = uploadSessionService.completeSession(sessionId);
             String contentType = request.getContentType();
             if (contentType == null) {
                 contentType = "application/octet-stream";
             }
             
-            Blob blob = blobService.storeBlobWithDigest(repository, assembledContent, expectedDigest, contentType);
+            // Check if there's a final chunk in the request body
+            long contentLength = request.getContentLengthLong();
+            boolean chunkedBody = "chunked".equalsIgnoreCase(request.getHeader(HttpHeaders.TRANSFER_ENCODING));
+            boolean hasBody = contentLength > 0 || chunkedBody;
+            UploadSession session = uploadSessionService.getStatus(sessionId);
+            
+            Blob blob;
+            if (hasBody && session.getTotalUploadedBytes() == 0 && !session.hasChunksInFlight()) {
+                // Whole blob in the PUT body: stream it straight to storage, no chunk objects.
+                // The session stays open until the blob is stored, so a failed PUT can be retried.
+                blob = blobService.storeBlobWithDigest(repository, request.getInputStream(), expectedDigest, contentType);
+                uploadSessionService.releaseSession(sessionId);
+            } else if (hasBody) {
+                long startByte = session.getLastUploadedByte() + 1;
+                uploadSessionService.uploadChunk(sessionId, request.getInputStream(), startByte, contentLength);
+                blob = completeSession(repository, sessionId, expectedDigest, contentType);
+            } else {
+                blob = completeSession(repository, sessionId, expectedDigest, contentType);
+            }
             
             return ResponseEntity.status(HttpStatus.CREATED)
                     .header(HttpHeaders.LOCATION, "/v2/" + repository + "/blobs/" + blob.getDigest())
@@ -200,6 +220,19 @@ public class UploadController {
         }
     }
 
+    /**
+     * Store the data accumulated in an upload session as a blob
+     */
+    private Blob completeSession(String repository, UUID sessionId, Digest expectedDigest, String contentType) {
+        if (uploadSessionService.isSpooled(sessionId)) {
+            // Spooled chunks are already hashed locally; upload the file once
+            return uploadSessionService.completeSpooledSession(sessionId, expectedDigest, contentType);
+        }
+        // Assemble chunks and store as blob
+        InputStream assembledContent = uploadSessionService.completeSession(sessionId);
+        return blobService.storeBlobWithDigest(repository, assembledContent, expectedDigest, contentType);
+    }
+
     /**
      * Get upload status (OCI end-4d - GET)
      * GET /v2/{name}/blobs/uploads/{uuid}
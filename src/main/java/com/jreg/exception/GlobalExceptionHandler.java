@@ -3,6 +3,7 @@ package com.jreg.exception;
 import com.jreg.model.OciError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -19,6 +20,7 @@ import java.util.regex.Pattern;
  * Extracts contextual information (repository, digest, tag) for better debugging.
  */
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler {
     
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
@@ -86,7 +88,7 @@ public class GlobalExceptionHandler {
     /**
      * Extract contextual information from exception message and request URI
      */
-    private Map<String, Object> extractContextFromMessage(String message, String uri) {
+    static Map<String, Object> extractContextFromMessage(String message, String uri) {
         Map<String, Object> detail = new HashMap<>();
         
         if (message != null) {
@@ -0,0 +1,61 @@
+package com.jreg.exception;
+
+import com.jreg.model.OciError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.Map;
+
+/**
+ * Maps exceptions to OCI error responses on the reactive stack,
+ * with the same codes and context details as {@link GlobalExceptionHandler}.
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveExceptionHandler.class);
+
+    @ExceptionHandler(OciException.class)
+    public ResponseEntity<Map<String, Object>> handleOciException(OciException ex, ServerWebExchange exchange) {
+        String requestUri = exchange.getRequest().getPath().value();
+        logger.warn("OCI exception: code={}, message={}, uri={}",
+                    ex.getErrorCode(), ex.getMessage(), requestUri);
+
+        Map<String, Object> detail = GlobalExceptionHandler.extractContextFromMessage(ex.getMessage(), requestUri);
+
+        return ResponseEntity
+                .status(ex.getHttpStatus())
+                .body(OciError.singleError(ex.getErrorCode(), ex.getMessage(), detail.isEmpty() ? null : detail));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgument(IllegalArgumentException ex,
+                                                                     ServerWebExchange exchange) {
+        String requestUri = exchange.getRequest().getPath().value();
+        logger.warn("Invalid argument: {}, uri={}", ex.getMessage(), requestUri);
+
+        Map<String, Object> detail = GlobalExceptionHandler.extractContextFromMessage(ex.getMessage(), requestUri);
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(OciError.singleError("INVALID_PARAMETER", ex.getMessage(), detail.isEmpty() ? null : detail));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, Object>> handleGeneralException(Exception ex, ServerWebExchange exchange) {
+        String requestUri = exchange.getRequest().getPath().value();
+        logger.error("Unexpected error: uri={}", requestUri, ex);
+
+        return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(OciError.singleError("UNKNOWN", "An unexpected error occurred: " + ex.getMessage(),
+                        Map.of("uri", requestUri)));
+    }
+}
@@ -0,0 +1,140 @@
+package com.jreg.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Set of byte positions stored as disjoint, coalesced inclusive intervals.
+ * Used to track which parts of an upload have arrived when chunks may come out of order.
+ * Not thread-safe; callers synchronize externally.
+ */
+public class ByteRangeSet {
+
+    // start -> end (inclusive); intervals never overlap or touch
+    private final TreeMap<Long, Long> intervals = new TreeMap<>();
+
+    /**
+     * Add the interval [start, end], merging with overlapping or adjacent intervals
+     */
+    public void add(long start, long end) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid byte range: start=" + start + ", end=" + end);
+        }
+        long newStart = start;
+        long newEnd = end;
+
+        Map.Entry<Long, Long> floor = intervals.floorEntry(start);
+        if (floor != null && floor.getValue() >= start - 1) {
+            newStart = floor.getKey();
+            newEnd = Math.max(newEnd, floor.getValue());
+            intervals.remove(floor.getKey());
+        }
+
+        long mergeLimit = newEnd == Long.MAX_VALUE ? Long.MAX_VALUE : newEnd + 1;
+        Map.Entry<Long, Long> next = intervals.ceilingEntry(newStart);
+        while (next != null && next.getKey() <= mergeLimit) {
+            newEnd = Math.max(newEnd, next.getValue());
+            intervals.remove(next.getKey());
+            mergeLimit = newEnd == Long.MAX_VALUE ? Long.MAX_VALUE : newEnd + 1;
+            next = intervals.ceilingEntry(newStart);
+        }
+
+        intervals.put(newStart, newEnd);
+    }
+
+    /**
+     * Remove the interval [start, end], splitting intervals that straddle it
+     */
+    public void remove(long start, long end) {
+        Map.Entry<Long, Long> floor = intervals.floorEntry(start);
+        if (floor != null && floor.getValue() >= start) {
+            intervals.remove(floor.getKey());
+            if (floor.getKey() < start) {
+                intervals.put(floor.getKey(), start - 1);
+            }
+            if (floor.getValue() > end) {
+                intervals.put(end + 1, floor.getValue());
+            }
+        }
+
+        Map.Entry<Long, Long> next = intervals.ceilingEntry(start);
+        while (next != null && next.getKey() <= end) {
+            intervals.remove(next.getKey());
+            if (next.getValue() > end) {
+                intervals.put(end + 1, next.getValue());
+            }
+            next = intervals.ceilingEntry(start);
+        }
+    }
+
+    /**
+     * Check if any byte in [start, end] is already in the set
+     */
+    public boolean overlaps(long start, long end) {
+        Map.Entry<Long, Long> floor = intervals.floorEntry(end);
+        return floor != null && floor.getValue() >= start;
+    }
+
+    /**
+     * Last byte of the run that starts at offset 0, or -1 if byte 0 is missing
+     */
+    public long contiguousEnd() {
+        Long end = intervals.get(0L);
+        return end != null ? end : -1;
+    }
+
+    /**
+     * Whether the set is a single run starting at offset 0 (or empty)
+     */
+    public boolean isContiguous() {
+        return intervals.isEmpty() || (intervals.size() == 1 && intervals.containsKey(0L));
+    }
+
+    /**
+     * Missing intervals between offset 0 and the highest byte in the set
+     */
+    public List<ByteRange> gaps() {
+        List<ByteRange> gaps = new ArrayList<>();
+        long expected = 0;
+        for (Map.Entry<Long, Long> interval : intervals.entrySet()) {
+            if (interval.getKey() > expected) {
+                gaps.add(new ByteRange(expected, interval.getKey() - 1));
+            }
+            expected = interval.getValue() + 1;
+        }
+        return gaps;
+    }
+
+    /**
+     * Total number of bytes in the set
+     */
+    public long size() {
+        long total = 0;
+        for (Map.Entry<Long, Long> interval : intervals.entrySet()) {
+            total += interval.getValue() - interval.getKey() + 1;
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return intervals.isEmpty();
+    }
+
+    public void clear() {
+        intervals.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (Map.Entry<Long, Long> interval : intervals.entrySet()) {
+            if (result.length() > 1) {
+                result.append(", ");
+            }
+            result.append(interval.getKey()).append('-').append(interval.getValue());
+        }
+        return result.append(']').toString();
+    }
+}
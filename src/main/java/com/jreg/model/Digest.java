@@ -1,33 +1,158 @@
 package com.jreg.model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HexFormat;
+
 /**
  * Represents a content identifier using cryptographic hash.
  * Format: algorithm:hex (e.g., sha256:abc123...)
+ * <p>
+ * The hash is held as its 32 or 64 raw bytes, which also identify the algorithm, and
+ * the hex form is rendered on demand. A sha256 digest takes about 72 bytes of heap
+ * instead of the ~150 of the two strings it is parsed from, so digests are cheap to
+ * keep as map keys and in indexes.
  */
-public record Digest(String algorithm, String hex) {
-    
-    public Digest {
-        if (algorithm == null || (!algorithm.equals("sha256") && !algorithm.equals("sha512"))) {
-            throw new IllegalArgumentException("Algorithm must be sha256 or sha512");
+public final class Digest implements Comparable<Digest> {
+
+    private static final int SHA256_LENGTH = 32;
+    private static final int SHA512_LENGTH = 64;
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final byte[] bytes;
+    // The leading bytes of a cryptographic hash are already uniformly distributed
+    private final int hash;
+
+    private Digest(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = (int) (long) LONGS.get(bytes, 0);
+    }
+
+    public Digest(String algorithm, String hex) {
+        this(decode(algorithm, hex, 0, hex == null ? 0 : hex.length()));
+    }
+
+    /**
+     * A digest from raw hash bytes, as returned by {@code MessageDigest.digest()}
+     */
+    public static Digest of(String algorithm, byte[] hash) {
+        if (hash == null || hash.length != length(algorithm)) {
+            throw new IllegalArgumentException("Invalid " + algorithm + " digest length");
         }
-        if (hex == null || !hex.matches("[a-f0-9]{64,128}")) {
-            throw new IllegalArgumentException("Invalid hex digest format");
+        return new Digest(hash.clone());
+    }
+
+    /**
+     * Parse a digest string in format "algorithm:hex"
+     */
+    public static Digest parse(String digestString) {
+        int colon = digestString == null ? -1 : digestString.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Invalid digest format. Expected: algorithm:hex");
         }
+        String algorithm = digestString.startsWith("sha256:") ? "sha256"
+                : digestString.startsWith("sha512:") ? "sha512" : digestString.substring(0, colon);
+        return new Digest(decode(algorithm, digestString, colon + 1, digestString.length()));
+    }
+
+    public String algorithm() {
+        return bytes.length == SHA256_LENGTH ? "sha256" : "sha512";
     }
-    
+
+    /**
+     * Lowercase hex of the hash, rendered on each call
+     */
+    public String hex() {
+        return HEX.formatHex(bytes);
+    }
+
+    /**
+     * A copy of the raw hash bytes
+     */
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * The big-endian 64-bit word at {@code index} of the hash (0-3 for sha256, 0-7 for
+     * sha512). Every word is uniformly distributed, so they serve directly as independent
+     * hashes, e.g. for Bloom filters.
+     */
+    public long word(int index) {
+        return (long) LONGS.get(bytes, index * Long.BYTES);
+    }
+
+    /**
+     * Orders sha256 before sha512, then by unsigned hash bytes
+     */
+    @Override
+    public int compareTo(Digest other) {
+        if (bytes.length != other.bytes.length) {
+            return Integer.compare(bytes.length, other.bytes.length);
+        }
+        return Arrays.compareUnsigned(bytes, other.bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Digest other && hash == other.hash && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     @Override
     public String toString() {
-        return algorithm + ":" + hex;
+        return algorithm() + ":" + hex();
+    }
+
+    private static int length(String algorithm) {
+        if ("sha256".equals(algorithm)) {
+            return SHA256_LENGTH;
+        }
+        if ("sha512".equals(algorithm)) {
+            return SHA512_LENGTH;
+        }
+        throw new IllegalArgumentException("Algorithm must be sha256 or sha512");
     }
-    
+
     /**
-     * Parse a digest string in format "algorithm:hex"
+     * Decode {@code [a-f0-9]} hex of exactly the algorithm's length, without a regex
      */
-    public static Digest parse(String digestString) {
-        if (digestString == null || !digestString.contains(":")) {
-            throw new IllegalArgumentException("Invalid digest format. Expected: algorithm:hex");
+    private static byte[] decode(String algorithm, String s, int from, int to) {
+        int length = length(algorithm);
+        if (s == null || to - from != length * 2) {
+            throw new IllegalArgumentException("Invalid hex digest format");
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            int high = nibble(s.charAt(from + 2 * i));
+            int low = nibble(s.charAt(from + 2 * i + 1));
+            if ((high | low) < 0) {
+                throw new IllegalArgumentException("Invalid hex digest format");
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    private static int nibble(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
         }
-        String[] parts = digestString.split(":", 2);
-        return new Digest(parts[0], parts[1]);
+        return -1;
     }
 }
@@ -1,5 +1,8 @@
 package com.jreg.model;
 
+import com.jreg.util.MultiDigest;
+
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -17,6 +20,11 @@ public class UploadSession {
     private Instant lastActivityAt;
     private String contentType;
     private String s3UploadId; // For S3 multipart upload
+    private Path spoolFile; // Local spool file when disk spooling is enabled
+    private MultiDigest spoolDigest; // Running digests over spooled bytes
+    private volatile long digestedBytes; // Length of the prefix already fed into spoolDigest
+    private final ByteRangeSet receivedRanges = new ByteRangeSet();
+    private final ByteRangeSet inFlightRanges = new ByteRangeSet();
 
     public UploadSession() {
         this.uploadedRanges = new ArrayList<>();
@@ -50,15 +58,62 @@ public class UploadSession {
         return uploadedRanges;
     }
 
-    public void setUploadedRanges(List<ByteRange> uploadedRanges) {
+    public synchronized void setUploadedRanges(List<ByteRange> uploadedRanges) {
         this.uploadedRanges = uploadedRanges;
+        this.receivedRanges.clear();
+        uploadedRanges.forEach(range -> receivedRanges.add(range.start(), range.end()));
+    }
+
+    /**
+     * Record bytes that have arrived but are not yet stored as a chunk of their own
+     */
+    public synchronized void addReceivedRange(ByteRange range) {
+        this.receivedRanges.add(range.start(), range.end());
+        this.lastActivityAt = Instant.now();
     }
 
-    public void addUploadedRange(ByteRange range) {
+    /**
+     * Record a range stored as a chunk object (or spooled); it also counts as received
+     */
+    public synchronized void addUploadedRange(ByteRange range) {
         this.uploadedRanges.add(range);
+        this.receivedRanges.add(range.start(), range.end());
         this.lastActivityAt = Instant.now();
     }
 
+    /**
+     * Claim [start, end] for a chunk that is about to be written.
+     * Fails if any of it has already arrived or is being written by another request.
+     */
+    public synchronized boolean reserveRange(long start, long end) {
+        if (receivedRanges.overlaps(start, end) || inFlightRanges.overlaps(start, end)) {
+            return false;
+        }
+        inFlightRanges.add(start, end);
+        return true;
+    }
+
+    /**
+     * Release a claim made with {@link #reserveRange(long, long)}
+     */
+    public synchronized void releaseRange(long start, long end) {
+        inFlightRanges.remove(start, end);
+    }
+
+    /**
+     * Check if any chunk is still being written
+     */
+    public synchronized boolean hasChunksInFlight() {
+        return !inFlightRanges.isEmpty();
+    }
+
+    /**
+     * Missing byte ranges between offset 0 and the highest byte received
+     */
+    public synchronized List<ByteRange> getMissingRanges() {
+        return receivedRanges.gaps();
+    }
+
     public Long getTotalSize() {
         return totalSize;
     }
@@ -99,22 +154,48 @@ public class UploadSession {
         this.s3UploadId = s3UploadId;
     }
 
+    public Path getSpoolFile() {
+        return spoolFile;
+    }
+
+    public void setSpoolFile(Path spoolFile) {
+        this.spoolFile = spoolFile;
+    }
+
+    public MultiDigest getSpoolDigest() {
+        return spoolDigest;
+    }
+
+    public void setSpoolDigest(MultiDigest spoolDigest) {
+        this.spoolDigest = spoolDigest;
+    }
+
+    public long getDigestedBytes() {
+        return digestedBytes;
+    }
+
+    public void setDigestedBytes(long digestedBytes) {
+        this.digestedBytes = digestedBytes;
+    }
+
     /**
-     * Get the last uploaded byte position
+     * Check if chunks are spooled to local disk instead of storage
      */
-    public long getLastUploadedByte() {
-        if (uploadedRanges.isEmpty()) {
-            return -1;
-        }
-        return uploadedRanges.get(uploadedRanges.size() - 1).end();
+    public boolean isSpooled() {
+        return spoolFile != null;
+    }
+
+    /**
+     * Get the last byte of the contiguous data received from offset 0
+     */
+    public synchronized long getLastUploadedByte() {
+        return receivedRanges.contiguousEnd();
     }
 
     /**
      * Get total uploaded bytes
      */
-    public long getTotalUploadedBytes() {
-        return uploadedRanges.stream()
-                .mapToLong(ByteRange::size)
-                .sum();
+    public synchronized long getTotalUploadedBytes() {
+        return receivedRanges.size();
     }
 }
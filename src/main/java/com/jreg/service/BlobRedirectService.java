@@ -0,0 +1,91 @@
+package com.jreg.service;
+
+import com.jreg.model.Digest;
+import com.jreg.storage.BlobUrlSigner;
+import com.jreg.storage.BlobUrlSigner.PresignedUrl;
+import com.jreg.util.S3KeyGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redirects blob downloads to presigned storage URLs so blob bytes bypass the registry.
+ * Signed URLs are cached per digest and re-signed shortly before they expire.
+ */
+@Service
+public class BlobRedirectService {
+    private static final Logger logger = LoggerFactory.getLogger(BlobRedirectService.class);
+    private static final int MAX_CACHED_URLS = 10_000;
+
+    private final BlobUrlSigner signer;
+    private final boolean enabled;
+    private final Duration urlTtl;
+    private final Duration refreshBeforeExpiry;
+    private final Map<Digest, PresignedUrl> cache = new ConcurrentHashMap<>();
+    private final Counter signedCounter;
+    private final Counter redirectCounter;
+
+    public BlobRedirectService(BlobUrlSigner signer,
+                               @Value("${jreg.blob.redirect.enabled:false}") boolean enabled,
+                               @Value("${jreg.blob.redirect.url-ttl:5m}") Duration urlTtl,
+                               @Value("${jreg.blob.redirect.refresh-before-expiry:1m}") Duration refreshBeforeExpiry,
+                               MeterRegistry meterRegistry) {
+        this.signer = signer;
+        this.enabled = enabled;
+        this.urlTtl = urlTtl;
+        this.refreshBeforeExpiry = refreshBeforeExpiry;
+        this.signedCounter = Counter.builder("jreg.blob.redirect.signed")
+                .description("Presigned blob URLs issued by the storage signer")
+                .register(meterRegistry);
+        this.redirectCounter = Counter.builder("jreg.blob.redirect.requests")
+                .description("Blob downloads answered with a redirect to storage")
+                .register(meterRegistry);
+        if (enabled) {
+            logger.info("Redirecting blob downloads to presigned storage URLs valid for {}", urlTtl);
+        }
+    }
+
+    /**
+     * Whether blob downloads are redirected to storage
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get a presigned download URL for a blob, reusing a cached one while it has
+     * more than the refresh margin left
+     */
+    public URI getDownloadUrl(Digest digest) {
+        Instant refreshAfter = Instant.now().plus(refreshBeforeExpiry);
+        PresignedUrl url = cache.compute(digest, (key, cached) ->
+                cached != null && cached.expiresAt().isAfter(refreshAfter) ? cached : sign(key));
+        redirectCounter.increment();
+        if (cache.size() > MAX_CACHED_URLS) {
+            evictExpiring(refreshAfter);
+        }
+        return url.url();
+    }
+
+    private PresignedUrl sign(Digest digest) {
+        signedCounter.increment();
+        return signer.presignGet(S3KeyGenerator.blobKey(digest), urlTtl);
+    }
+
+    private void evictExpiring(Instant refreshAfter) {
+        cache.values().removeIf(url -> !url.expiresAt().isAfter(refreshAfter));
+        if (cache.size() > MAX_CACHED_URLS) {
+            // Everything is still fresh; drop it all rather than grow without bound
+            cache.clear();
+        }
+    }
+}
@@ -3,18 +3,31 @@ package com.jreg.service;
 import com.jreg.exception.BlobNotFoundException;
 import com.jreg.exception.DigestInvalidException;
 import com.jreg.model.Blob;
+import com.jreg.model.ByteRange;
 import com.jreg.model.Digest;
+import com.jreg.service.PullThroughCache.PulledBlob;
+import com.jreg.storage.AsyncStorageBackend;
+import com.jreg.storage.BlockCache;
+import com.jreg.storage.DownloadSpool;
+import com.jreg.storage.ParallelPartUploader;
 import com.jreg.storage.StorageBackend;
-import com.jreg.util.DigestCalculator;
+import com.jreg.storage.StorageBackend.ObjectInfo;
+import com.jreg.util.DigestEngine;
+import com.jreg.util.EventLog;
 import com.jreg.util.S3KeyGenerator;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Manages blob storage operations with content-addressable storage.
@@ -22,17 +35,47 @@ import java.io.InputStream;
 @Service
 public class BlobService {
     private static final Logger logger = LoggerFactory.getLogger(BlobService.class);
+    private static final EventLog BLOB_METADATA = EventLog.debug(logger, "blob-metadata",
+            "Retrieved blob metadata", "repository", "digest", "size");
+    private static final EventLog BLOB_RANGE = EventLog.debug(logger, "blob-range",
+            "Reading blob range", "repository", "digest", "range");
+    private static final EventLog BLOB_DOWNLOAD = EventLog.info(logger, "blob-download",
+            "Downloading blob", "repository", "digest");
+    private static final EventLog BLOB_STORED = EventLog.info(logger, "blob-upload",
+            "Stored blob", "repository", "digest", "size");
+    private static final EventLog BLOB_STORED_VERIFIED = EventLog.info(logger, "blob-upload",
+            "Stored blob with digest verification", "repository", "digest", "size");
+    private static final EventLog BLOB_STORED_SPOOLED = EventLog.info(logger, "blob-upload",
+            "Stored spooled blob", "repository", "digest", "size");
+    private static final EventLog BLOB_DELETED = EventLog.info(logger, "blob-delete",
+            "Deleted blob", "repository", "digest");
     
     private final StorageBackend storage;
+    // Only created on the reactive stack
+    private final AsyncStorageBackend asyncStorage;
     private final ValidationService validationService;
+    private final ParallelPartUploader partUploader;
+    private final BlockCache blockCache;
+    private final DownloadSpool downloadSpool;
+    private final PullThroughCache pullThroughCache;
     private final Counter blobUploadCounter;
     private final Counter blobDownloadCounter;
 
     public BlobService(StorageBackend storage, 
+                      Optional<AsyncStorageBackend> asyncStorage,
                       ValidationService validationService,
+                      ParallelPartUploader partUploader,
+                      BlockCache blockCache,
+                      DownloadSpool downloadSpool,
+                      PullThroughCache pullThroughCache,
                       MeterRegistry meterRegistry) {
         this.storage = storage;
+        this.asyncStorage = asyncStorage.orElse(null);
         this.validationService = validationService;
+        this.partUploader = partUploader;
+        this.blockCache = blockCache;
+        this.downloadSpool = downloadSpool;
+        this.pullThroughCache = pullThroughCache;
         this.blobUploadCounter = Counter.builder("blob_uploads_total")
                 .description("Total number of blob uploads")
                 .register(meterRegistry);
@@ -51,25 +94,127 @@ public class BlobService {
     }
 
     /**
-     * Get blob metadata without content
+     * Get blob metadata without content, using a single storage HEAD request.
+     * In pull-through mode a local miss is answered from the upstream.
      */
     public Blob getBlobMetadata(String repository, Digest digest) {
+        return findBlob(repository, digest)
+                .or(() -> pullThroughCache.isEnabled()
+                        ? pullThroughCache.headBlob(repository, digest) : Optional.empty())
+                .orElseThrow(() -> new BlobNotFoundException(repository, digest));
+    }
+
+    /**
+     * Get metadata of a blob held locally, using a single storage HEAD request
+     */
+    public Optional<Blob> findBlob(String repository, Digest digest) {
         validationService.validateRepositoryName(repository);
         String key = S3KeyGenerator.blobKey(digest);
         
-        if (!storage.objectExists(key)) {
+        return storage.headObject(key).map(info -> toBlob(repository, digest, key, info));
+    }
+
+    /**
+     * Non-blocking {@link #findBlob}: the HEAD request is in flight when this returns,
+     * so callers can look up many blobs at once without a thread per lookup
+     */
+    public CompletableFuture<Optional<Blob>> findBlobAsync(String repository, Digest digest) {
+        validationService.validateRepositoryName(repository);
+        String key = S3KeyGenerator.blobKey(digest);
+        return asyncStorage.headObject(key).thenApply(info -> info.map(i -> toBlob(repository, digest, key, i)));
+    }
+
+    private Blob toBlob(String repository, Digest digest, String key, ObjectInfo info) {
+        long size = info.size();
+        String contentType = info.contentType() != null ? info.contentType() : "application/octet-stream";
+
+        BLOB_METADATA.log(repository, digest, size);
+
+        Blob blob = new Blob(digest, size, contentType, key);
+        if (info.lastModified() != null) {
+            blob.setUploadedAt(info.lastModified());
+        }
+        return blob;
+    }
+
+    /**
+     * Fetch a blob that is missing locally from the upstream registry, storing it
+     * while the returned stream is read. Concurrent pulls of one digest share a fetch.
+     */
+    public PulledBlob pullBlob(String repository, Digest digest) {
+        validationService.validateRepositoryName(repository);
+        if (!pullThroughCache.isEnabled()) {
             throw new BlobNotFoundException(repository, digest);
         }
+        PulledBlob pulled = pullThroughCache.openBlob(repository, digest)
+                .orElseThrow(() -> new BlobNotFoundException(repository, digest));
+        blobDownloadCounter.increment();
+        return pulled;
+    }
 
-        long size = storage.getObjectSize(key);
-        String contentType = storage.getObjectMetadata(key).getOrDefault("Content-Type", "application/octet-stream");
+    /**
+     * Get a byte range of blob content; the caller has already looked up the blob.
+     * Small ranges are served through the block cache when it is enabled.
+     */
+    public InputStream getBlobRange(String repository, Blob blob, ByteRange range) {
+        validationService.validateRepositoryName(repository);
+        String key = S3KeyGenerator.blobKey(blob.getDigest());
 
-        MDC.put("repository", repository);
-        MDC.put("digest", digest.toString());
-        logger.debug("Retrieved blob metadata: {} bytes", size);
-        MDC.clear();
+        BLOB_RANGE.log(repository, blob.getDigest(), range);
 
-        return new Blob(digest, size, contentType, key);
+        if (blockCache.isCacheable(range)) {
+            return blockCache.read(key, blob.getSize(), range);
+        }
+        return storage.getObjectRange(key, "bytes=" + range);
+    }
+
+    /**
+     * Get the content stream of a blob whose metadata was just looked up.
+     * Skips the existence check and lets storage parallelize large reads.
+     * Large blobs may be served from a local download spool so the storage
+     * connection is not held for as long as the client takes.
+     */
+    public InputStream getBlobContent(String repository, Blob blob) {
+        validationService.validateRepositoryName(repository);
+        String key = S3KeyGenerator.blobKey(blob.getDigest());
+
+        blobDownloadCounter.increment();
+
+        BLOB_DOWNLOAD.log(repository, blob.getDigest());
+
+        return downloadSpool.open(key, blob.getSize(), () -> storage.getObject(key, blob.getSize()))
+                .orElseGet(() -> storage.getObject(key, blob.getSize()));
+    }
+
+    /**
+     * Non-blocking {@link #getBlobContent(String, Blob)}: the body is a stream of buffers
+     * that storage produces only as fast as the subscriber requests them
+     */
+    public CompletableFuture<Publisher<ByteBuffer>> openBlobAsync(String repository, Blob blob) {
+        validationService.validateRepositoryName(repository);
+        String key = S3KeyGenerator.blobKey(blob.getDigest());
+
+        blobDownloadCounter.increment();
+
+        BLOB_DOWNLOAD.log(repository, blob.getDigest());
+
+        return asyncStorage.getObject(key).thenApply(content -> content
+                .orElseThrow(() -> new BlobNotFoundException(repository, blob.getDigest()))
+                .body());
+    }
+
+    /**
+     * Non-blocking {@link #getBlobRange}; ranges are always read from storage, not the block cache
+     */
+    public CompletableFuture<Publisher<ByteBuffer>> openBlobRangeAsync(String repository, Blob blob, ByteRange range) {
+        validationService.validateRepositoryName(repository);
+        String key = S3KeyGenerator.blobKey(blob.getDigest());
+
+        BLOB_RANGE.log(repository, blob.getDigest(), range);
+
+        return asyncStorage.getObjectRange(key, "bytes=" + range).thenApply(content -> content
+                .orElseThrow(() -> new BlobNotFoundException(repository, blob.getDigest()))
+                .body());
     }
 
     /**
@@ -85,10 +230,7 @@ public class BlobService {
 
         blobDownloadCounter.increment();
         
-        MDC.put("repository", repository);
-        MDC.put("digest", digest.toString());
-        logger.info("Downloading blob");
-        MDC.clear();
+        BLOB_DOWNLOAD.log(repository, digest);
 
         return storage.getObject(key);
     }
@@ -99,39 +241,38 @@ public class BlobService {
     public Blob storeBlob(String repository, InputStream content, String contentType) {
         validationService.validateRepositoryName(repository);
         
-        // Calculate digest while storing
-        Digest digest = DigestCalculator.calculateSha256(content);
-        String key = S3KeyGenerator.blobKey(digest);
-
-        // Check if already exists (deduplication)
-        if (storage.objectExists(key)) {
-            long size = storage.getObjectSize(key);
-            logger.info("Blob {} already exists (deduplication), skipping upload", digest);
-            return new Blob(digest, size, contentType, key);
-        }
-
-        // Store to S3
+        // The body is read once; hashing the stream first would leave nothing to store
         byte[] contentBytes;
         try {
             contentBytes = content.readAllBytes();
         } catch (java.io.IOException e) {
             throw new RuntimeException("Failed to read blob content: " + e.getMessage(), e);
         }
+        Digest digest = DigestEngine.digest("sha256", contentBytes);
+        String key = S3KeyGenerator.blobKey(digest);
+
+        // Check if already exists (deduplication); one HEAD gives both answers
+        Optional<ObjectInfo> existing = storage.headObject(key);
+        if (existing.isPresent()) {
+            logger.info("Blob {} already exists (deduplication), skipping upload", digest);
+            return new Blob(digest, existing.get().size(), contentType, key);
+        }
+
+        // Store to S3
         storage.putObject(key, new java.io.ByteArrayInputStream(contentBytes), contentBytes.length, contentType);
-        long size = storage.getObjectSize(key);
+        long size = contentBytes.length;
 
         blobUploadCounter.increment();
 
-        MDC.put("repository", repository);
-        MDC.put("digest", digest.toString());
-        logger.info("Stored blob: {} bytes", size);
-        MDC.clear();
+        BLOB_STORED.log(repository, digest, size);
 
         return new Blob(digest, size, contentType, key);
     }
 
     /**
-     * Store blob with explicit digest verification
+     * Store blob with explicit digest verification.
+     * The body is hashed while it streams to storage and is only committed
+     * once the digest matches; large bodies are sent as parallel multipart parts.
      */
     public Blob storeBlobWithDigest(String repository, InputStream content, 
                                    Digest expectedDigest, String contentType) {
@@ -139,42 +280,102 @@ public class BlobService {
         
         String key = S3KeyGenerator.blobKey(expectedDigest);
 
-        // Check if already exists (deduplication)
-        if (storage.objectExists(key)) {
-            long size = storage.getObjectSize(key);
+        // Check if already exists (deduplication); one HEAD gives both answers
+        Optional<ObjectInfo> existing = storage.headObject(key);
+        if (existing.isPresent()) {
             logger.info("Blob {} already exists (deduplication), skipping upload", expectedDigest);
-            return new Blob(expectedDigest, size, contentType, key);
+            return new Blob(expectedDigest, existing.get().size(), contentType, key);
         }
 
-        // Store to S3
-        byte[] contentBytes;
+        MessageDigest md = DigestEngine.acquire(expectedDigest.algorithm());
+        long size;
         try {
-            contentBytes = content.readAllBytes();
-        } catch (java.io.IOException e) {
-            throw new RuntimeException("Failed to read blob content: " + e.getMessage(), e);
+            size = partUploader.uploadStream(key, content, contentType, md, () -> {
+                Digest actualDigest = DigestEngine.finish(expectedDigest.algorithm(), md);
+                if (!actualDigest.equals(expectedDigest)) {
+                    throw new DigestInvalidException(
+                        "Digest mismatch: expected " + expectedDigest + " but got " + actualDigest);
+                }
+            });
+        } finally {
+            DigestEngine.release(md);
         }
-        storage.putObject(key, new java.io.ByteArrayInputStream(contentBytes), contentBytes.length, contentType);
-        
-        // Verify digest after upload
-        try (InputStream is = storage.getObject(key)) {
-            Digest actualDigest = DigestCalculator.calculateSha256(is);
-            if (!actualDigest.equals(expectedDigest)) {
-                storage.deleteObject(key);
-                throw new DigestInvalidException(
-                    "Digest mismatch: expected " + expectedDigest + " but got " + actualDigest);
+
+        blobUploadCounter.increment();
+
+        BLOB_STORED_VERIFIED.log(repository, expectedDigest, size);
+
+        return new Blob(expectedDigest, size, contentType, key);
+    }
+
+    /**
+     * Whether {@link #storeBlobAsync} can take a body of this digest and length:
+     * it must be a sha256 digest and fit in one storage PUT
+     */
+    public boolean canStoreAsync(Digest expectedDigest, long contentLength) {
+        return "sha256".equals(expectedDigest.algorithm())
+                && contentLength >= 0 && contentLength <= storage.getMaximumPartSize();
+    }
+
+    /**
+     * Non-blocking {@link #storeBlobWithDigest} for a body of known length.
+     * The body streams to storage in a single PUT that storage verifies against the digest,
+     * so a mismatching upload is rejected without ever being visible.
+     */
+    public CompletableFuture<Blob> storeBlobAsync(String repository, Publisher<ByteBuffer> content,
+                                                  long contentLength, Digest expectedDigest, String contentType) {
+        validationService.validateRepositoryName(repository);
+
+        String key = S3KeyGenerator.blobKey(expectedDigest);
+        byte[] sha256 = expectedDigest.toBytes();
+
+        return asyncStorage.headObject(key).thenCompose(existing -> {
+            // Check if already exists (deduplication); the unread body is discarded
+            if (existing.isPresent()) {
+                logger.info("Blob {} already exists (deduplication), skipping upload", expectedDigest);
+                return CompletableFuture.completedFuture(
+                        new Blob(expectedDigest, existing.get().size(), contentType, key));
             }
-        } catch (Exception e) {
-            storage.deleteObject(key);
-            throw new DigestInvalidException("Failed to verify digest: " + e.getMessage());
+            return asyncStorage.putObjectVerified(key, content, contentLength, contentType, sha256)
+                    .thenApply(verified -> {
+                        if (!verified) {
+                            throw new DigestInvalidException(
+                                "Digest mismatch: content does not match " + expectedDigest);
+                        }
+                        blobUploadCounter.increment();
+
+                        BLOB_STORED_VERIFIED.log(repository, expectedDigest, contentLength);
+
+                        return new Blob(expectedDigest, contentLength, contentType, key);
+                    });
+        });
+    }
+
+    /**
+     * Store a blob from a local file whose digest was computed while it was written.
+     * The content is verified before upload, so nothing has to be read back from storage.
+     */
+    public Blob storeBlobFromFile(String repository, Path file, long size, Digest expectedDigest,
+                                  Digest actualDigest, String contentType) {
+        validationService.validateRepositoryName(repository);
+        
+        if (!actualDigest.equals(expectedDigest)) {
+            throw new DigestInvalidException(
+                "Digest mismatch: expected " + expectedDigest + " but got " + actualDigest);
+        }
+        
+        String key = S3KeyGenerator.blobKey(expectedDigest);
+
+        // Check if already exists (deduplication)
+        if (storage.objectExists(key)) {
+            logger.info("Blob {} already exists (deduplication), skipping upload", expectedDigest);
+            return new Blob(expectedDigest, size, contentType, key);
         }
 
-        long size = storage.getObjectSize(key);
+        partUploader.uploadFile(key, file, size, contentType);
         blobUploadCounter.increment();
 
-        MDC.put("repository", repository);
-        MDC.put("digest", expectedDigest.toString());
-        logger.info("Stored blob with digest verification: {} bytes", size);
-        MDC.clear();
+        BLOB_STORED_SPOOLED.log(repository, expectedDigest, size);
 
         return new Blob(expectedDigest, size, contentType, key);
     }
@@ -211,9 +412,6 @@ public class BlobService {
 
         storage.deleteObject(key);
 
-        MDC.put("repository", repository);
-        MDC.put("digest", digest.toString());
-        logger.info("Deleted blob");
-        MDC.clear();
+        BLOB_DELETED.log(repository, digest);
     }
 }
@@ -2,24 +2,30 @@ package com.jreg.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jreg.exception.DigestInvalidException;
 import com.jreg.exception.ManifestInvalidException;
 import com.jreg.exception.ManifestNotFoundException;
 import com.jreg.model.Digest;
 import com.jreg.model.Manifest;
+import com.jreg.storage.AsyncStorageBackend;
+import com.jreg.storage.AsyncStorageBackend.StoredObject;
 import com.jreg.storage.StorageBackend;
-import com.jreg.util.DigestCalculator;
+import com.jreg.storage.StorageBackend.ObjectInfo;
+import com.jreg.util.DigestEngine;
+import com.jreg.util.EventLog;
 import com.jreg.util.S3KeyGenerator;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Manages manifest storage and retrieval operations.
@@ -27,20 +33,33 @@ import java.util.List;
 @Service
 public class ManifestService {
     private static final Logger logger = LoggerFactory.getLogger(ManifestService.class);
+    private static final EventLog MANIFEST_STORED = EventLog.info(logger, "manifest-push",
+            "Stored manifest", "repository", "digest", "size");
+    private static final EventLog MANIFEST_RETRIEVED = EventLog.info(logger, "manifest-pull",
+            "Retrieved manifest", "repository", "digest", "size");
+    private static final EventLog MANIFEST_DELETED = EventLog.info(logger, "manifest-delete",
+            "Deleted manifest", "repository", "digest");
     
     private final StorageBackend storage;
+    // Only created on the reactive stack
+    private final AsyncStorageBackend asyncStorage;
     private final ValidationService validationService;
     private final ObjectMapper objectMapper;
+    private final PullThroughCache pullThroughCache;
     private final Counter manifestPushCounter;
     private final Counter manifestPullCounter;
 
     public ManifestService(StorageBackend storage,
+                          Optional<AsyncStorageBackend> asyncStorage,
                           ValidationService validationService,
                           ObjectMapper objectMapper,
+                          PullThroughCache pullThroughCache,
                           MeterRegistry meterRegistry) {
         this.storage = storage;
+        this.asyncStorage = asyncStorage.orElse(null);
         this.validationService = validationService;
         this.objectMapper = objectMapper;
+        this.pullThroughCache = pullThroughCache;
         this.manifestPushCounter = Counter.builder("manifest_pushes_total")
                 .description("Total number of manifest pushes")
                 .register(meterRegistry);
@@ -50,9 +69,17 @@ public class ManifestService {
     }
 
     /**
-     * Store a manifest
+     * Store a manifest pushed by tag, addressed by its sha256 digest
      */
     public Manifest storeManifest(String repository, byte[] manifestBytes, String mediaType) {
+        return storeManifest(repository, manifestBytes, mediaType, null);
+    }
+
+    /**
+     * Store a manifest pushed by digest. It is hashed once, in the digest's algorithm, and
+     * must match it; a null digest stores the manifest under its sha256 digest.
+     */
+    public Manifest storeManifest(String repository, byte[] manifestBytes, String mediaType, Digest expectedDigest) {
         validationService.validateRepositoryName(repository);
         
         // Strip charset parameter from media type if present
@@ -62,10 +89,14 @@ public class ManifestService {
         }
         
         // Calculate digest
-        Digest digest = DigestCalculator.calculateSha256(manifestBytes);
+        Digest digest = DigestEngine.digest(expectedDigest != null ? expectedDigest.algorithm() : "sha256", manifestBytes);
+        if (expectedDigest != null && !digest.equals(expectedDigest)) {
+            throw new DigestInvalidException(
+                "Digest mismatch: expected " + expectedDigest + " but got " + digest);
+        }
         
-        // Validate manifest structure
-        validationService.validateManifest(manifestBytes, digest.toString());
+        // Validate manifest structure; the digest is already known to match the bytes
+        validationService.validateManifest(manifestBytes, null);
         
         String key = S3KeyGenerator.manifestKey(repository, digest);
         
@@ -91,39 +122,44 @@ public class ManifestService {
         
         manifestPushCounter.increment();
         
-        MDC.put("repository", repository);
-        MDC.put("digest", digest.toString());
-        logger.info("Stored manifest: {} bytes", manifestBytes.length);
-        MDC.clear();
+        MANIFEST_STORED.log(repository, digest, manifestBytes.length);
         
         return manifest;
     }
 
     /**
-     * Get a manifest by digest
+     * Get a manifest by digest.
+     * In pull-through mode a local miss is fetched from the upstream and stored.
      */
     public Manifest getManifest(String repository, Digest digest) {
         validationService.validateRepositoryName(repository);
         
         String key = S3KeyGenerator.manifestKey(repository, digest);
         
-        if (!storage.objectExists(key)) {
-            throw new ManifestNotFoundException(repository, digest);
+        ObjectInfo info = storage.headObject(key).orElse(null);
+        if (info == null) {
+            if (!pullThroughCache.isEnabled()) {
+                throw new ManifestNotFoundException(repository, digest);
+            }
+            Manifest pulled = pullThroughCache.fetchManifest(repository, digest)
+                    .orElseThrow(() -> new ManifestNotFoundException(repository, digest));
+            manifestPullCounter.increment();
+            return pulled;
         }
         
         try (InputStream is = storage.getObject(key)) {
             byte[] content = is.readAllBytes();
-            String contentType = storage.getObjectMetadata(key)
-                    .getOrDefault("Content-Type", "application/vnd.oci.image.manifest.v1+json");
+            String contentType = info.contentType() != null
+                    ? info.contentType() : "application/vnd.oci.image.manifest.v1+json";
             
             Manifest manifest = new Manifest(digest, repository, contentType, content);
+            if (info.lastModified() != null) {
+                manifest.setUploadedAt(info.lastModified());
+            }
             
             manifestPullCounter.increment();
             
-            MDC.put("repository", repository);
-            MDC.put("digest", digest.toString());
-            logger.info("Retrieved manifest: {} bytes", content.length);
-            MDC.clear();
+            MANIFEST_RETRIEVED.log(repository, digest, content.length);
             
             return manifest;
         } catch (ManifestNotFoundException e) {
@@ -133,6 +169,27 @@ public class ManifestService {
         }
     }
 
+    /**
+     * Read a manifest held locally without blocking; the upstream is not consulted.
+     * Only available on the reactive stack.
+     */
+    public CompletableFuture<Optional<Manifest>> findManifestAsync(String repository, Digest digest) {
+        validationService.validateRepositoryName(repository);
+        String key = S3KeyGenerator.manifestKey(repository, digest);
+        return asyncStorage.getObjectBytes(key)
+                .thenApply(stored -> stored.map(object -> toManifest(repository, digest, object)));
+    }
+
+    private static Manifest toManifest(String repository, Digest digest, StoredObject object) {
+        String contentType = object.info().contentType() != null
+                ? object.info().contentType() : "application/vnd.oci.image.manifest.v1+json";
+        Manifest manifest = new Manifest(digest, repository, contentType, object.content());
+        if (object.info().lastModified() != null) {
+            manifest.setUploadedAt(object.info().lastModified());
+        }
+        return manifest;
+    }
+
     /**
      * Get a manifest by tag (resolves tag to digest first)
      */
@@ -144,6 +201,18 @@ public class ManifestService {
         return getManifest(repository, digest);
     }
 
+    /**
+     * Resolve a tag that is not known locally against the upstream registry, if there is one
+     */
+    public Optional<Digest> resolveUpstreamTag(String repository, String tag) {
+        if (!pullThroughCache.isEnabled()) {
+            return Optional.empty();
+        }
+        validationService.validateRepositoryName(repository);
+        validationService.validateTagName(tag);
+        return pullThroughCache.resolveTag(repository, tag);
+    }
+
     /**
      * Check if a manifest exists
      */
@@ -183,10 +252,7 @@ public class ManifestService {
         
         storage.deleteObject(key);
         
-        MDC.put("repository", repository);
-        MDC.put("digest", digest.toString());
-        logger.info("Deleted manifest");
-        MDC.clear();
+        MANIFEST_DELETED.log(repository, digest);
     }
 
     /**
@@ -0,0 +1,275 @@
+package com.jreg.service;
+
+import com.jreg.model.Blob;
+import com.jreg.model.Digest;
+import com.jreg.model.Manifest;
+import com.jreg.storage.DirectBufferPool;
+import com.jreg.storage.ParallelPartUploader;
+import com.jreg.storage.SpoolFile;
+import com.jreg.storage.StorageBackend;
+import com.jreg.storage.UpstreamRegistryClient;
+import com.jreg.storage.UpstreamRegistryClient.UpstreamBlob;
+import com.jreg.storage.UpstreamRegistryClient.UpstreamManifest;
+import com.jreg.util.DigestEngine;
+import com.jreg.util.EventLog;
+import com.jreg.util.S3KeyGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Fills local misses from an upstream registry.
+ * Each digest is fetched once no matter how many clients ask for it concurrently.
+ * Blob downloads are drained into a local spool file on a background thread while
+ * every waiting client tails that file, then uploaded to storage once the digest
+ * has been verified; a client that disconnects does not abort the fetch.
+ */
+@Service
+public class PullThroughCache {
+    private static final Logger logger = LoggerFactory.getLogger(PullThroughCache.class);
+    private static final EventLog UPSTREAM_BLOB = EventLog.info(logger, "pull-through-blob",
+            "Pulling blob from upstream", "repository", "digest", "size");
+    private static final EventLog UPSTREAM_MANIFEST = EventLog.info(logger, "pull-through-manifest",
+            "Cached upstream manifest", "repository", "digest", "size");
+
+    private final UpstreamRegistryClient upstream;
+    private final StorageBackend storage;
+    private final ParallelPartUploader partUploader;
+    private final DirectBufferPool bufferPool;
+    private final ExecutorService executor;
+    private final Path spoolDirectory;
+    private final Map<String, CompletableFuture<Optional<Manifest>>> manifestFetches = new ConcurrentHashMap<>();
+    private final Map<Digest, CompletableFuture<BlobFetch>> blobFetches = new ConcurrentHashMap<>();
+    private final Counter manifestFetchCounter;
+    private final Counter blobFetchCounter;
+
+    public PullThroughCache(UpstreamRegistryClient upstream,
+                            StorageBackend storage,
+                            ParallelPartUploader partUploader,
+                            DirectBufferPool bufferPool,
+                            @Qualifier("upstreamFetchExecutor") ExecutorService executor,
+                            @Value("${jreg.upstream.spool-directory:${java.io.tmpdir}/jreg-pull-through}") String spoolDirectory,
+                            MeterRegistry meterRegistry) {
+        this.upstream = upstream;
+        this.storage = storage;
+        this.partUploader = partUploader;
+        this.bufferPool = bufferPool;
+        this.executor = executor;
+        this.spoolDirectory = Paths.get(spoolDirectory);
+        this.manifestFetchCounter = fetchCounter(meterRegistry, "manifest");
+        this.blobFetchCounter = fetchCounter(meterRegistry, "blob");
+    }
+
+    private static Counter fetchCounter(MeterRegistry registry, String type) {
+        return Counter.builder("jreg.upstream.fetches")
+                .description("Objects fetched from the upstream registry on a local miss")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    /**
+     * Whether misses are filled from an upstream registry
+     */
+    public boolean isEnabled() {
+        return upstream.isEnabled();
+    }
+
+    /**
+     * Resolve a tag against the upstream. Tags are not cached locally,
+     * so a moved upstream tag is picked up on the next pull.
+     */
+    public Optional<Digest> resolveTag(String repository, String tag) {
+        return upstream.resolveTag(repository, tag);
+    }
+
+    /**
+     * Fetch a manifest from the upstream and store it locally
+     */
+    public Optional<Manifest> fetchManifest(String repository, Digest digest) {
+        String fetchKey = repository + "@" + digest;
+        CompletableFuture<Optional<Manifest>> fetch = new CompletableFuture<>();
+        CompletableFuture<Optional<Manifest>> existing = manifestFetches.putIfAbsent(fetchKey, fetch);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            fetch.complete(pullManifest(repository, digest));
+        } catch (RuntimeException e) {
+            fetch.completeExceptionally(e);
+        } finally {
+            manifestFetches.remove(fetchKey);
+        }
+        return join(fetch);
+    }
+
+    /**
+     * Look up blob metadata on the upstream without fetching the content
+     */
+    public Optional<Blob> headBlob(String repository, Digest digest) {
+        return upstream.headBlob(repository, digest)
+                .map(info -> new Blob(digest, info.size(), info.contentType(), S3KeyGenerator.blobKey(digest)));
+    }
+
+    /**
+     * Open a blob that is missing locally. The first caller starts the upstream download;
+     * concurrent callers for the same digest read the same spooled bytes.
+     * The size of the returned blob is -1 when the upstream did not send a length.
+     */
+    public Optional<PulledBlob> openBlob(String repository, Digest digest) {
+        CompletableFuture<BlobFetch> started = new CompletableFuture<>();
+        CompletableFuture<BlobFetch> existing = blobFetches.putIfAbsent(digest, started);
+        if (existing == null) {
+            return startBlobFetch(repository, digest, started);
+        }
+
+        BlobFetch fetch = join(existing);
+        if (fetch == null) {
+            return Optional.empty();
+        }
+        InputStream reader = fetch.spool().openReader();
+        if (reader != null) {
+            return Optional.of(new PulledBlob(fetch.blob(), reader));
+        }
+        // The fetch finished between the lookup and the open
+        String key = S3KeyGenerator.blobKey(digest);
+        if (storage.objectExists(key)) {
+            return Optional.of(new PulledBlob(fetch.blob(), storage.getObject(key)));
+        }
+        return openBlob(repository, digest);
+    }
+
+    private Optional<PulledBlob> startBlobFetch(String repository, Digest digest,
+                                                CompletableFuture<BlobFetch> started) {
+        BlobFetch fetch;
+        InputStream reader;
+        UpstreamBlob upstreamBlob = null;
+        try {
+            upstreamBlob = upstream.getBlob(repository, digest).orElse(null);
+            if (upstreamBlob == null) {
+                blobFetches.remove(digest);
+                started.complete(null);
+                return Optional.empty();
+            }
+            SpoolFile spool = SpoolFile.create(spoolDirectory, "blob-");
+            fetch = new BlobFetch(spool,
+                    new Blob(digest, upstreamBlob.size(), upstreamBlob.contentType(), S3KeyGenerator.blobKey(digest)));
+            // Open before the drain starts so the spool cannot be released underneath us
+            reader = spool.openReader();
+            started.complete(fetch);
+        } catch (RuntimeException e) {
+            if (upstreamBlob != null) {
+                closeQuietly(upstreamBlob.content());
+            }
+            blobFetches.remove(digest);
+            started.completeExceptionally(e);
+            throw e;
+        }
+
+        InputStream content = upstreamBlob.content();
+        executor.execute(() -> drain(digest, fetch, content));
+        blobFetchCounter.increment();
+
+        UPSTREAM_BLOB.log(repository, digest, fetch.blob().getSize());
+
+        return Optional.of(new PulledBlob(fetch.blob(), reader));
+    }
+
+    /**
+     * Copy the upstream body into the spool, verify it and store it.
+     * Readers see the content fail if the digest or length does not match.
+     */
+    private void drain(Digest digest, BlobFetch fetch, InputStream content) {
+        SpoolFile spool = fetch.spool();
+        Blob blob = fetch.blob();
+        try (spool; content) {
+            MessageDigest md = DigestEngine.acquire(digest.algorithm());
+            long size;
+            Digest actual;
+            try {
+                size = spool.fill(content, bufferPool, md);
+                actual = DigestEngine.finish(digest.algorithm(), md);
+            } finally {
+                DigestEngine.release(md);
+            }
+            if (!actual.equals(digest)) {
+                throw new IOException("Upstream blob digest mismatch: expected " + digest + " but got " + actual);
+            }
+            if (blob.getSize() >= 0 && size != blob.getSize()) {
+                throw new IOException("Upstream blob " + digest + " was " + size
+                        + " bytes but Content-Length said " + blob.getSize());
+            }
+            spool.complete();
+
+            partUploader.uploadFile(blob.getS3Key(), spool.getPath(), size, blob.getMediaType());
+            logger.info("Cached upstream blob {}: {} bytes", digest, size);
+        } catch (IOException | RuntimeException e) {
+            spool.fail(e);
+            logger.warn("Failed to pull blob {} from upstream: {}", digest, e.getMessage());
+        } finally {
+            blobFetches.remove(digest);
+        }
+    }
+
+    private Optional<Manifest> pullManifest(String repository, Digest digest) {
+        Optional<UpstreamManifest> fetched = upstream.getManifest(repository, digest.toString());
+        if (fetched.isEmpty()) {
+            return Optional.empty();
+        }
+        UpstreamManifest upstreamManifest = fetched.get();
+
+        Digest actual = DigestEngine.digest(digest.algorithm(), upstreamManifest.content());
+        if (!actual.equals(digest)) {
+            throw new RuntimeException("Upstream manifest digest mismatch: expected " + digest + " but got " + actual);
+        }
+
+        storage.putObject(S3KeyGenerator.manifestKey(repository, digest),
+                upstreamManifest.content(), upstreamManifest.mediaType());
+        manifestFetchCounter.increment();
+
+        UPSTREAM_MANIFEST.log(repository, digest, upstreamManifest.content().length);
+
+        return Optional.of(new Manifest(digest, repository, upstreamManifest.mediaType(), upstreamManifest.content()));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // Already failing; nothing more to report
+        }
+    }
+
+    private record BlobFetch(SpoolFile spool, Blob blob) {}
+
+    /**
+     * Blob metadata as reported by the upstream, and a stream of its content
+     */
+    public record PulledBlob(Blob blob, InputStream content) {}
+}
@@ -4,11 +4,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jreg.exception.ManifestNotFoundException;
 import com.jreg.model.Digest;
 import com.jreg.model.Tag;
+import com.jreg.storage.AsyncStorageBackend;
 import com.jreg.storage.StorageBackend;
+import com.jreg.util.EventLog;
 import com.jreg.util.S3KeyGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
@@ -17,6 +18,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Manages tag-to-manifest mappings.
@@ -24,15 +27,23 @@ import java.util.Map;
 @Service
 public class TagService {
     private static final Logger logger = LoggerFactory.getLogger(TagService.class);
+    private static final EventLog TAGGED = EventLog.info(logger, "tag-update",
+            "Tagged manifest", "repository", "tag", "digest");
+    private static final EventLog TAG_DELETED = EventLog.info(logger, "tag-delete",
+            "Deleted tag", "repository", "tag");
     
     private final StorageBackend storage;
+    // Only created on the reactive stack
+    private final AsyncStorageBackend asyncStorage;
     private final ValidationService validationService;
     private final ObjectMapper objectMapper;
 
     public TagService(StorageBackend storage,
+                     Optional<AsyncStorageBackend> asyncStorage,
                      ValidationService validationService,
                      ObjectMapper objectMapper) {
         this.storage = storage;
+        this.asyncStorage = asyncStorage.orElse(null);
         this.validationService = validationService;
         this.objectMapper = objectMapper;
     }
@@ -63,11 +74,7 @@ public class TagService {
             
             Tag tag = new Tag(repository, tagName, manifestDigest);
             
-            MDC.put("repository", repository);
-            MDC.put("tag", tagName);
-            MDC.put("digest", manifestDigest.toString());
-            logger.info("Tagged manifest");
-            MDC.clear();
+            TAGGED.log(repository, tagName, manifestDigest);
             
             return tag;
             
@@ -102,6 +109,29 @@ public class TagService {
         }
     }
 
+    /**
+     * Non-blocking {@link #resolveTag}: reads the tag object in a single storage GET
+     */
+    public CompletableFuture<Digest> resolveTagAsync(String repository, String tagName) {
+        validationService.validateRepositoryName(repository);
+        validationService.validateTagName(tagName);
+        
+        String key = S3KeyGenerator.tagKey(repository, tagName);
+        
+        return asyncStorage.getObjectBytes(key).thenApply(stored -> {
+            byte[] tagBytes = stored
+                    .orElseThrow(() -> new ManifestNotFoundException(repository, tagName))
+                    .content();
+            try {
+                @SuppressWarnings("unchecked")
+                Map<String, String> tagData = objectMapper.readValue(tagBytes, Map.class);
+                return Digest.parse(tagData.get("digest"));
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to resolve tag: " + e.getMessage(), e);
+            }
+        });
+    }
+
     /**
      * List all tags in a repository
      */
@@ -115,7 +145,10 @@ public class TagService {
         for (String key : keys) {
             // Extract tag name from key: tags/{repository}/{tagName}
             String tagName = key.substring(prefix.length());
-            tagNames.add(tagName);
+            // Tags of nested repositories share the prefix, e.g. tags/library/nginx/latest for "library"
+            if (tagName.indexOf('/') < 0) {
+                tagNames.add(tagName);
+            }
         }
         
         logger.debug("Listed {} tags for repository {}", tagNames.size(), repository);
@@ -137,10 +170,7 @@ public class TagService {
         
         storage.deleteObject(key);
         
-        MDC.put("repository", repository);
-        MDC.put("tag", tagName);
-        logger.info("Deleted tag");
-        MDC.clear();
+        TAG_DELETED.log(repository, tagName);
     }
 
     /**
@@ -2,38 +2,100 @@ package com.jreg.service;
 
 import com.jreg.exception.BlobUploadInvalidException;
 import com.jreg.exception.BlobUploadUnknownException;
+import com.jreg.exception.DigestInvalidException;
+import com.jreg.model.Blob;
 import com.jreg.model.ByteRange;
+import com.jreg.model.Digest;
 import com.jreg.model.UploadSession;
+import com.jreg.storage.DirectBufferPool;
+import com.jreg.storage.PooledBuffers;
 import com.jreg.storage.StorageBackend;
+import com.jreg.storage.UploadSpool;
+import com.jreg.util.DigestEngine;
+import com.jreg.util.EventLog;
+import com.jreg.util.MultiDigest;
 import com.jreg.util.S3KeyGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.security.MessageDigest;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages chunked blob upload sessions.
+ * Chunks are stored as individual storage objects, or spooled to a local file
+ * per session when disk spooling is enabled. Chunks smaller than the backend's
+ * minimum part size are coalesced in memory before they are written to storage.
  */
 @Service
 public class UploadSessionService {
     private static final Logger logger = LoggerFactory.getLogger(UploadSessionService.class);
-    private static final Duration SESSION_TIMEOUT = Duration.ofHours(24);
+    private static final EventLog UPLOAD_STARTED = EventLog.info(logger, "upload-start",
+            "Started upload session", "repository", "session_id");
+    private static final EventLog UPLOAD_CHUNK = EventLog.debug(logger, "upload-chunk",
+            "Uploaded chunk", "session_id", "repository", "size", "offset");
+    private static final EventLog UPLOAD_COMPLETED = EventLog.info(logger, "upload-complete",
+            "Completed upload session", "session_id", "repository", "size");
+    private static final EventLog UPLOAD_COMPLETED_SPOOLED = EventLog.info(logger, "upload-complete",
+            "Completed spooled upload session", "session_id", "repository", "size");
+    private static final EventLog UPLOAD_CANCELLED = EventLog.info(logger, "upload-cancel",
+            "Cancelled upload session", "session_id", "repository");
     
     private final Map<UUID, UploadSession> activeSessions = new ConcurrentHashMap<>();
+    private final Map<UUID, PendingChunk> pendingChunks = new ConcurrentHashMap<>();
     private final StorageBackend storage;
     private final ValidationService validationService;
+    private final UploadSpool uploadSpool;
+    private final BlobService blobService;
+    private final DirectBufferPool bufferPool;
+    private final long maxBufferedSegment;
+    private final boolean outOfOrderChunks;
+    private final long chunkMinLength;
+    private final long chunkMaxLength;
+    private final List<String> spoolDigestAlgorithms;
+    private final Duration sessionTimeout;
 
-    public UploadSessionService(StorageBackend storage, ValidationService validationService) {
+    public UploadSessionService(StorageBackend storage,
+                                ValidationService validationService,
+                                UploadSpool uploadSpool,
+                                BlobService blobService,
+                                DirectBufferPool bufferPool,
+                                @Value("${jreg.storage.part-size:8MB}") DataSize maxBufferedSegment,
+                                @Value("${jreg.upload.out-of-order-chunks:false}") boolean outOfOrderChunks,
+                                @Value("${jreg.upload.chunk-max-length:64MB}") DataSize chunkMaxLength,
+                                @Value("${jreg.upload.digest-algorithms:sha256}") List<String> spoolDigestAlgorithms,
+                                @Value("${jreg.upload.session-timeout:24h}") Duration sessionTimeout) {
         this.storage = storage;
         this.validationService = validationService;
+        this.uploadSpool = uploadSpool;
+        this.blobService = blobService;
+        this.bufferPool = bufferPool;
+        this.maxBufferedSegment = maxBufferedSegment.toBytes();
+        this.outOfOrderChunks = outOfOrderChunks;
+        this.chunkMinLength = storage.getMinimumPartSize();
+        this.chunkMaxLength = Math.max(chunkMinLength, Math.min(chunkMaxLength.toBytes(), storage.getMaximumPartSize()));
+        this.spoolDigestAlgorithms = List.copyOf(spoolDigestAlgorithms);
+        this.sessionTimeout = sessionTimeout;
+        // Fail at startup on an unknown algorithm name
+        MultiDigest.of(this.spoolDigestAlgorithms).close();
     }
 
     /**
@@ -44,13 +106,14 @@ public class UploadSessionService {
         
         UUID sessionId = UUID.randomUUID();
         UploadSession session = new UploadSession(sessionId, repository);
+        if (uploadSpool.isEnabled()) {
+            session.setSpoolFile(uploadSpool.create(sessionId));
+            session.setSpoolDigest(MultiDigest.of(spoolDigestAlgorithms));
+        }
         
         activeSessions.put(sessionId, session);
 
-        MDC.put("repository", repository);
-        MDC.put("session_id", sessionId.toString());
-        logger.info("Started upload session");
-        MDC.clear();
+        UPLOAD_STARTED.log(repository, sessionId);
 
         return session;
     }
@@ -65,9 +128,9 @@ public class UploadSessionService {
         }
 
         // Check if session expired
-        if (Duration.between(session.getLastActivityAt(), Instant.now()).compareTo(SESSION_TIMEOUT) > 0) {
+        if (Duration.between(session.getLastActivityAt(), Instant.now()).compareTo(sessionTimeout) > 0) {
             activeSessions.remove(sessionId);
-            cleanupSessionData(sessionId);
+            cleanupSessionData(session);
             throw new BlobUploadUnknownException(sessionId);
         }
 
@@ -75,41 +138,257 @@ public class UploadSessionService {
     }
 
     /**
-     * Upload a chunk to a session
+     * Upload a chunk to a session.
+     * A negative length means the size is not known up front (Transfer-Encoding: chunked);
+     * the chunk then extends to the end of the stream.
      */
-    public void uploadChunk(UUID sessionId, InputStream chunk, long startByte, long endByte) {
+    public void uploadChunk(UUID sessionId, InputStream chunk, long startByte, long length) {
         UploadSession session = getSession(sessionId);
 
         // Validate range
-        if (startByte < 0 || endByte < startByte) {
-            throw new BlobUploadInvalidException("Invalid byte range: " + startByte + "-" + endByte);
+        if (startByte < 0 || length == 0) {
+            throw new BlobUploadInvalidException("Invalid byte range: start " + startByte + ", length " + length);
         }
 
-        // Verify sequential upload (OCI spec requirement)
+        // Verify sequential upload (OCI spec requirement) unless out-of-order chunks are enabled
         long expectedStart = session.getLastUploadedByte() + 1;
-        if (session.getLastUploadedByte() >= 0 && startByte != expectedStart) {
+        if (!outOfOrderChunks && startByte != expectedStart && session.getTotalUploadedBytes() > 0) {
             throw new BlobUploadInvalidException(
                 "Non-sequential upload: expected start " + expectedStart + " but got " + startByte);
         }
 
-    // Store chunk
-    String chunkKey = S3KeyGenerator.uploadChunkKey(sessionId.toString(), startByte, endByte);
-        byte[] chunkBytes;
+        // Claim the range so parallel requests cannot write overlapping data
+        long reservedEnd = length > 0 ? startByte + length - 1 : Long.MAX_VALUE;
+        if (!session.reserveRange(startByte, reservedEnd)) {
+            throw new BlobUploadInvalidException(
+                "Chunk starting at " + startByte + " overlaps data already uploaded or in flight");
+        }
+
+        long received;
         try {
-            chunkBytes = chunk.readAllBytes();
-        } catch (java.io.IOException e) {
+            received = storeChunk(session, chunk, startByte, length);
+        } finally {
+            session.releaseRange(startByte, reservedEnd);
+        }
+
+        if (session.isSpooled()) {
+            // Catch the running digest up with chunks that were not hashed inline
+            advanceSpoolDigest(session);
+        }
+
+        UPLOAD_CHUNK.log(sessionId, session.getRepository(), received, startByte);
+    }
+
+    private long storeChunk(UploadSession session, InputStream chunk, long startByte, long length) {
+        if (session.isSpooled()) {
+            // Write at the chunk's offset; an in-order chunk that continues the digested prefix
+            // is hashed as it is written
+            MessageDigest inlineDigest = !outOfOrderChunks && session.getDigestedBytes() == startByte
+                    ? session.getSpoolDigest() : null;
+            long received;
+            try {
+                received = uploadSpool.write(session.getSpoolFile(), startByte, chunk, length, inlineDigest);
+                if (length >= 0 && received != length) {
+                    throw new BlobUploadInvalidException(
+                        "Chunk at " + startByte + " declared " + length + " bytes but the body "
+                        + (received < length ? "carried " + received : "is longer"));
+                }
+            } catch (RuntimeException e) {
+                if (inlineDigest != null) {
+                    // Part of the body may be hashed but none of it is recorded; the recorded
+                    // prefix is rehashed from the spool file when the next chunk lands
+                    inlineDigest.reset();
+                    session.setDigestedBytes(0);
+                }
+                throw e;
+            }
+            if (received > 0) {
+                session.addUploadedRange(new ByteRange(startByte, startByte + received - 1));
+            }
+            if (inlineDigest != null) {
+                session.setDigestedBytes(startByte + received);
+            }
+            return received;
+        }
+        if (length >= chunkMinLength) {
+            // Known length large enough for one efficient write: stream the body straight into the chunk object
+            flushPendingChunk(session);
+            String chunkKey = S3KeyGenerator.uploadChunkKey(session.getSessionId().toString(), startByte, startByte + length - 1);
+            storage.putObject(chunkKey, chunk, length, "application/octet-stream");
+            session.addUploadedRange(new ByteRange(startByte, startByte + length - 1));
+            return length;
+        }
+        return storeBufferedChunk(session, chunk, startByte, length);
+    }
+
+    /**
+     * Feed spooled bytes that have become contiguous into the session's running digest.
+     * Bytes are hashed strictly in order, so chunks that arrive early wait until the gap before them is filled.
+     */
+    private void advanceSpoolDigest(UploadSession session) {
+        MessageDigest digest = session.getSpoolDigest();
+        synchronized (digest) {
+            long contiguous = session.getLastUploadedByte() + 1;
+            long digested = session.getDigestedBytes();
+            if (contiguous > digested) {
+                uploadSpool.hash(session.getSpoolFile(), digested, contiguous - digested, digest);
+                session.setDigestedBytes(contiguous);
+            }
+        }
+    }
+
+    /**
+     * Reject completion while chunks are still being written or ranges are missing
+     */
+    private void verifyComplete(UploadSession session) {
+        if (session.hasChunksInFlight()) {
+            throw new BlobUploadInvalidException("Upload has chunks still in flight");
+        }
+        List<ByteRange> missing = session.getMissingRanges();
+        if (!missing.isEmpty()) {
+            throw new BlobUploadInvalidException("Upload has gaps: missing bytes " + missing.get(0)
+                    + (missing.size() > 1 ? " and " + (missing.size() - 1) + " more" : ""));
+        }
+    }
+
+    /**
+     * Store a small chunk or one of unknown length. The body is read into pooled direct
+     * memory in segments bounded by the storage part size; segments below the minimum
+     * chunk length are coalesced with neighbouring chunks before being written.
+     * A chunk of declared length must carry exactly that many bytes.
+     */
+    private long storeBufferedChunk(UploadSession session, InputStream chunk, long startByte, long length) {
+        ReadableByteChannel source = DirectBufferPool.channelFor(chunk);
+        long offset = startByte;
+        try {
+            if (length >= 0) {
+                // Below the minimum chunk length, so it fits in one segment
+                PooledBuffers segment = PooledBuffers.read(bufferPool, source, length);
+                long received = segment.size();
+                boolean longer;
+                try {
+                    longer = received == length && source.read(ByteBuffer.allocate(1)) > 0;
+                } catch (IOException e) {
+                    segment.close();
+                    throw e;
+                }
+                if (received != length || longer) {
+                    segment.close();
+                    throw new BlobUploadInvalidException(
+                        "Chunk at " + startByte + " declared " + length + " bytes but the body "
+                        + (longer ? "is longer" : "carried " + received));
+                }
+                coalesce(session, startByte, segment);
+                return length;
+            }
+            boolean more = true;
+            while (more) {
+                PooledBuffers segment = PooledBuffers.read(bufferPool, source, maxBufferedSegment);
+                more = !segment.isEndOfStream();
+                long size = segment.size();
+                if (size == 0) {
+                    segment.close();
+                    break;
+                }
+                coalesce(session, offset, segment);
+                offset += size;
+            }
+        } catch (IOException e) {
             throw new RuntimeException("Failed to read chunk content: " + e.getMessage(), e);
         }
-        storage.putObject(chunkKey, new java.io.ByteArrayInputStream(chunkBytes), chunkBytes.length, "application/octet-stream");
+        return offset - startByte;
+    }
+
+    /**
+     * Add a segment to the session's pending chunk, writing the pending chunk out once it
+     * reaches the minimum chunk length. Takes ownership of {@code segment}.
+     */
+    private void coalesce(UploadSession session, long offset, PooledBuffers segment) {
+        PendingChunk pending = pendingChunks.computeIfAbsent(session.getSessionId(), id -> new PendingChunk());
+        synchronized (pending) {
+            long end = offset + segment.size() - 1;
+            try (segment) {
+                if (pending.size > 0 && pending.start + pending.size != offset) {
+                    // Not adjacent (out-of-order chunk): write out what we have first
+                    writePending(session, pending);
+                }
+                if (pending.size == 0 && segment.size() >= chunkMinLength) {
+                    writeChunk(session, offset, segment);
+                    return;
+                }
+                // Copied to the heap so no pooled buffer is held between requests
+                if (pending.size == 0) {
+                    pending.start = offset;
+                }
+                pending.append(segment);
+            }
+            // Buffered bytes count as received; they are written by a later chunk or at completion
+            session.addReceivedRange(new ByteRange(offset, end));
+
+            if (pending.size >= chunkMinLength) {
+                writePending(session, pending);
+            }
+        }
+    }
 
-        // Update session
-        ByteRange range = new ByteRange(startByte, endByte);
-        session.addUploadedRange(range);
+    /**
+     * Write out any chunk data still buffered for the session
+     */
+    private void flushPendingChunk(UploadSession session) {
+        PendingChunk pending = pendingChunks.get(session.getSessionId());
+        if (pending != null) {
+            synchronized (pending) {
+                writePending(session, pending);
+            }
+        }
+    }
+
+    private void writePending(UploadSession session, PendingChunk pending) {
+        if (pending.size == 0) {
+            return;
+        }
+        // Keep the buffered data if the write fails so a later flush can retry it
+        long end = pending.start + pending.size - 1;
+        String chunkKey = S3KeyGenerator.uploadChunkKey(session.getSessionId().toString(), pending.start, end);
+        storage.putObject(chunkKey, new ByteArrayInputStream(pending.data, 0, pending.size), pending.size,
+                "application/octet-stream");
+        session.addUploadedRange(new ByteRange(pending.start, end));
+        pending.clear();
+    }
 
-        MDC.put("session_id", sessionId.toString());
-        MDC.put("repository", session.getRepository());
-        logger.debug("Uploaded chunk: {} bytes ({}-{})", range.size(), startByte, endByte);
-        MDC.clear();
+    private void writeChunk(UploadSession session, long start, PooledBuffers data) {
+        long end = start + data.size() - 1;
+        String chunkKey = S3KeyGenerator.uploadChunkKey(session.getSessionId().toString(), start, end);
+        storage.putObject(chunkKey, data.asInputStream(), data.size(), "application/octet-stream");
+        session.addUploadedRange(new ByteRange(start, end));
+    }
+
+    /**
+     * Smallest chunk clients should send; smaller chunks are coalesced server-side
+     */
+    public long getChunkMinLength() {
+        return chunkMinLength;
+    }
+
+    /**
+     * Recommended largest chunk, bounded by the backend's maximum part size
+     */
+    public long getChunkMaxLength() {
+        return chunkMaxLength;
+    }
+
+    /**
+     * Whether PATCH ranges may arrive out of order from parallel connections
+     */
+    public boolean isOutOfOrderChunksEnabled() {
+        return outOfOrderChunks;
+    }
+
+    /**
+     * Check if a session spools its chunks to local disk
+     */
+    public boolean isSpooled(UUID sessionId) {
+        return getSession(sessionId).isSpooled();
     }
 
     /**
@@ -124,6 +403,8 @@ public class UploadSessionService {
      */
     public InputStream completeSession(UUID sessionId) {
         UploadSession session = getSession(sessionId);
+        verifyComplete(session);
+        flushPendingChunk(session);
 
         try {
             // Assemble chunks in order
@@ -131,12 +412,9 @@ public class UploadSessionService {
             
             // Clean up session
             activeSessions.remove(sessionId);
-            cleanupSessionData(sessionId);
+            cleanupSessionData(session);
 
-            MDC.put("session_id", sessionId.toString());
-            MDC.put("repository", session.getRepository());
-            logger.info("Completed upload session: {} bytes", assembledData.length);
-            MDC.clear();
+            UPLOAD_COMPLETED.log(sessionId, session.getRepository(), assembledData.length);
 
             return new ByteArrayInputStream(assembledData);
             
@@ -146,6 +424,57 @@ public class UploadSessionService {
         }
     }
 
+    /**
+     * Complete a spooled upload session: verify the running digest and upload
+     * the spool file to blob storage in parallel parts
+     */
+    public Blob completeSpooledSession(UUID sessionId, Digest expectedDigest, String contentType) {
+        UploadSession session = getSession(sessionId);
+        if (!session.isSpooled()) {
+            throw new IllegalStateException("Upload session " + sessionId + " is not spooled");
+        }
+        verifyComplete(session);
+
+        try {
+            long size = session.getTotalUploadedBytes();
+            Digest actualDigest;
+            if (session.getSpoolDigest().computes(expectedDigest.algorithm())) {
+                advanceSpoolDigest(session);
+                actualDigest = session.getSpoolDigest().result(expectedDigest.algorithm());
+            } else {
+                // Not among the running digests; rehash the local file in the requested algorithm
+                try (InputStream is = Files.newInputStream(session.getSpoolFile())) {
+                    actualDigest = DigestEngine.digest(expectedDigest.algorithm(), is);
+                }
+            }
+
+            Blob blob = blobService.storeBlobFromFile(session.getRepository(), session.getSpoolFile(), size,
+                    expectedDigest, actualDigest, contentType);
+
+            UPLOAD_COMPLETED_SPOOLED.log(sessionId, session.getRepository(), size);
+
+            return blob;
+
+        } catch (DigestInvalidException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Failed to complete upload session {}", sessionId, e);
+            throw new BlobUploadInvalidException("Failed to store spooled upload: " + e.getMessage());
+        } finally {
+            activeSessions.remove(sessionId);
+            cleanupSessionData(session);
+        }
+    }
+
+    /**
+     * Close a session whose blob was delivered in a single request, without assembling chunks
+     */
+    public void releaseSession(UUID sessionId) {
+        UploadSession session = getSession(sessionId);
+        activeSessions.remove(sessionId);
+        cleanupSessionData(session);
+    }
+
     /**
      * Cancel an upload session
      */
@@ -153,12 +482,9 @@ public class UploadSessionService {
         UploadSession session = getSession(sessionId);
         
         activeSessions.remove(sessionId);
-        cleanupSessionData(sessionId);
+        cleanupSessionData(session);
 
-        MDC.put("session_id", sessionId.toString());
-        MDC.put("repository", session.getRepository());
-        logger.info("Cancelled upload session");
-        MDC.clear();
+        UPLOAD_CANCELLED.log(sessionId, session.getRepository());
     }
 
     /**
@@ -168,8 +494,11 @@ public class UploadSessionService {
         long totalSize = session.getTotalUploadedBytes();
         byte[] result = new byte[(int) totalSize];
         
+        List<ByteRange> ranges = new ArrayList<>(session.getUploadedRanges());
+        ranges.sort(Comparator.comparingLong(ByteRange::start));
+        
         int offset = 0;
-        for (ByteRange range : session.getUploadedRanges()) {
+        for (ByteRange range : ranges) {
             String chunkKey = S3KeyGenerator.uploadChunkKey(session.getSessionId().toString(), range.start(), range.end());
             try (InputStream chunkStream = storage.getObject(chunkKey)) {
                 byte[] chunkData = chunkStream.readAllBytes();
@@ -184,9 +513,26 @@ public class UploadSessionService {
     }
 
     /**
-     * Delete all chunk data for a session
+     * Delete all chunk data for a session and close its running digest
      */
-    private void cleanupSessionData(UUID sessionId) {
+    private void cleanupSessionData(UploadSession session) {
+        UUID sessionId = session.getSessionId();
+        MultiDigest digest = session.getSpoolDigest();
+        if (digest != null) {
+            // A chunk hashed inline is not under the digest's lock, so its instances are
+            // dropped rather than pooled where another session could pick them up mid-update
+            digest.discard();
+        }
+        PendingChunk pending = pendingChunks.remove(sessionId);
+        if (pending != null) {
+            synchronized (pending) {
+                pending.clear();
+            }
+        }
+        if (uploadSpool.isEnabled()) {
+            uploadSpool.delete(sessionId);
+            return;
+        }
         String prefix = "uploads/" + sessionId + "/";
         storage.listObjects(prefix).forEach(key -> {
             storage.deleteObject(key);
@@ -195,18 +541,44 @@ public class UploadSessionService {
     }
 
     /**
-     * Clean up expired sessions (should be called periodically)
+     * Clean up sessions idle for longer than the session timeout, releasing their
+     * pending chunk data, spool files and running digests
      */
+    @Scheduled(fixedDelayString = "${jreg.upload.expiry-interval:PT5M}")
     public void cleanupExpiredSessions() {
         Instant now = Instant.now();
         activeSessions.entrySet().removeIf(entry -> {
             UploadSession session = entry.getValue();
-            if (Duration.between(session.getLastActivityAt(), now).compareTo(SESSION_TIMEOUT) > 0) {
-                cleanupSessionData(entry.getKey());
+            if (Duration.between(session.getLastActivityAt(), now).compareTo(sessionTimeout) > 0) {
+                cleanupSessionData(session);
                 logger.info("Cleaned up expired session: {}", entry.getKey());
                 return true;
             }
             return false;
         });
     }
+
+    /**
+     * Chunk data held on the heap until enough has arrived for one efficient storage write
+     */
+    private static final class PendingChunk {
+        private static final byte[] EMPTY = new byte[0];
+
+        private long start;
+        private byte[] data = EMPTY;
+        private int size;
+
+        void append(PooledBuffers segment) {
+            int needed = size + (int) segment.size();
+            if (needed > data.length) {
+                data = Arrays.copyOf(data, Math.max(needed, data.length * 2));
+            }
+            size += segment.copyTo(data, size);
+        }
+
+        void clear() {
+            data = EMPTY;
+            size = 0;
+        }
+    }
 }
@@ -5,7 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jreg.exception.ManifestInvalidException;
 import com.jreg.exception.NameInvalidException;
 import com.jreg.model.Digest;
-import com.jreg.util.DigestCalculator;
+import com.jreg.util.DigestEngine;
 import com.jreg.util.RegexValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -86,8 +86,15 @@ public class ValidationService {
 
         // Verify digest matches content
         if (providedDigest != null) {
-            Digest calculatedDigest = DigestCalculator.calculateSha256(manifestBytes);
-            if (!calculatedDigest.toString().equals(providedDigest)) {
+            Digest expected;
+            try {
+                expected = Digest.parse(providedDigest);
+            } catch (IllegalArgumentException e) {
+                throw new ManifestInvalidException("Invalid digest: " + providedDigest, e);
+            }
+            // Hash in the provided digest's algorithm, so sha512 references verify as sha512
+            Digest calculatedDigest = DigestEngine.digest(expected.algorithm(), manifestBytes);
+            if (!calculatedDigest.equals(expected)) {
                 throw new ManifestInvalidException(
                     "Digest mismatch: provided " + providedDigest + 
                     " but calculated " + calculatedDigest);
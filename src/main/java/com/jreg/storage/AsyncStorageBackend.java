@@ -0,0 +1,84 @@
+package com.jreg.storage;
+
+import com.jreg.storage.StorageBackend.ListObjectsResult;
+import com.jreg.storage.StorageBackend.ObjectInfo;
+import org.reactivestreams.Publisher;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link StorageBackend}.
+ * Every call returns immediately; results complete on the backend's I/O threads,
+ * so callers can issue many storage requests at once without holding a thread per request.
+ * Missing objects complete with an empty {@link Optional} rather than an exception.
+ */
+public interface AsyncStorageBackend {
+
+    /**
+     * Read a small object (manifest, index) fully into memory
+     */
+    CompletableFuture<Optional<StoredObject>> getObjectBytes(String key);
+
+    /**
+     * Open an object as a stream of buffers. The body must be subscribed to, or the
+     * subscription cancelled, to release the underlying connection.
+     */
+    CompletableFuture<Optional<ObjectContent>> getObject(String key);
+
+    /**
+     * Open a byte range of an object, e.g. {@code bytes=0-1023}
+     */
+    CompletableFuture<Optional<ObjectContent>> getObjectRange(String key, String range);
+
+    /**
+     * Get size, content type and modification time
+     */
+    CompletableFuture<Optional<ObjectInfo>> headObject(String key);
+
+    /**
+     * Check if an object exists
+     */
+    default CompletableFuture<Boolean> objectExists(String key) {
+        return headObject(key).thenApply(Optional::isPresent);
+    }
+
+    /**
+     * Put an object with content
+     */
+    CompletableFuture<Void> putObject(String key, byte[] content, String contentType);
+
+    /**
+     * Put an object whose content arrives as a stream of buffers of known total length
+     */
+    CompletableFuture<Void> putObject(String key, Publisher<ByteBuffer> content, long contentLength, String contentType);
+
+    /**
+     * Put an object only if its content has the given SHA-256. The backend checks the hash
+     * as it commits the object, so a body that does not match is never visible under the key.
+     * Completes with false on a mismatch.
+     */
+    CompletableFuture<Boolean> putObjectVerified(String key, Publisher<ByteBuffer> content, long contentLength,
+                                                 String contentType, byte[] sha256);
+
+    /**
+     * Delete an object
+     */
+    CompletableFuture<Void> deleteObject(String key);
+
+    /**
+     * List objects with prefix and pagination
+     */
+    CompletableFuture<ListObjectsResult> listObjects(String prefix, int maxKeys, String startAfter);
+
+    /**
+     * An object read fully into memory
+     */
+    record StoredObject(byte[] content, ObjectInfo info) {}
+
+    /**
+     * An object's attributes and its content as a stream of buffers
+     */
+    record ObjectContent(ObjectInfo info, Publisher<ByteBuffer> body) {}
+}
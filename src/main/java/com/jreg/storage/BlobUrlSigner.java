@@ -0,0 +1,21 @@
+package com.jreg.storage;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Issues short-lived URLs that let clients fetch an object directly from storage.
+ */
+public interface BlobUrlSigner {
+    
+    /**
+     * Create a URL granting GET access to the object for the given duration
+     */
+    PresignedUrl presignGet(String key, Duration ttl);
+    
+    /**
+     * A signed URL and the instant it stops being valid
+     */
+    record PresignedUrl(URI url, Instant expiresAt) {}
+}
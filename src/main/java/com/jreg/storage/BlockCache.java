@@ -0,0 +1,340 @@
+package com.jreg.storage;
+
+import com.jreg.model.ByteRange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fixed-size block cache for ranged reads of immutable objects.
+ * Objects are split into aligned blocks keyed by object key and block index. Blocks are
+ * kept in an in-memory LRU tier, optionally backed by a local disk tier; missing blocks
+ * are fetched with aligned range GETs, consecutive misses sharing one request.
+ */
+@Component
+public class BlockCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockCache.class);
+
+    private final StorageBackend storage;
+    private final boolean enabled;
+    private final int blockSize;
+    private final long maxCachedRange;
+    private final MemoryTier memory;
+    private final DiskTier disk;
+    private final Map<BlockKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+
+    public BlockCache(StorageBackend storage,
+                      @Value("${jreg.blob.block-cache.enabled:false}") boolean enabled,
+                      @Value("${jreg.blob.block-cache.block-size:1MB}") DataSize blockSize,
+                      @Value("${jreg.blob.block-cache.memory-capacity:256MB}") DataSize memoryCapacity,
+                      @Value("${jreg.blob.block-cache.disk-directory:}") String diskDirectory,
+                      @Value("${jreg.blob.block-cache.disk-capacity:4GB}") DataSize diskCapacity,
+                      @Value("${jreg.blob.block-cache.max-cached-range:16MB}") DataSize maxCachedRange,
+                      MeterRegistry meterRegistry) {
+        this.storage = storage;
+        this.enabled = enabled;
+        this.blockSize = (int) blockSize.toBytes();
+        this.maxCachedRange = maxCachedRange.toBytes();
+        this.memory = new MemoryTier(memoryCapacity.toBytes());
+        this.disk = enabled && !diskDirectory.isBlank()
+                ? new DiskTier(Paths.get(diskDirectory), diskCapacity.toBytes()) : null;
+
+        this.memoryHits = requestCounter(meterRegistry, "memory");
+        this.diskHits = requestCounter(meterRegistry, "disk");
+        this.misses = requestCounter(meterRegistry, "miss");
+        Gauge.builder("jreg.blob.block.cache.hit.ratio", this, BlockCache::hitRatio)
+                .description("Fraction of block lookups served from memory or disk")
+                .register(meterRegistry);
+        Gauge.builder("jreg.blob.block.cache.memory.bytes", memory, MemoryTier::size)
+                .description("Bytes held in the in-memory block tier")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        if (enabled) {
+            logger.info("Block cache enabled: {} byte blocks, {} bytes in memory{}", this.blockSize,
+                    memoryCapacity.toBytes(), disk != null ? ", disk tier at " + diskDirectory : "");
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String result) {
+        return Counter.builder("jreg.blob.block.cache.requests")
+                .description("Block lookups by where the block was found")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Whether a range read should go through the cache.
+     * Large ranges are streamed directly so they do not flush hot blocks.
+     */
+    public boolean isCacheable(ByteRange range) {
+        return enabled && range.size() <= maxCachedRange;
+    }
+
+    /**
+     * Read a byte range of an immutable object through the cache
+     */
+    public InputStream read(String key, long objectSize, ByteRange range) {
+        long first = range.start() / blockSize;
+        long last = range.end() / blockSize;
+        byte[][] blocks = getBlocks(key, objectSize, first, last);
+
+        List<InputStream> slices = new ArrayList<>(blocks.length);
+        for (int i = 0; i < blocks.length; i++) {
+            long blockStart = (first + i) * blockSize;
+            int from = (int) Math.max(0, range.start() - blockStart);
+            int to = (int) Math.min(blocks[i].length, range.end() - blockStart + 1);
+            slices.add(new ByteArrayInputStream(blocks[i], from, to - from));
+        }
+        return slices.size() == 1 ? slices.get(0) : new SequenceInputStream(Collections.enumeration(slices));
+    }
+
+    private byte[][] getBlocks(String key, long objectSize, long first, long last) {
+        int count = (int) (last - first + 1);
+        byte[][] blocks = new byte[count][];
+        Map<Integer, CompletableFuture<byte[]>> pending = new LinkedHashMap<>();
+        List<Integer> owned = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            BlockKey blockKey = new BlockKey(key, first + i);
+            blocks[i] = lookup(blockKey);
+            if (blocks[i] != null) {
+                continue;
+            }
+            misses.increment();
+            CompletableFuture<byte[]> fetch = new CompletableFuture<>();
+            CompletableFuture<byte[]> existing = inFlight.putIfAbsent(blockKey, fetch);
+            if (existing != null) {
+                // Another request is already fetching this block
+                pending.put(i, existing);
+            } else {
+                pending.put(i, fetch);
+                owned.add(i);
+            }
+        }
+
+        // Fetch runs of consecutive blocks this request owns with one aligned GET each
+        int runStart = 0;
+        while (runStart < owned.size()) {
+            int runEnd = runStart;
+            while (runEnd + 1 < owned.size() && owned.get(runEnd + 1) == owned.get(runEnd) + 1) {
+                runEnd++;
+            }
+            fetchRun(key, objectSize, first, owned.subList(runStart, runEnd + 1), pending);
+            runStart = runEnd + 1;
+        }
+
+        for (Map.Entry<Integer, CompletableFuture<byte[]>> entry : pending.entrySet()) {
+            try {
+                blocks[entry.getKey()] = entry.getValue().join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return blocks;
+    }
+
+    private byte[] lookup(BlockKey blockKey) {
+        byte[] block = memory.get(blockKey);
+        if (block != null) {
+            memoryHits.increment();
+            return block;
+        }
+        if (disk != null) {
+            block = disk.get(blockKey);
+            if (block != null) {
+                diskHits.increment();
+                memory.put(blockKey, block);
+                return block;
+            }
+        }
+        return null;
+    }
+
+    private void fetchRun(String key, long objectSize, long first, List<Integer> run,
+                          Map<Integer, CompletableFuture<byte[]>> pending) {
+        long firstBlock = first + run.get(0);
+        long start = firstBlock * blockSize;
+        long end = Math.min(objectSize, (first + run.get(run.size() - 1) + 1) * blockSize) - 1;
+        try {
+            byte[] data;
+            try (InputStream in = storage.getObjectRange(key, "bytes=" + start + "-" + end)) {
+                data = in.readAllBytes();
+            }
+            if (data.length != end - start + 1) {
+                throw new IOException("Expected " + (end - start + 1) + " bytes but got " + data.length);
+            }
+            for (int i = 0; i < run.size(); i++) {
+                int from = i * blockSize;
+                byte[] block = Arrays.copyOfRange(data, from, Math.min(data.length, from + blockSize));
+                BlockKey blockKey = new BlockKey(key, firstBlock + i);
+                memory.put(blockKey, block);
+                if (disk != null) {
+                    disk.put(blockKey, block);
+                }
+                pending.get(run.get(i)).complete(block);
+            }
+        } catch (IOException | RuntimeException e) {
+            RuntimeException failure = e instanceof RuntimeException runtime ? runtime
+                    : new RuntimeException("Failed to read blocks of " + key + ": " + e.getMessage(), e);
+            run.forEach(i -> pending.get(i).completeExceptionally(failure));
+        } finally {
+            for (int i = 0; i < run.size(); i++) {
+                inFlight.remove(new BlockKey(key, firstBlock + i));
+            }
+        }
+    }
+
+    private double hitRatio() {
+        double hits = memoryHits.count() + diskHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    /**
+     * Identifies one aligned block of an object
+     */
+    record BlockKey(String key, long index) {}
+
+    /**
+     * In-memory LRU tier bounded by total block bytes
+     */
+    private static final class MemoryTier {
+        private final long capacity;
+        private final LinkedHashMap<BlockKey, byte[]> blocks = new LinkedHashMap<>(256, 0.75f, true);
+        private long size;
+
+        MemoryTier(long capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized byte[] get(BlockKey key) {
+            return blocks.get(key);
+        }
+
+        synchronized void put(BlockKey key, byte[] block) {
+            byte[] previous = blocks.put(key, block);
+            size += block.length - (previous != null ? previous.length : 0);
+            Iterator<byte[]> eldest = blocks.values().iterator();
+            while (size > capacity && eldest.hasNext()) {
+                size -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+
+        synchronized long size() {
+            return size;
+        }
+    }
+
+    /**
+     * Local disk LRU tier; one file per block. Contents do not survive a restart.
+     */
+    private static final class DiskTier {
+        private final Path directory;
+        private final long capacity;
+        private final LinkedHashMap<BlockKey, Integer> index = new LinkedHashMap<>(256, 0.75f, true);
+        private long size;
+
+        DiskTier(Path directory, long capacity) {
+            this.directory = directory;
+            this.capacity = capacity;
+            try {
+                Files.createDirectories(directory);
+                try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, "*.blk")) {
+                    for (Path file : stale) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot prepare block cache directory " + directory, e);
+            }
+        }
+
+        byte[] get(BlockKey key) {
+            synchronized (index) {
+                if (index.get(key) == null) {
+                    return null;
+                }
+            }
+            try {
+                return Files.readAllBytes(pathFor(key));
+            } catch (NoSuchFileException e) {
+                // Evicted between the index check and the read
+                return null;
+            } catch (IOException e) {
+                logger.warn("Failed to read cached block {}: {}", key, e.getMessage());
+                return null;
+            }
+        }
+
+        void put(BlockKey key, byte[] block) {
+            Path file = pathFor(key);
+            try {
+                Path temp = Files.createTempFile(directory, "block", ".tmp");
+                Files.write(temp, block);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.warn("Failed to write cached block {}: {}", key, e.getMessage());
+                return;
+            }
+
+            List<BlockKey> evicted = new ArrayList<>();
+            synchronized (index) {
+                Integer previous = index.put(key, block.length);
+                size += block.length - (previous != null ? previous : 0);
+                Iterator<Map.Entry<BlockKey, Integer>> eldest = index.entrySet().iterator();
+                while (size > capacity && eldest.hasNext()) {
+                    Map.Entry<BlockKey, Integer> entry = eldest.next();
+                    size -= entry.getValue();
+                    evicted.add(entry.getKey());
+                    eldest.remove();
+                }
+            }
+            for (BlockKey old : evicted) {
+                try {
+                    Files.deleteIfExists(pathFor(old));
+                } catch (IOException e) {
+                    logger.warn("Failed to delete cached block {}: {}", old, e.getMessage());
+                }
+            }
+        }
+
+        private Path pathFor(BlockKey key) {
+            return directory.resolve(key.key().replace('/', '_') + "." + key.index() + ".blk");
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.jreg.storage;
+
+import org.apache.catalina.connector.CoyoteInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of fixed-size direct buffers used to move request bodies into
+ * storage or spool files without materializing them on the heap.
+ * Bodies are only read straight into these buffers when the stream reaching
+ * {@link #channelFor} is Tomcat's own request stream, or a wrapper around it that
+ * is a {@link ReadableChannelSource}. A filter that replaces the request stream any
+ * other way sends every body through an extra heap copy.
+ * <p>
+ * At most {@code jreg.ingest.max-direct-memory} is handed out at once, across all
+ * uploads and downloads. Once it is in use, {@link #acquire()} waits for a buffer to
+ * be released and fails after {@code jreg.ingest.acquire-timeout}. Callers that fill
+ * several buffers, like {@link PooledBuffers#read}, {@link #reserve} them all at once, so
+ * no caller waits for more budget while holding part of what it needs.
+ */
+@Component
+public class DirectBufferPool {
+
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> pool;
+    private final Semaphore budget;
+    private final int maxBuffers;
+    private final Duration acquireTimeout;
+
+    public DirectBufferPool(@Value("${jreg.ingest.buffer-size:256KB}") DataSize bufferSize,
+                            @Value("${jreg.ingest.max-pooled-buffers:64}") int maxPooledBuffers,
+                            @Value("${jreg.ingest.max-direct-memory:256MB}") DataSize maxDirectMemory,
+                            @Value("${jreg.ingest.acquire-timeout:30s}") Duration acquireTimeout) {
+        this.bufferSize = (int) bufferSize.toBytes();
+        this.pool = new ArrayBlockingQueue<>(maxPooledBuffers);
+        this.maxBuffers = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxDirectMemory.toBytes() / this.bufferSize));
+        // Fair, so a caller reserving many buffers is not starved by single acquires
+        this.budget = new Semaphore(maxBuffers, true);
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Size of each buffer in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Number of buffers that can still be acquired without waiting
+     */
+    public int getAvailableBuffers() {
+        return budget.availablePermits();
+    }
+
+    /**
+     * Take a cleared buffer from the pool, allocating one if the pool is empty.
+     * Waits while the direct memory budget is in use.
+     *
+     * @throws IllegalStateException if no buffer is released within the acquire timeout
+     */
+    public ByteBuffer acquire() {
+        reserve(1);
+        return take();
+    }
+
+    /**
+     * Reserve budget for {@code count} buffers in one step, waiting while it is in use.
+     * A count above the whole budget is capped to it. Buffers are then taken with
+     * {@link #take()}; reserved budget left untaken must be given back with {@link #unreserve}.
+     *
+     * @return the number of buffers reserved
+     * @throws IllegalStateException if the budget does not free up within the acquire timeout
+     */
+    public int reserve(int count) {
+        int reserved = Math.min(count, maxBuffers);
+        if (reserved <= 0) {
+            return 0;
+        }
+        try {
+            if (!budget.tryAcquire(reserved, acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Direct buffer budget exhausted, no buffer released within "
+                        + acquireTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a direct buffer", e);
+        }
+        return reserved;
+    }
+
+    /**
+     * Take a cleared buffer against budget already {@link #reserve reserved}
+     */
+    public ByteBuffer take() {
+        ByteBuffer buffer = pool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Give back reserved budget for buffers that were not taken
+     */
+    public void unreserve(int count) {
+        if (count > 0) {
+            budget.release(count);
+        }
+    }
+
+    /**
+     * Return a buffer taken with {@link #acquire()}, exactly once; buffers beyond the
+     * pool capacity are dropped
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect() && buffer.capacity() == bufferSize) {
+            buffer.clear();
+            pool.offer(buffer);
+            budget.release();
+        }
+    }
+
+    /**
+     * Adapt a request body stream to a channel. Tomcat's request stream reads
+     * straight into the target buffer, also through wrappers that are a
+     * {@link ReadableChannelSource}; other streams go through {@link Channels}.
+     */
+    public static ReadableByteChannel channelFor(InputStream in) {
+        if (in instanceof ReadableChannelSource source) {
+            return source.channel();
+        }
+        if (in instanceof CoyoteInputStream coyote) {
+            return new ReadableByteChannel() {
+                private boolean open = true;
+
+                @Override
+                public int read(ByteBuffer dst) throws IOException {
+                    return coyote.read(dst);
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return open;
+                }
+
+                @Override
+                public void close() {
+                    open = false;
+                }
+            };
+        }
+        return Channels.newChannel(in);
+    }
+
+    /**
+     * Fill the buffer from the channel until it is full or the channel is exhausted.
+     *
+     * @return false once the end of the stream has been reached
+     */
+    public static boolean fill(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
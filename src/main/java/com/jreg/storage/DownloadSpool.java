@@ -0,0 +1,133 @@
+package com.jreg.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Decouples slow download clients from storage connections.
+ * Large objects are drained from storage into a local spool file as fast as storage
+ * can send them, and the client is served from the file, so the storage connection
+ * returns to the pool long before a slow client has finished. Disk usage is capped;
+ * downloads that do not fit are streamed directly as before.
+ */
+@Component
+public class DownloadSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadSpool.class);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long threshold;
+    private final long maxDiskUsage;
+    private final DirectBufferPool bufferPool;
+    private final ExecutorService executor;
+    private final AtomicLong reserved = new AtomicLong();
+
+    public DownloadSpool(@Value("${jreg.blob.download-spool.enabled:false}") boolean enabled,
+                         @Value("${jreg.blob.download-spool.directory:${java.io.tmpdir}/jreg-downloads}") String directory,
+                         @Value("${jreg.blob.download-spool.threshold:32MB}") DataSize threshold,
+                         @Value("${jreg.blob.download-spool.max-disk-usage:10GB}") DataSize maxDiskUsage,
+                         DirectBufferPool bufferPool,
+                         @Qualifier("downloadSpoolExecutor") ExecutorService executor,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.threshold = threshold.toBytes();
+        this.maxDiskUsage = maxDiskUsage.toBytes();
+        this.bufferPool = bufferPool;
+        this.executor = executor;
+
+        Gauge.builder("jreg.blob.download.spool.bytes", reserved, AtomicLong::get)
+                .description("Disk space held by spooled downloads")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        if (enabled) {
+            logger.info("Spooling downloads of {} bytes or more to {}", this.threshold, this.directory);
+        }
+    }
+
+    /**
+     * Serve an object of known size from a local spool, draining {@code source} in the background.
+     * Empty when spooling is off, the object is below the threshold, or the disk budget is spent;
+     * the caller then streams from storage directly.
+     */
+    public Optional<InputStream> open(String key, long size, Supplier<InputStream> source) {
+        if (!enabled || size < threshold || !reserve(size)) {
+            return Optional.empty();
+        }
+
+        SpoolFile spool;
+        try {
+            spool = SpoolFile.create(directory, "download-", () -> reserved.addAndGet(-size));
+        } catch (RuntimeException e) {
+            reserved.addAndGet(-size);
+            throw e;
+        }
+        InputStream reader = spool.openReader();
+        executor.execute(() -> drain(key, size, spool, source));
+        return Optional.of(reader);
+    }
+
+    private boolean reserve(long size) {
+        long current;
+        do {
+            current = reserved.get();
+            if (current + size > maxDiskUsage) {
+                logger.debug("Download spool full ({} of {} bytes), streaming directly", current, maxDiskUsage);
+                return false;
+            }
+        } while (!reserved.compareAndSet(current, current + size));
+        return true;
+    }
+
+    /**
+     * Copy the object into the spool. Stops early once every client has gone away;
+     * closing the storage stream before its end aborts the connection.
+     */
+    private void drain(String key, long size, SpoolFile spool, Supplier<InputStream> source) {
+        try (spool; InputStream content = new FilterInputStream(source.get()) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (!spool.hasReaders()) {
+                    throw new AbandonedException();
+                }
+                return super.read(b, off, len);
+            }
+        }) {
+            long written = spool.fill(content, bufferPool, null);
+            if (written != size) {
+                throw new IOException("Expected " + size + " bytes of " + key + " but storage sent " + written);
+            }
+            spool.complete();
+            logger.debug("Spooled {} ({} bytes)", key, written);
+        } catch (AbandonedException e) {
+            logger.debug("Stopped spooling {}: client went away", key);
+        } catch (IOException | RuntimeException e) {
+            spool.fail(e);
+            logger.warn("Failed to spool download of {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static final class AbandonedException extends IOException {
+        AbandonedException() {
+            super("No readers left");
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.jreg.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Uploads local files and request streams to the storage backend, splitting
+ * large content into multipart parts that are sent concurrently.
+ */
+@Component
+public class ParallelPartUploader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelPartUploader.class);
+
+    private final StorageBackend storage;
+    private final DirectBufferPool bufferPool;
+    private final ExecutorService executor;
+    private final long partSize;
+    private final int parallelism;
+
+    public ParallelPartUploader(StorageBackend storage,
+                                DirectBufferPool bufferPool,
+                                @Qualifier("storageTransferExecutor") ExecutorService executor,
+                                @Value("${jreg.storage.part-size:8MB}") DataSize partSize,
+                                @Value("${jreg.storage.upload-parallelism:4}") int parallelism) {
+        this.storage = storage;
+        this.bufferPool = bufferPool;
+        this.executor = executor;
+        this.partSize = partSize.toBytes();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Size of each multipart part in bytes
+     */
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Upload {@code size} bytes of a local file to the given key.
+     * Files no larger than one part are sent with a single PUT.
+     */
+    public void uploadFile(String key, Path file, long size, String contentType) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (size <= partSize) {
+                storage.putObject(key, new FileRegionInputStream(channel, 0, size), size, contentType);
+                return;
+            }
+            uploadParts(key, channel, size, contentType);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read upload file " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void uploadParts(String key, FileChannel channel, long size, String contentType) {
+        String uploadId = storage.createMultipartUpload(key, contentType);
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        Semaphore permits = new Semaphore(parallelism);
+        List<Future<String>> parts = new ArrayList<>(partCount);
+
+        try {
+            for (int i = 0; i < partCount; i++) {
+                int partNumber = i + 1;
+                long offset = i * partSize;
+                long length = Math.min(partSize, size - offset);
+
+                permits.acquire();
+                parts.add(executor.submit(() -> {
+                    try {
+                        return storage.uploadPart(key, uploadId, partNumber,
+                                new FileRegionInputStream(channel, offset, length), length);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            List<String> eTags = new ArrayList<>(partCount);
+            for (Future<String> part : parts) {
+                eTags.add(part.get());
+            }
+            storage.completeMultipartUpload(key, uploadId, eTags);
+            logger.debug("Uploaded {} in {} parts", key, partCount);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(key, uploadId, parts);
+            throw new RuntimeException("Interrupted while uploading " + key, e);
+        } catch (ExecutionException | RuntimeException e) {
+            abort(key, uploadId, parts);
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            throw new RuntimeException("Failed to upload " + key + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Stream content of unknown length to the given key, hashing every byte into {@code digest}.
+     * Content that fits in one part is sent with a single PUT; larger content is cut into parts
+     * that are uploaded concurrently while the stream is still being read.
+     * {@code beforeCommit} runs once the stream is exhausted and before the object becomes
+     * visible; throwing from it discards the upload.
+     *
+     * @return number of bytes stored
+     */
+    public long uploadStream(String key, InputStream content, String contentType,
+                             MessageDigest digest, Runnable beforeCommit) {
+        ReadableByteChannel source = DirectBufferPool.channelFor(content);
+        PooledBuffers segment = readSegment(source, digest);
+
+        if (segment.isEndOfStream()) {
+            try (PooledBuffers single = segment) {
+                beforeCommit.run();
+                storage.putObject(key, single.asInputStream(), single.size(), contentType);
+                return single.size();
+            }
+        }
+
+        String uploadId = storage.createMultipartUpload(key, contentType);
+        Semaphore permits = new Semaphore(parallelism);
+        List<Future<String>> parts = new ArrayList<>();
+        List<QueuedPart> queued = new ArrayList<>();
+        long size = 0;
+
+        try {
+            permits.acquire();
+            while (true) {
+                boolean last = segment.isEndOfStream();
+                if (segment.size() > 0) {
+                    QueuedPart part = new QueuedPart(segment);
+                    int partNumber = parts.size() + 1;
+                    size += part.segment.size();
+                    queued.add(part);
+                    parts.add(executor.submit(() -> {
+                        if (!part.claim()) {
+                            return null;
+                        }
+                        try (PooledBuffers buffers = part.segment) {
+                            return storage.uploadPart(key, uploadId, partNumber, buffers.asInputStream(),
+                                    buffers.size());
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                } else {
+                    segment.close();
+                    permits.release();
+                }
+                segment = null;
+                if (last) {
+                    break;
+                }
+                permits.acquire();
+                segment = readSegment(source, digest);
+            }
+
+            beforeCommit.run();
+
+            List<String> eTags = new ArrayList<>(parts.size());
+            for (Future<String> part : parts) {
+                eTags.add(part.get());
+            }
+            storage.completeMultipartUpload(key, uploadId, eTags);
+            logger.debug("Streamed {} in {} parts ({} bytes)", key, parts.size(), size);
+            return size;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closeQuietly(segment);
+            abort(key, uploadId, parts);
+            releaseUnstarted(queued);
+            throw new RuntimeException("Interrupted while uploading " + key, e);
+        } catch (ExecutionException e) {
+            closeQuietly(segment);
+            abort(key, uploadId, parts);
+            releaseUnstarted(queued);
+            throw new RuntimeException("Failed to upload " + key + ": " + e.getCause().getMessage(), e.getCause());
+        } catch (RuntimeException e) {
+            closeQuietly(segment);
+            abort(key, uploadId, parts);
+            releaseUnstarted(queued);
+            throw e;
+        }
+    }
+
+    private PooledBuffers readSegment(ReadableByteChannel source, MessageDigest digest) {
+        try {
+            PooledBuffers segment = PooledBuffers.read(bufferPool, source, partSize);
+            segment.update(digest);
+            return segment;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read upload body: " + e.getMessage(), e);
+        }
+    }
+
+    private static void closeQuietly(PooledBuffers segment) {
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Close the segments of parts whose task was cancelled before it started;
+     * a cancelled task that is still queued never runs, so nothing else would
+     */
+    private static void releaseUnstarted(List<QueuedPart> queued) {
+        for (QueuedPart part : queued) {
+            if (part.claim()) {
+                part.segment.close();
+            }
+        }
+    }
+
+    private void abort(String key, String uploadId, List<Future<String>> parts) {
+        parts.forEach(part -> part.cancel(true));
+        try {
+            storage.abortMultipartUpload(key, uploadId);
+        } catch (Exception e) {
+            logger.warn("Failed to abort multipart upload for {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * A segment handed to a part task. Whichever of the task and the abort path
+     * claims it first closes it.
+     */
+    private static final class QueuedPart {
+        private final PooledBuffers segment;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        QueuedPart(PooledBuffers segment) {
+            this.segment = segment;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Reads a fixed region of a file with positional reads, so several
+     * streams can share one channel concurrently.
+     */
+    static class FileRegionInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        FileRegionInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int toRead = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.jreg.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads an object as concurrent range requests and reassembles the segments in order.
+ * At most {@code parallelism} segments are in flight or buffered at once, which bounds
+ * memory to parallelism x segment size. Parallelism starts low and widens while the
+ * reader keeps waiting on the network, and narrows again when segments pile up unread.
+ */
+public class ParallelRangeInputStream extends InputStream {
+
+    /**
+     * Opens a stream over bytes [start, end] of the object
+     */
+    @FunctionalInterface
+    public interface RangeReader {
+        InputStream read(long start, long end);
+    }
+
+    private static final int INITIAL_PARALLELISM = 2;
+
+    private final RangeReader reader;
+    private final long size;
+    private final ExecutorService executor;
+    private final DirectBufferPool bufferPool;
+    private final long segmentSize;
+    private final int maxParallelism;
+    private final Deque<Future<PooledBuffers>> segments = new ArrayDeque<>();
+    private final Set<InputStream> openRanges = ConcurrentHashMap.newKeySet();
+    private int parallelism;
+    private long nextOffset;
+    private PooledBuffers current;
+    private InputStream currentStream;
+    private volatile boolean closed;
+
+    public ParallelRangeInputStream(RangeReader reader, long size, ExecutorService executor,
+                                    DirectBufferPool bufferPool, long segmentSize, int maxParallelism) {
+        this.reader = reader;
+        this.size = size;
+        this.executor = executor;
+        this.bufferPool = bufferPool;
+        this.segmentSize = segmentSize;
+        this.maxParallelism = Math.max(1, maxParallelism);
+        this.parallelism = Math.min(INITIAL_PARALLELISM, this.maxParallelism);
+        schedule();
+    }
+
+    /**
+     * Current number of concurrent segment requests
+     */
+    int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (currentStream == null || currentStream.available() == 0) {
+            if (!advance()) {
+                return -1;
+            }
+        }
+        return currentStream.read(b, off, len);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return currentStream != null ? currentStream.available() : 0;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        releaseCurrent();
+        for (Future<PooledBuffers> segment : segments) {
+            if (!segment.cancel(true) && segment.isDone()) {
+                try {
+                    segment.get().close();
+                } catch (ExecutionException | CancellationException | InterruptedException ignored) {
+                    // Failed or cancelled segments hold no buffers
+                }
+            }
+        }
+        segments.clear();
+        // Interrupts do not stop blocking socket reads; closing the range streams aborts them
+        for (InputStream range : openRanges) {
+            try {
+                range.close();
+            } catch (IOException ignored) {
+                // The fetch sees the failure and discards its buffers
+            }
+        }
+    }
+
+    private boolean advance() throws IOException {
+        releaseCurrent();
+        Future<PooledBuffers> next = segments.poll();
+        if (next == null) {
+            return false;
+        }
+        adapt(next);
+        try {
+            current = next.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for object segment");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException io ? io
+                    : new IOException("Failed to fetch object segment: " + cause.getMessage(), cause);
+        }
+        currentStream = current.asInputStream();
+        schedule();
+        return true;
+    }
+
+    /**
+     * Widen when the reader has to wait for the next segment; narrow when
+     * the segments after it have also arrived and are sitting unread.
+     */
+    private void adapt(Future<PooledBuffers> next) {
+        if (!next.isDone()) {
+            if (parallelism < maxParallelism) {
+                parallelism++;
+            }
+            return;
+        }
+        Iterator<Future<PooledBuffers>> ahead = segments.iterator();
+        if (parallelism > INITIAL_PARALLELISM && ahead.hasNext() && ahead.next().isDone()) {
+            parallelism--;
+        }
+    }
+
+    private void schedule() {
+        while (segments.size() < parallelism && nextOffset < size) {
+            long start = nextOffset;
+            long end = Math.min(size, start + segmentSize) - 1;
+            segments.add(executor.submit(() -> fetch(start, end)));
+            nextOffset = end + 1;
+        }
+    }
+
+    private PooledBuffers fetch(long start, long end) throws IOException {
+        long expected = end - start + 1;
+        PooledBuffers data;
+        InputStream in = reader.read(start, end);
+        openRanges.add(in);
+        try (in) {
+            if (closed) {
+                throw new CancellationException("Stream closed");
+            }
+            data = PooledBuffers.read(bufferPool, DirectBufferPool.channelFor(in), expected);
+        } finally {
+            openRanges.remove(in);
+        }
+        if (closed) {
+            data.close();
+            throw new CancellationException("Stream closed");
+        }
+        if (data.size() != expected) {
+            data.close();
+            throw new IOException("Expected " + expected + " bytes at offset " + start + " but got " + data.size());
+        }
+        return data;
+    }
+
+    private void releaseCurrent() {
+        if (current != null) {
+            current.close();
+            current = null;
+            currentStream = null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.jreg.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bounded run of bytes held in pooled direct buffers.
+ * Buffers go back to the pool on {@link #close()}.
+ */
+public class PooledBuffers implements AutoCloseable {
+
+    private final DirectBufferPool pool;
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private long size;
+    private boolean endOfStream;
+
+    private PooledBuffers(DirectBufferPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Read up to {@code maxBytes} from the channel into pooled buffers. The budget for the
+     * whole run is reserved before reading, and what the body did not need is given back.
+     */
+    public static PooledBuffers read(DirectBufferPool pool, ReadableByteChannel channel, long maxBytes)
+            throws IOException {
+        int bufferSize = pool.getBufferSize();
+        int reserved = pool.reserve((int) Math.min(Integer.MAX_VALUE, (maxBytes + bufferSize - 1) / bufferSize));
+        int taken = 0;
+        PooledBuffers result = new PooledBuffers(pool);
+        try {
+            while (result.size < maxBytes && !result.endOfStream && taken < reserved) {
+                ByteBuffer buffer = pool.take();
+                taken++;
+                result.buffers.add(buffer);
+                long remaining = maxBytes - result.size;
+                if (remaining < buffer.capacity()) {
+                    buffer.limit((int) remaining);
+                }
+                result.endOfStream = !DirectBufferPool.fill(channel, buffer);
+                buffer.flip();
+                if (buffer.hasRemaining()) {
+                    result.size += buffer.remaining();
+                } else {
+                    result.buffers.remove(result.buffers.size() - 1);
+                    pool.release(buffer);
+                }
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            result.close();
+            throw e;
+        } finally {
+            pool.unreserve(reserved - taken);
+        }
+    }
+
+    /**
+     * Number of bytes held
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Whether the source channel was exhausted while reading
+     */
+    public boolean isEndOfStream() {
+        return endOfStream;
+    }
+
+    /**
+     * Move the buffers of {@code other} to the end of this run, leaving {@code other} empty
+     */
+    public void append(PooledBuffers other) {
+        buffers.addAll(other.buffers);
+        size += other.size;
+        other.buffers.clear();
+        other.size = 0;
+    }
+
+    /**
+     * Feed the held bytes into a message digest
+     */
+    public void update(MessageDigest digest) {
+        for (ByteBuffer buffer : buffers) {
+            digest.update(buffer.duplicate());
+        }
+    }
+
+    /**
+     * Copy the held bytes into {@code target} at {@code offset}
+     *
+     * @return number of bytes copied
+     */
+    public int copyTo(byte[] target, int offset) {
+        int position = offset;
+        for (ByteBuffer buffer : buffers) {
+            ByteBuffer view = buffer.duplicate();
+            int length = view.remaining();
+            view.get(target, position, length);
+            position += length;
+        }
+        return position - offset;
+    }
+
+    /**
+     * Stream the held bytes without consuming the underlying buffers
+     */
+    public InputStream asInputStream() {
+        List<ByteBuffer> views = new ArrayList<>(buffers.size());
+        for (ByteBuffer buffer : buffers) {
+            views.add(buffer.duplicate());
+        }
+        return new InputStream() {
+            private int index;
+
+            @Override
+            public int read() {
+                ByteBuffer current = current();
+                return current == null ? -1 : current.get() & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                ByteBuffer current = current();
+                if (current == null) {
+                    return -1;
+                }
+                int n = Math.min(len, current.remaining());
+                current.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() {
+                ByteBuffer current = current();
+                return current == null ? 0 : current.remaining();
+            }
+
+            private ByteBuffer current() {
+                while (index < views.size() && !views.get(index).hasRemaining()) {
+                    index++;
+                }
+                return index < views.size() ? views.get(index) : null;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        buffers.forEach(pool::release);
+        buffers.clear();
+    }
+}
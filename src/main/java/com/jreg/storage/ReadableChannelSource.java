@@ -0,0 +1,17 @@
+package com.jreg.storage;
+
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A body stream that wraps another, such as the container's request stream, and can
+ * hand out a channel over the same bytes. {@link DirectBufferPool#channelFor} reads
+ * through that channel, so a wrapper does not force bodies through a heap copy.
+ */
+public interface ReadableChannelSource {
+
+    /**
+     * A channel reading the stream's remaining bytes, which must not be read through
+     * both the stream and the channel
+     */
+    ReadableByteChannel channel();
+}
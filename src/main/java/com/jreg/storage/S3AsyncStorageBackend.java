@@ -0,0 +1,181 @@
+package com.jreg.storage;
+
+import com.jreg.storage.StorageBackend.ListObjectsResult;
+import com.jreg.storage.StorageBackend.ObjectInfo;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * S3 implementation of the async storage backend, on the Netty-based {@link S3AsyncClient}.
+ * Requests are multiplexed over a fixed set of event-loop threads.
+ * Only the reactive controllers read through it, so it is not created on the servlet stack.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class S3AsyncStorageBackend implements AsyncStorageBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3AsyncStorageBackend.class);
+
+    private final S3AsyncClient s3AsyncClient;
+    private final String bucketName;
+
+    public S3AsyncStorageBackend(S3AsyncClient s3AsyncClient, String s3BucketName) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.bucketName = s3BucketName;
+    }
+
+    @Override
+    public CompletableFuture<Optional<StoredObject>> getObjectBytes(String key) {
+        logger.debug("Getting object asynchronously: {}", key);
+        return emptyIfMissing(s3AsyncClient.getObject(
+                GetObjectRequest.builder().bucket(bucketName).key(key).build(),
+                AsyncResponseTransformer.toBytes()
+        ).thenApply(bytes -> new StoredObject(bytes.asByteArrayUnsafe(), info(bytes.response()))));
+    }
+
+    @Override
+    public CompletableFuture<Optional<ObjectContent>> getObject(String key) {
+        logger.debug("Opening object asynchronously: {}", key);
+        return openObject(GetObjectRequest.builder().bucket(bucketName).key(key).build());
+    }
+
+    @Override
+    public CompletableFuture<Optional<ObjectContent>> getObjectRange(String key, String range) {
+        logger.debug("Opening object range asynchronously: {} range={}", key, range);
+        return openObject(GetObjectRequest.builder().bucket(bucketName).key(key).range(range).build());
+    }
+
+    private CompletableFuture<Optional<ObjectContent>> openObject(GetObjectRequest request) {
+        return emptyIfMissing(s3AsyncClient.getObject(request, AsyncResponseTransformer.toPublisher())
+                .thenApply(publisher -> new ObjectContent(info(publisher.response()), publisher)));
+    }
+
+    @Override
+    public CompletableFuture<Optional<ObjectInfo>> headObject(String key) {
+        return emptyIfMissing(s3AsyncClient.headObject(
+                HeadObjectRequest.builder().bucket(bucketName).key(key).build()
+        ).thenApply(response -> new ObjectInfo(response.contentLength(), response.contentType(), response.lastModified())));
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, byte[] content, String contentType) {
+        logger.debug("Putting object asynchronously: {} size={}", key, content.length);
+        return s3AsyncClient.putObject(
+                PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentLength((long) content.length)
+                        .build(),
+                AsyncRequestBody.fromBytes(content)
+        ).thenApply(response -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, Publisher<ByteBuffer> content, long contentLength,
+                                             String contentType) {
+        logger.debug("Putting object asynchronously: {} size={}", key, contentLength);
+        return s3AsyncClient.putObject(
+                PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentLength(contentLength)
+                        .build(),
+                AsyncRequestBody.fromPublisher(content)
+        ).thenApply(response -> null);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putObjectVerified(String key, Publisher<ByteBuffer> content, long contentLength,
+                                                        String contentType, byte[] sha256) {
+        logger.debug("Putting verified object asynchronously: {} size={}", key, contentLength);
+        // S3 rejects the PUT with BadDigest if the body does not hash to x-amz-checksum-sha256
+        return s3AsyncClient.putObject(
+                PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentLength(contentLength)
+                        .checksumSHA256(Base64.getEncoder().encodeToString(sha256))
+                        .build(),
+                AsyncRequestBody.fromPublisher(content)
+        ).handle((response, error) -> {
+            if (error == null) {
+                return true;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof S3Exception s3Error && s3Error.awsErrorDetails() != null
+                    && "BadDigest".equals(s3Error.awsErrorDetails().errorCode())) {
+                return false;
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteObject(String key) {
+        logger.debug("Deleting object asynchronously: {}", key);
+        return s3AsyncClient.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(key).build())
+                .thenApply(response -> null);
+    }
+
+    @Override
+    public CompletableFuture<ListObjectsResult> listObjects(String prefix, int maxKeys, String startAfter) {
+        ListObjectsV2Request.Builder requestBuilder = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .maxKeys(maxKeys);
+
+        if (startAfter != null && !startAfter.isEmpty()) {
+            requestBuilder.startAfter(prefix + startAfter);
+        }
+
+        return s3AsyncClient.listObjectsV2(requestBuilder.build()).thenApply(response -> {
+            List<String> keys = response.contents().stream()
+                    .map(S3Object::key)
+                    .map(key -> key.substring(prefix.length()))
+                    .collect(Collectors.toList());
+            String nextMarker = response.isTruncated() && !keys.isEmpty()
+                    ? keys.get(keys.size() - 1) : null;
+            return new ListObjectsResult(keys, nextMarker, response.isTruncated());
+        });
+    }
+
+    private static ObjectInfo info(GetObjectResponse response) {
+        return new ObjectInfo(response.contentLength(), response.contentType(), response.lastModified());
+    }
+
+    /**
+     * Turn a missing-key failure into an empty result; other failures pass through
+     */
+    private static <T> CompletableFuture<Optional<T>> emptyIfMissing(CompletableFuture<T> future) {
+        return future.handle((value, error) -> {
+            if (error == null) {
+                return Optional.of(value);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof NoSuchKeyException) {
+                return Optional.<T>empty();
+            }
+            throw new CompletionException(cause);
+        });
+    }
+}
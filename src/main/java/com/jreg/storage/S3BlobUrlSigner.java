@@ -0,0 +1,43 @@
+package com.jreg.storage;
+
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+import java.net.URISyntaxException;
+import java.time.Duration;
+
+/**
+ * Presigns S3 GET requests so blob downloads can bypass the registry.
+ */
+@Component
+public class S3BlobUrlSigner implements BlobUrlSigner {
+    
+    private final S3Presigner presigner;
+    private final String bucketName;
+    
+    public S3BlobUrlSigner(S3Presigner presigner, String s3BucketName) {
+        this.presigner = presigner;
+        this.bucketName = s3BucketName;
+    }
+    
+    @Override
+    public PresignedUrl presignGet(String key, Duration ttl) {
+        PresignedGetObjectRequest presigned = presigner.presignGetObject(
+                GetObjectPresignRequest.builder()
+                        .signatureDuration(ttl)
+                        .getObjectRequest(GetObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .build())
+                        .build()
+        );
+        try {
+            return new PresignedUrl(presigned.url().toURI(), presigned.expiration());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Presigned URL is not a valid URI: " + e.getMessage(), e);
+        }
+    }
+}
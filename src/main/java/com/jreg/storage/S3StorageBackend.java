@@ -2,7 +2,10 @@ package com.jreg.storage;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.services.s3.S3Client;
@@ -10,9 +13,12 @@ import software.amazon.awssdk.services.s3.model.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 /**
@@ -23,12 +29,38 @@ public class S3StorageBackend implements StorageBackend {
     
     private static final Logger logger = LoggerFactory.getLogger(S3StorageBackend.class);
     
+    // S3 multipart limits: every part but the last must be at least 5 MiB, no part above 5 GiB
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    
     private final S3Client s3Client;
     private final String bucketName;
+    private final ExecutorService transferExecutor;
+    private final DirectBufferPool bufferPool;
+    private final StorageStreamTracker streamTracker;
+    private final boolean parallelGetEnabled;
+    private final long parallelGetThreshold;
+    private final long parallelGetSegmentSize;
+    private final int parallelGetMaxConnections;
     
-    public S3StorageBackend(S3Client s3Client, String s3BucketName) {
+    public S3StorageBackend(S3Client s3Client,
+                            String s3BucketName,
+                            @Qualifier("storageTransferExecutor") ExecutorService transferExecutor,
+                            DirectBufferPool bufferPool,
+                            StorageStreamTracker streamTracker,
+                            @Value("${jreg.storage.parallel-get.enabled:false}") boolean parallelGetEnabled,
+                            @Value("${jreg.storage.parallel-get.threshold:64MB}") DataSize parallelGetThreshold,
+                            @Value("${jreg.storage.parallel-get.segment-size:8MB}") DataSize parallelGetSegmentSize,
+                            @Value("${jreg.storage.parallel-get.max-connections:8}") int parallelGetMaxConnections) {
         this.s3Client = s3Client;
         this.bucketName = s3BucketName;
+        this.transferExecutor = transferExecutor;
+        this.bufferPool = bufferPool;
+        this.streamTracker = streamTracker;
+        this.parallelGetEnabled = parallelGetEnabled;
+        this.parallelGetThreshold = parallelGetThreshold.toBytes();
+        this.parallelGetSegmentSize = parallelGetSegmentSize.toBytes();
+        this.parallelGetMaxConnections = parallelGetMaxConnections;
         ensureBucketExists();
     }
     
@@ -45,19 +77,30 @@ public class S3StorageBackend implements StorageBackend {
     @Override
     public InputStream getObject(String key) {
         logger.debug("Getting object: {}", key);
-        return s3Client.getObject(
+        return streamTracker.track(s3Client.getObject(
                 GetObjectRequest.builder().bucket(bucketName).key(key).build(),
                 ResponseTransformer.toInputStream()
-        );
+        ));
+    }
+    
+    @Override
+    public InputStream getObject(String key, long size) {
+        if (!parallelGetEnabled || size < parallelGetThreshold) {
+            return getObject(key);
+        }
+        logger.debug("Getting object with parallel range reads: {} ({} bytes)", key, size);
+        return new ParallelRangeInputStream(
+                (start, end) -> getObjectRange(key, "bytes=" + start + "-" + end),
+                size, transferExecutor, bufferPool, parallelGetSegmentSize, parallelGetMaxConnections);
     }
     
     @Override
     public InputStream getObjectRange(String key, String range) {
         logger.debug("Getting object range: {} range={}", key, range);
-        return s3Client.getObject(
+        return streamTracker.track(s3Client.getObject(
                 GetObjectRequest.builder().bucket(bucketName).key(key).range(range).build(),
                 ResponseTransformer.toInputStream()
-        );
+        ));
     }
     
     @Override
@@ -112,6 +155,18 @@ public class S3StorageBackend implements StorageBackend {
         return response.metadata();
     }
     
+    @Override
+    public Optional<ObjectInfo> headObject(String key) {
+        try {
+            HeadObjectResponse response = s3Client.headObject(
+                    HeadObjectRequest.builder().bucket(bucketName).key(key).build()
+            );
+            return Optional.of(new ObjectInfo(response.contentLength(), response.contentType(), response.lastModified()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        }
+    }
+    
     @Override
     public long getObjectSize(String key) {
         HeadObjectResponse response = s3Client.headObject(
@@ -162,4 +217,72 @@ public class S3StorageBackend implements StorageBackend {
         
         return new ListObjectsResult(keys, nextMarker, response.isTruncated());
     }
+    
+    @Override
+    public String createMultipartUpload(String key, String contentType) {
+        logger.debug("Creating multipart upload: {}", key);
+        CreateMultipartUploadResponse response = s3Client.createMultipartUpload(
+                CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .build()
+        );
+        return response.uploadId();
+    }
+    
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream content, long contentLength) {
+        logger.debug("Uploading part: {} part={} size={}", key, partNumber, contentLength);
+        UploadPartResponse response = s3Client.uploadPart(
+                UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength(contentLength)
+                        .build(),
+                RequestBody.fromInputStream(content, contentLength)
+        );
+        return response.eTag();
+    }
+    
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, List<String> partETags) {
+        logger.debug("Completing multipart upload: {} parts={}", key, partETags.size());
+        List<CompletedPart> parts = new ArrayList<>(partETags.size());
+        for (int i = 0; i < partETags.size(); i++) {
+            parts.add(CompletedPart.builder().partNumber(i + 1).eTag(partETags.get(i)).build());
+        }
+        s3Client.completeMultipartUpload(
+                CompleteMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                        .build()
+        );
+    }
+    
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) {
+        logger.debug("Aborting multipart upload: {}", key);
+        s3Client.abortMultipartUpload(
+                AbortMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build()
+        );
+    }
+    
+    @Override
+    public long getMinimumPartSize() {
+        return MIN_PART_SIZE;
+    }
+    
+    @Override
+    public long getMaximumPartSize() {
+        return MAX_PART_SIZE;
+    }
 }
@@ -0,0 +1,283 @@
+package com.jreg.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local file filled by one producer while any number of readers tail it.
+ * Readers block at the current end of the file until more bytes arrive or the
+ * producer completes or fails it. The file is deleted once the producer and every
+ * reader have closed their references.
+ */
+public class SpoolFile implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolFile.class);
+
+    private final Path path;
+    private final Runnable onDelete;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private long written;
+    private boolean complete;
+    private IOException failure;
+    private int references = 1;
+
+    private SpoolFile(Path path, Runnable onDelete) {
+        this.path = path;
+        this.onDelete = onDelete;
+    }
+
+    /**
+     * Create an empty spool file in {@code directory}; the caller holds the first reference
+     */
+    public static SpoolFile create(Path directory, String prefix) {
+        return create(directory, prefix, () -> {});
+    }
+
+    /**
+     * Create an empty spool file that runs {@code onDelete} once the last reference is released
+     */
+    public static SpoolFile create(Path directory, String prefix, Runnable onDelete) {
+        try {
+            Files.createDirectories(directory);
+            return new SpoolFile(Files.createTempFile(directory, prefix, ".spool"), onDelete);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create spool file in " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Bytes written so far
+     */
+    public long getWritten() {
+        lock.lock();
+        try {
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether any reader besides the producer still holds the file
+     */
+    public boolean hasReaders() {
+        lock.lock();
+        try {
+            return references > 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append all of {@code content} through a pooled direct buffer, feeding it into
+     * {@code digest} when one is supplied. Readers are woken after every buffer.
+     * Does not complete the file, so the caller can verify the content first.
+     *
+     * @return number of bytes written
+     */
+    public long fill(InputStream content, DirectBufferPool bufferPool, MessageDigest digest) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ReadableByteChannel source = DirectBufferPool.channelFor(content);
+            long offset = getWritten();
+            boolean more = true;
+            while (more) {
+                buffer.clear();
+                more = DirectBufferPool.fill(source, buffer);
+                buffer.flip();
+                if (digest != null) {
+                    digest.update(buffer);
+                    buffer.flip();
+                }
+                while (buffer.hasRemaining()) {
+                    offset += channel.write(buffer, offset);
+                }
+                advance(offset);
+            }
+            return offset;
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Mark the content as final; readers see end of stream once they reach it
+     */
+    public void complete() {
+        lock.lock();
+        try {
+            complete = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Abandon the content; readers fail instead of seeing end of stream.
+     * Has no effect once the file is complete.
+     */
+    public void fail(Throwable cause) {
+        lock.lock();
+        try {
+            if (complete) {
+                return;
+            }
+            failure = cause instanceof IOException io ? io : new IOException(cause.getMessage(), cause);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Open a stream over the whole file that follows the producer.
+     * The stream holds its own reference until it is closed.
+     *
+     * @return the stream, or null when every reference is gone and the file has been deleted
+     */
+    public InputStream openReader() {
+        lock.lock();
+        try {
+            if (references == 0) {
+                return null;
+            }
+            references++;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            return new TailingInputStream(FileChannel.open(path, StandardOpenOption.READ));
+        } catch (IOException e) {
+            release();
+            throw new RuntimeException("Failed to open spool file " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Release the producer's reference
+     */
+    @Override
+    public void close() {
+        release();
+    }
+
+    private void advance(long offset) {
+        lock.lock();
+        try {
+            written = offset;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until bytes beyond {@code position} exist.
+     *
+     * @return the current end of the file, or -1 at end of stream
+     */
+    private long awaitBeyond(long position) throws IOException {
+        lock.lock();
+        try {
+            while (written <= position && !complete && failure == null) {
+                changed.await();
+            }
+            if (failure != null) {
+                throw new IOException("Spooled content failed: " + failure.getMessage(), failure);
+            }
+            return written > position ? written : -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for spooled content");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            if (references == 0 || --references > 0) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete spool file {}: {}", path, e.getMessage());
+        } finally {
+            onDelete.run();
+        }
+    }
+
+    private final class TailingInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private boolean closed;
+
+        TailingInputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            long end = awaitBeyond(position);
+            if (end < 0) {
+                return -1;
+            }
+            int wanted = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, wanted), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+            } finally {
+                release();
+            }
+        }
+    }
+}
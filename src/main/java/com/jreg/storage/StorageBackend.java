@@ -5,8 +5,10 @@ import software.amazon.awssdk.core.sync.ResponseTransformer;
 import software.amazon.awssdk.services.s3.model.*;
 
 import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interface for storage backend operations.
@@ -19,6 +21,14 @@ public interface StorageBackend {
      */
     InputStream getObject(String key);
     
+    /**
+     * Get an object whose size the caller already knows, letting the backend
+     * split large objects into concurrent range reads
+     */
+    default InputStream getObject(String key, long size) {
+        return getObject(key);
+    }
+    
     /**
      * Get an object with range support
      */
@@ -49,6 +59,12 @@ public interface StorageBackend {
      */
     Map<String, String> getObjectMetadata(String key);
     
+    /**
+     * Get size, content type and modification time in a single request,
+     * or empty if the object does not exist
+     */
+    Optional<ObjectInfo> headObject(String key);
+    
     /**
      * Get object size
      */
@@ -69,6 +85,46 @@ public interface StorageBackend {
      */
     ListObjectsResult listObjects(String prefix, int maxKeys, String startAfter);
     
+    /**
+     * Start a multipart upload and return its upload ID
+     */
+    String createMultipartUpload(String key, String contentType);
+    
+    /**
+     * Upload one part of a multipart upload and return its ETag
+     */
+    String uploadPart(String key, String uploadId, int partNumber, InputStream content, long contentLength);
+    
+    /**
+     * Complete a multipart upload; part ETags are ordered by part number starting at 1
+     */
+    void completeMultipartUpload(String key, String uploadId, List<String> partETags);
+    
+    /**
+     * Abort a multipart upload and discard its uploaded parts
+     */
+    void abortMultipartUpload(String key, String uploadId);
+    
+    /**
+     * Smallest part the backend accepts in a multipart upload (except the last part).
+     * Writes below this size are inefficient and worth coalescing.
+     */
+    default long getMinimumPartSize() {
+        return 1;
+    }
+    
+    /**
+     * Largest part the backend accepts in a multipart upload
+     */
+    default long getMaximumPartSize() {
+        return Long.MAX_VALUE;
+    }
+    
+    /**
+     * Object attributes returned by {@link #headObject(String)}
+     */
+    record ObjectInfo(long size, String contentType, Instant lastModified) {}
+    
     /**
      * Result of list objects operation
      */
@@ -0,0 +1,114 @@
+package com.jreg.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks open storage response streams and aborts the ones closed before their end.
+ * Closing an HTTP response body early normally drains the rest of it so the connection
+ * can be reused, which keeps a pooled connection busy for a client that has already
+ * gone away. Aborting drops the connection instead and frees the pool slot at once.
+ */
+@Component
+public class StorageStreamTracker {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter abortedCounter;
+
+    public StorageStreamTracker(MeterRegistry meterRegistry) {
+        Gauge.builder("jreg.storage.streams.in.flight", inFlight, AtomicInteger::get)
+                .description("Storage response streams currently open")
+                .register(meterRegistry);
+        this.abortedCounter = Counter.builder("jreg.storage.streams.aborted")
+                .description("Storage response streams aborted because they were closed before the end")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Number of storage response streams currently open
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Wrap a storage response so that closing it early aborts the underlying connection
+     */
+    public InputStream track(ResponseInputStream<? extends SdkResponse> response) {
+        long length = response.response() instanceof GetObjectResponse object && object.contentLength() != null
+                ? object.contentLength() : -1;
+        inFlight.incrementAndGet();
+        return new TrackedInputStream(response, length);
+    }
+
+    private final class TrackedInputStream extends FilterInputStream {
+        private final ResponseInputStream<?> response;
+        private long remaining;
+        private boolean finished;
+        private boolean closed;
+
+        TrackedInputStream(ResponseInputStream<?> response, long length) {
+            super(response);
+            this.response = response;
+            this.remaining = length;
+            this.finished = length == 0;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            consumed(b == -1 ? -1 : 1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            consumed(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            consumed(skipped);
+            return skipped;
+        }
+
+        private void consumed(long n) {
+            if (n == -1) {
+                finished = true;
+            } else if (remaining > 0) {
+                remaining -= n;
+                finished = remaining == 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (!finished) {
+                    response.abort();
+                    abortedCounter.increment();
+                }
+                super.close();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.jreg.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.UUID;
+
+/**
+ * Local disk spool for in-progress chunked uploads.
+ * Each upload session gets one sparse file; chunks are written at their
+ * byte offset so the assembled blob never has to be fetched back from storage.
+ */
+@Component
+public class UploadSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSpool.class);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final DirectBufferPool bufferPool;
+
+    public UploadSpool(@Value("${jreg.upload.spool.enabled:false}") boolean enabled,
+                       @Value("${jreg.upload.spool.directory:${java.io.tmpdir}/jreg-uploads}") String directory,
+                       DirectBufferPool bufferPool) {
+        this.enabled = enabled;
+        this.bufferPool = bufferPool;
+        this.directory = Paths.get(directory);
+        if (enabled) {
+            try {
+                Files.createDirectories(this.directory);
+                logger.info("Spooling uploads to {}", this.directory);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create upload spool directory " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Whether chunked uploads are spooled to local disk
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Create the spool file for a session
+     */
+    public Path create(UUID sessionId) {
+        Path file = pathFor(sessionId);
+        try (FileChannel ignored = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.SPARSE)) {
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create spool file for session " + sessionId, e);
+        }
+    }
+
+    /**
+     * Write a chunk at the given offset, feeding every byte written into {@code digest}
+     * when one is supplied. The body moves through a pooled direct buffer; see
+     * {@link DirectBufferPool#channelFor} for when it is read into it without a heap copy.
+     *
+     * @return number of bytes written
+     */
+    public long write(Path file, long position, InputStream content, MessageDigest digest) {
+        return write(file, position, content, -1, digest);
+    }
+
+    /**
+     * Write a chunk of declared length at the given offset. At most {@code length} bytes are
+     * written, so a body longer than declared cannot overwrite data past its range; a negative
+     * length writes to the end of the stream.
+     *
+     * @return number of bytes written, or {@code length + 1} if the body continues past {@code length}
+     */
+    public long write(Path file, long position, InputStream content, long length, MessageDigest digest) {
+        ByteBuffer buffer = bufferPool.acquire();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ReadableByteChannel source = DirectBufferPool.channelFor(content);
+            long remaining = length >= 0 ? length : Long.MAX_VALUE;
+            long offset = position;
+            boolean more = true;
+            while (more && remaining > 0) {
+                buffer.clear();
+                if (remaining < buffer.capacity()) {
+                    buffer.limit((int) remaining);
+                }
+                more = DirectBufferPool.fill(source, buffer);
+                buffer.flip();
+                remaining -= buffer.remaining();
+                if (digest != null) {
+                    digest.update(buffer);
+                    buffer.flip();
+                }
+                while (buffer.hasRemaining()) {
+                    offset += channel.write(buffer, offset);
+                }
+            }
+            if (more && length >= 0) {
+                // The declared length is written; any further byte means the body was longer
+                buffer.clear().limit(1);
+                if (source.read(buffer) > 0) {
+                    return length + 1;
+                }
+            }
+            return offset - position;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write chunk to spool file " + file + ": " + e.getMessage(), e);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Feed {@code length} bytes of the file starting at {@code position} into {@code digest}
+     */
+    public void hash(Path file, long position, long length, MessageDigest digest) {
+        ByteBuffer buffer = bufferPool.acquire();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long offset = position;
+            long end = position + length;
+            while (offset < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - offset));
+                int read = channel.read(buffer, offset);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of spool file at offset " + offset);
+                }
+                buffer.flip();
+                digest.update(buffer);
+                offset += read;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to hash spool file " + file + ": " + e.getMessage(), e);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Remove the spool file for a session, if any
+     */
+    public void delete(UUID sessionId) {
+        try {
+            if (Files.deleteIfExists(pathFor(sessionId))) {
+                logger.debug("Deleted spool file for session {}", sessionId);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete spool file for session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private Path pathFor(UUID sessionId) {
+        return directory.resolve(sessionId + ".upload");
+    }
+}
@@ -0,0 +1,304 @@
+package com.jreg.storage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jreg.model.Digest;
+import com.jreg.storage.StorageBackend.ObjectInfo;
+import com.jreg.util.DigestCalculator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal OCI Distribution client for the upstream registry of a pull-through cache.
+ * Handles anonymous, basic and bearer-token authentication (tokens are cached per
+ * repository scope) and follows redirects itself so credentials are never sent to
+ * the storage host a blob download is redirected to.
+ */
+@Component
+public class UpstreamRegistryClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamRegistryClient.class);
+
+    private static final String MANIFEST_ACCEPT = String.join(", ",
+            "application/vnd.oci.image.manifest.v1+json",
+            "application/vnd.oci.image.index.v1+json",
+            "application/vnd.docker.distribution.manifest.v2+json",
+            "application/vnd.docker.distribution.manifest.list.v2+json");
+    private static final int MAX_REDIRECTS = 5;
+    private static final Duration DEFAULT_TOKEN_LIFETIME = Duration.ofSeconds(60);
+    private static final Pattern CHALLENGE_PARAM = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+
+    private final URI baseUrl;
+    private final String username;
+    private final String password;
+    private final Duration timeout;
+    private final String repositoryPrefix;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final Map<String, Token> tokens = new ConcurrentHashMap<>();
+
+    public UpstreamRegistryClient(@Value("${jreg.upstream.url:}") String url,
+                                  @Value("${jreg.upstream.username:}") String username,
+                                  @Value("${jreg.upstream.password:}") String password,
+                                  @Value("${jreg.upstream.timeout:30s}") Duration timeout,
+                                  @Value("${jreg.upstream.repository-prefix:}") String repositoryPrefix,
+                                  ObjectMapper objectMapper) {
+        this.baseUrl = url.isBlank() ? null : URI.create(url.endsWith("/") ? url : url + "/");
+        this.username = username;
+        this.password = password;
+        this.timeout = timeout;
+        this.repositoryPrefix = repositoryPrefix;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        if (baseUrl != null) {
+            logger.info("Pull-through cache upstream: {}", baseUrl);
+        }
+    }
+
+    /**
+     * Whether an upstream registry is configured
+     */
+    public boolean isEnabled() {
+        return baseUrl != null;
+    }
+
+    /**
+     * Fetch a manifest by tag or digest
+     */
+    public Optional<UpstreamManifest> getManifest(String repository, String reference) {
+        HttpResponse<InputStream> response = send(repository, "GET", "manifests/" + reference, MANIFEST_ACCEPT);
+        if (response == null) {
+            return Optional.empty();
+        }
+        try (InputStream body = response.body()) {
+            String mediaType = response.headers().firstValue("Content-Type")
+                    .map(UpstreamRegistryClient::stripParameters)
+                    .orElse("application/vnd.oci.image.manifest.v1+json");
+            return Optional.of(new UpstreamManifest(body.readAllBytes(), mediaType));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read upstream manifest " + repository + ":" + reference, e);
+        }
+    }
+
+    /**
+     * Resolve a tag to the digest the upstream currently serves for it, without downloading the manifest
+     */
+    public Optional<Digest> resolveTag(String repository, String tag) {
+        HttpResponse<InputStream> response = send(repository, "HEAD", "manifests/" + tag, MANIFEST_ACCEPT);
+        if (response == null) {
+            return Optional.empty();
+        }
+        closeQuietly(response);
+        Optional<String> digest = response.headers().firstValue("Docker-Content-Digest");
+        if (digest.isPresent()) {
+            return digest.map(Digest::parse);
+        }
+        // Some registries omit the header on HEAD; fall back to hashing the manifest
+        return getManifest(repository, tag).map(manifest -> DigestCalculator.calculateSha256(manifest.content()));
+    }
+
+    /**
+     * Look up a blob's size and type without downloading it
+     */
+    public Optional<ObjectInfo> headBlob(String repository, Digest digest) {
+        HttpResponse<InputStream> response = send(repository, "HEAD", "blobs/" + digest, null);
+        if (response == null) {
+            return Optional.empty();
+        }
+        closeQuietly(response);
+        return Optional.of(new ObjectInfo(
+                response.headers().firstValueAsLong("Content-Length").orElse(-1),
+                response.headers().firstValue("Content-Type").orElse("application/octet-stream"),
+                null));
+    }
+
+    /**
+     * Open a blob download; the caller must close the returned stream
+     */
+    public Optional<UpstreamBlob> getBlob(String repository, Digest digest) {
+        HttpResponse<InputStream> response = send(repository, "GET", "blobs/" + digest, null);
+        if (response == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new UpstreamBlob(response.body(),
+                response.headers().firstValueAsLong("Content-Length").orElse(-1),
+                response.headers().firstValue("Content-Type").orElse("application/octet-stream")));
+    }
+
+    /**
+     * Send a request, answering one authentication challenge and following redirects.
+     * Returns null on 404; other failures throw.
+     */
+    private HttpResponse<InputStream> send(String repository, String method, String path, String accept) {
+        if (baseUrl == null) {
+            throw new IllegalStateException("No upstream registry configured");
+        }
+        String upstreamRepository = repositoryPrefix + repository;
+        URI uri = baseUrl.resolve("v2/" + upstreamRepository + "/" + path);
+        String scope = "repository:" + upstreamRepository + ":pull";
+        try {
+            HttpResponse<InputStream> response = exchange(uri, method, accept, authorization(scope));
+            if (response.statusCode() == 401) {
+                String challenge = response.headers().firstValue("WWW-Authenticate").orElse("");
+                closeQuietly(response);
+                response = exchange(uri, method, accept, authenticate(challenge, scope));
+            }
+            for (int hops = 0; isRedirect(response.statusCode()); hops++) {
+                if (hops == MAX_REDIRECTS) {
+                    closeQuietly(response);
+                    throw new IOException("Too many redirects from " + uri);
+                }
+                URI location = response.request().uri().resolve(response.headers().firstValue("Location")
+                        .orElseThrow(() -> new IOException("Redirect without Location from " + uri)));
+                closeQuietly(response);
+                // Redirect targets are storage URLs that carry their own authorization
+                response = exchange(location, method, accept, null);
+            }
+            if (response.statusCode() == 404) {
+                closeQuietly(response);
+                return null;
+            }
+            if (response.statusCode() / 100 != 2) {
+                closeQuietly(response);
+                throw new IOException("Upstream returned " + response.statusCode() + " for " + method + " " + uri);
+            }
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted calling upstream " + uri));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Upstream request " + method + " " + uri + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private HttpResponse<InputStream> exchange(URI uri, String method, String accept, String authorization)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .method(method, HttpRequest.BodyPublishers.noBody());
+        if (accept != null) {
+            request.header("Accept", accept);
+        }
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * Credentials to send up front: a cached token for the scope, or basic auth when configured
+     */
+    private String authorization(String scope) {
+        Token token = tokens.get(scope);
+        if (token != null && token.expiresAt().isAfter(Instant.now())) {
+            return "Bearer " + token.value();
+        }
+        return null;
+    }
+
+    private String authenticate(String challenge, String scope) throws IOException, InterruptedException {
+        if (challenge.regionMatches(true, 0, "Basic", 0, 5)) {
+            if (username.isEmpty()) {
+                throw new IOException("Upstream requires credentials but none are configured");
+            }
+            return basicCredentials();
+        }
+        if (!challenge.regionMatches(true, 0, "Bearer", 0, 6)) {
+            throw new IOException("Unsupported upstream authentication challenge: " + challenge);
+        }
+
+        Map<String, String> params = new LinkedHashMap<>();
+        Matcher matcher = CHALLENGE_PARAM.matcher(challenge);
+        while (matcher.find()) {
+            params.put(matcher.group(1), matcher.group(2));
+        }
+        String realm = params.get("realm");
+        if (realm == null) {
+            throw new IOException("Bearer challenge without realm: " + challenge);
+        }
+        StringBuilder tokenUrl = new StringBuilder(realm).append(realm.contains("?") ? '&' : '?')
+                .append("scope=").append(URLEncoder.encode(params.getOrDefault("scope", scope), StandardCharsets.UTF_8));
+        if (params.containsKey("service")) {
+            tokenUrl.append("&service=").append(URLEncoder.encode(params.get("service"), StandardCharsets.UTF_8));
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(tokenUrl.toString())).timeout(timeout).GET();
+        if (!username.isEmpty()) {
+            request.header("Authorization", basicCredentials());
+        }
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Token endpoint " + realm + " returned " + response.statusCode());
+        }
+
+        JsonNode body = objectMapper.readTree(response.body());
+        String value = body.hasNonNull("token") ? body.get("token").asText() : body.path("access_token").asText(null);
+        if (value == null) {
+            throw new IOException("Token endpoint " + realm + " returned no token");
+        }
+        Duration lifetime = body.has("expires_in")
+                ? Duration.ofSeconds(body.get("expires_in").asLong()) : DEFAULT_TOKEN_LIFETIME;
+        // Renew a little early so a token never expires mid-request
+        tokens.put(scope, new Token(value, Instant.now().plus(lifetime).minusSeconds(5)));
+        return "Bearer " + value;
+    }
+
+    private String basicCredentials() {
+        return "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isRedirect(int status) {
+        return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
+    }
+
+    private static String stripParameters(String contentType) {
+        int semicolon = contentType.indexOf(';');
+        return semicolon < 0 ? contentType.trim() : contentType.substring(0, semicolon).trim();
+    }
+
+    private static void closeQuietly(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException ignored) {
+            // Nothing useful to do with a failed discard
+        }
+    }
+
+    private record Token(String value, Instant expiresAt) {}
+
+    /**
+     * Manifest bytes as served by the upstream
+     */
+    public record UpstreamManifest(byte[] content, String mediaType) {}
+
+    /**
+     * Open blob download; size is -1 when the upstream did not send a length
+     */
+    public record UpstreamBlob(InputStream content, long size, String contentType) {}
+}
@@ -4,73 +4,60 @@ import com.jreg.model.Digest;
 
 import java.io.InputStream;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 
 /**
  * Utility for calculating cryptographic digests.
- * Supports streaming digest calculation for large files.
+ * Supports streaming digest calculation for large files; see {@link DigestEngine}.
  */
 public class DigestCalculator {
     
-    private static final int BUFFER_SIZE = 8192;
-    
     /**
      * Calculate SHA-256 digest from input stream
      */
     public static Digest calculateSha256(InputStream inputStream) {
-        return calculateDigest(inputStream, "SHA-256");
+        return DigestEngine.digest("sha256", inputStream);
     }
     
     /**
      * Calculate SHA-512 digest from input stream
      */
     public static Digest calculateSha512(InputStream inputStream) {
-        return calculateDigest(inputStream, "SHA-512");
+        return DigestEngine.digest("sha512", inputStream);
     }
     
     /**
      * Calculate digest from byte array
      */
     public static Digest calculateSha256(byte[] data) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(data);
-            return new Digest("sha256", bytesToHex(hash));
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not available", e);
-        }
+        return DigestEngine.digest("sha256", data);
+    }
+    
+    /**
+     * Create a SHA-256 message digest for incremental hashing
+     */
+    public static MessageDigest newSha256() {
+        return newMessageDigest("sha256");
+    }
+    
+    /**
+     * Finish an incremental SHA-256 computation started with {@link #newSha256()}
+     */
+    public static Digest finishSha256(MessageDigest md) {
+        return finish("sha256", md);
     }
     
     /**
-     * Calculate digest from input stream with streaming support
+     * Create a message digest for an OCI algorithm name (sha256 or sha512).
+     * The caller keeps it; short-lived computations should use {@link DigestEngine#acquire}.
      */
-    private static Digest calculateDigest(InputStream inputStream, String algorithm) {
-        try {
-            MessageDigest md = MessageDigest.getInstance(algorithm);
-            byte[] buffer = new byte[BUFFER_SIZE];
-            int bytesRead;
-            
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                md.update(buffer, 0, bytesRead);
-            }
-            
-            byte[] hash = md.digest();
-            String algorithmName = algorithm.equals("SHA-256") ? "sha256" : "sha512";
-            
-            return new Digest(algorithmName, bytesToHex(hash));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to calculate digest", e);
-        }
+    public static MessageDigest newMessageDigest(String algorithm) {
+        return DigestEngine.acquire(algorithm);
     }
     
     /**
-     * Convert byte array to hexadecimal string
+     * Finish an incremental computation started with {@link #newMessageDigest(String)}
      */
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
-        }
-        return result.toString();
+    public static Digest finish(String algorithm, MessageDigest md) {
+        return DigestEngine.finish(algorithm, md);
     }
 }
@@ -0,0 +1,230 @@
+package com.jreg.util;
+
+import com.jreg.model.Digest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Computes OCI digests with pooled {@link MessageDigest} instances.
+ * Each algorithm uses the fastest JCA provider measured at class load, and new instances
+ * are cloned from a prototype instead of going through the provider lookup of
+ * {@code MessageDigest.getInstance}. A pooled instance also keeps the scratch array its
+ * provider uses for direct {@link ByteBuffer} input, so hashing pooled I/O buffers does
+ * not allocate.
+ */
+public final class DigestEngine {
+    private static final Logger logger = LoggerFactory.getLogger(DigestEngine.class);
+
+    // Idle instances kept per algorithm; more concurrent hashes than this just allocate
+    private static final int POOL_SIZE = 64;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    // Provider probe: hash this much per round and keep each provider's best round
+    private static final int PROBE_SIZE = 256 * 1024;
+    private static final int PROBE_ROUNDS = 5;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final Engine SHA256 = new Engine("sha256", "SHA-256");
+    private static final Engine SHA512 = new Engine("sha512", "SHA-512");
+
+    private DigestEngine() {
+    }
+
+    /**
+     * Take a reset message digest for an OCI algorithm (sha256 or sha512).
+     * Hand it back with {@link #release} once nothing else holds it.
+     */
+    public static MessageDigest acquire(String algorithm) {
+        return engine(algorithm).acquire();
+    }
+
+    /**
+     * Return a message digest taken with {@link #acquire}. It is reset, and must not be used again.
+     */
+    public static void release(MessageDigest md) {
+        Engine engine = SHA256.jcaName.equals(md.getAlgorithm()) ? SHA256
+                : SHA512.jcaName.equals(md.getAlgorithm()) ? SHA512 : null;
+        if (engine != null) {
+            engine.release(md);
+        }
+    }
+
+    /**
+     * Complete a computation; the message digest is reset and can be reused or released
+     */
+    public static Digest finish(String algorithm, MessageDigest md) {
+        return Digest.of(algorithm, md.digest());
+    }
+
+    public static Digest digest(String algorithm, byte[] data) {
+        MessageDigest md = acquire(algorithm);
+        try {
+            md.update(data);
+            return finish(algorithm, md);
+        } finally {
+            release(md);
+        }
+    }
+
+    /**
+     * Digest the remaining bytes of a heap or direct buffer, consuming them
+     */
+    public static Digest digest(String algorithm, ByteBuffer data) {
+        MessageDigest md = acquire(algorithm);
+        try {
+            md.update(data);
+            return finish(algorithm, md);
+        } finally {
+            release(md);
+        }
+    }
+
+    /**
+     * Digest a stream to its end; the stream is not closed
+     */
+    public static Digest digest(String algorithm, InputStream content) {
+        MessageDigest md = acquire(algorithm);
+        try {
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                md.update(buffer, 0, read);
+            }
+            return finish(algorithm, md);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to calculate digest", e);
+        } finally {
+            release(md);
+        }
+    }
+
+    /**
+     * Lowercase hex of the given bytes
+     */
+    public static String hex(byte[] bytes) {
+        return HEX.formatHex(bytes);
+    }
+
+    /**
+     * Name of the JCA provider chosen for an OCI algorithm
+     */
+    public static String providerName(String algorithm) {
+        return engine(algorithm).prototype.getProvider().getName();
+    }
+
+    private static Engine engine(String algorithm) {
+        if ("sha256".equals(algorithm)) {
+            return SHA256;
+        }
+        if ("sha512".equals(algorithm)) {
+            return SHA512;
+        }
+        throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm);
+    }
+
+    /**
+     * Prototype and idle pool for one algorithm
+     */
+    private static final class Engine {
+        private final String jcaName;
+        private final MessageDigest prototype;
+        private final boolean cloneable;
+        private final BlockingQueue<MessageDigest> idle = new ArrayBlockingQueue<>(POOL_SIZE);
+
+        Engine(String ociName, String jcaName) {
+            this.jcaName = jcaName;
+            this.prototype = newInstance(jcaName, fastestProvider(jcaName));
+            this.cloneable = isCloneable(prototype);
+            logger.debug("Using {} provider for {}", prototype.getProvider().getName(), ociName);
+        }
+
+        MessageDigest acquire() {
+            MessageDigest md = idle.poll();
+            if (md != null) {
+                return md;
+            }
+            if (cloneable) {
+                try {
+                    return (MessageDigest) prototype.clone();
+                } catch (CloneNotSupportedException e) {
+                    // Checked by isCloneable
+                }
+            }
+            return newInstance(jcaName, prototype.getProvider());
+        }
+
+        void release(MessageDigest md) {
+            md.reset();
+            idle.offer(md);
+        }
+
+        private static boolean isCloneable(MessageDigest md) {
+            try {
+                md.clone();
+                return true;
+            } catch (CloneNotSupportedException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The provider that hashes fastest here, which differs with JDK version, CPU
+     * extensions and installed providers. A single provider is used without probing.
+     */
+    private static Provider fastestProvider(String jcaName) {
+        Provider[] providers = Security.getProviders("MessageDigest." + jcaName);
+        if (providers == null || providers.length == 0) {
+            throw new IllegalStateException(jcaName + " algorithm not available");
+        }
+        if (providers.length == 1) {
+            return providers[0];
+        }
+
+        byte[] sample = new byte[PROBE_SIZE];
+        long[] best = new long[providers.length];
+        Arrays.fill(best, Long.MAX_VALUE);
+        MessageDigest[] digests = new MessageDigest[providers.length];
+        for (int i = 0; i < providers.length; i++) {
+            digests[i] = newInstance(jcaName, providers[i]);
+        }
+        // Interleave rounds so JIT warm-up does not favour whichever provider runs last
+        for (int round = 0; round < PROBE_ROUNDS; round++) {
+            for (int i = 0; i < providers.length; i++) {
+                long start = System.nanoTime();
+                digests[i].update(sample);
+                digests[i].digest();
+                best[i] = Math.min(best[i], System.nanoTime() - start);
+            }
+        }
+
+        int fastest = 0;
+        for (int i = 1; i < providers.length; i++) {
+            if (best[i] < best[fastest]) {
+                fastest = i;
+            }
+        }
+        return providers[fastest];
+    }
+
+    private static MessageDigest newInstance(String jcaName, Provider provider) {
+        try {
+            return MessageDigest.getInstance(jcaName, provider);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(jcaName + " algorithm not available", e);
+        }
+    }
+}
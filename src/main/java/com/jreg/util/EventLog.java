@@ -0,0 +1,109 @@
+package com.jreg.util;
+
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * A structured log event for hot paths. Fields travel as logstash structured arguments,
+ * so they become JSON fields without touching the MDC, and render as key=value on the console.
+ * Each event type logs one in N occurrences; nothing is built for events that are not logged,
+ * and sizes and offsets are passed as {@code long} so they are only boxed once sampled.
+ */
+public final class EventLog {
+
+    // Sample rates by event type, shared by every EventLog of that type
+    private static final Map<String, AtomicInteger> sampleRates = new ConcurrentHashMap<>();
+
+    private final Logger logger;
+    private final boolean debug;
+    private final String format;
+    private final String[] fields;
+    private final AtomicInteger sampleEvery;
+
+    private EventLog(Logger logger, boolean debug, String type, String message, String... fields) {
+        this.logger = logger;
+        this.debug = debug;
+        this.format = message + " {}".repeat(fields.length);
+        this.fields = fields;
+        this.sampleEvery = sampleRates.computeIfAbsent(type, t -> new AtomicInteger(1));
+    }
+
+    /**
+     * An INFO event of the given type, with its message and field names.
+     */
+    public static EventLog info(Logger logger, String type, String message, String... fields) {
+        return new EventLog(logger, false, type, message, fields);
+    }
+
+    /**
+     * A DEBUG event of the given type, with its message and field names.
+     */
+    public static EventLog debug(Logger logger, String type, String message, String... fields) {
+        return new EventLog(logger, true, type, message, fields);
+    }
+
+    /**
+     * Log one in {@code sampleEvery} events of this type; 1 or less logs every event.
+     */
+    public static void setSampleRate(String type, int sampleEvery) {
+        sampleRates.computeIfAbsent(type, t -> new AtomicInteger(1)).set(sampleEvery);
+    }
+
+    public void log(Object v1) {
+        if (sampled()) {
+            emit(kv(fields[0], v1));
+        }
+    }
+
+    public void log(Object v1, Object v2) {
+        if (sampled()) {
+            emit(kv(fields[0], v1), kv(fields[1], v2));
+        }
+    }
+
+    public void log(Object v1, Object v2, Object v3) {
+        if (sampled()) {
+            emit(kv(fields[0], v1), kv(fields[1], v2), kv(fields[2], v3));
+        }
+    }
+
+    public void log(Object v1, Object v2, Object v3, Object v4) {
+        if (sampled()) {
+            emit(kv(fields[0], v1), kv(fields[1], v2), kv(fields[2], v3), kv(fields[3], v4));
+        }
+    }
+
+    public void log(Object v1, Object v2, long v3) {
+        if (sampled()) {
+            emit(kv(fields[0], v1), kv(fields[1], v2), kv(fields[2], v3));
+        }
+    }
+
+    public void log(Object v1, Object v2, long v3, long v4) {
+        if (sampled()) {
+            emit(kv(fields[0], v1), kv(fields[1], v2), kv(fields[2], v3), kv(fields[3], v4));
+        }
+    }
+
+    private boolean sampled() {
+        if (debug ? !logger.isDebugEnabled() : !logger.isInfoEnabled()) {
+            return false;
+        }
+        int every = sampleEvery.get();
+        return every <= 1 || ThreadLocalRandom.current().nextInt(every) == 0;
+    }
+
+    private void emit(Object... arguments) {
+        if (debug) {
+            logger.debug(format, arguments);
+        } else {
+            logger.info(format, arguments);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.jreg.util;
+
+import com.jreg.model.Digest;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Computes several OCI digests of the same bytes in one pass.
+ * It is a {@link MessageDigest}, so it can be handed to anything that streams content
+ * through one; each update is fed to a pooled instance per algorithm, and the results
+ * are read with {@link #result(String)}. {@link #close()} returns the instances to
+ * {@link DigestEngine} once, however often it is called; updates after that fail.
+ * {@link #discard()} closes without returning them, for when a writer may still hold one.
+ */
+public final class MultiDigest extends MessageDigest implements AutoCloseable {
+
+    private final List<String> algorithms;
+    private final MessageDigest[] digests;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private Digest[] results;
+
+    private MultiDigest(List<String> algorithms) {
+        super(String.join("+", algorithms));
+        this.algorithms = algorithms;
+        this.digests = new MessageDigest[algorithms.size()];
+        for (int i = 0; i < digests.length; i++) {
+            digests[i] = DigestEngine.acquire(algorithms.get(i));
+        }
+    }
+
+    /**
+     * Start a computation over the given OCI algorithm names (sha256, sha512)
+     */
+    public static MultiDigest of(String... algorithms) {
+        return of(List.of(algorithms));
+    }
+
+    public static MultiDigest of(List<String> algorithms) {
+        List<String> distinct = algorithms.stream().distinct().toList();
+        if (distinct.isEmpty()) {
+            throw new IllegalArgumentException("At least one digest algorithm is required");
+        }
+        return new MultiDigest(distinct);
+    }
+
+    public List<String> algorithms() {
+        return algorithms;
+    }
+
+    public boolean computes(String algorithm) {
+        return algorithms.contains(algorithm);
+    }
+
+    /**
+     * The digest of everything fed so far in one algorithm. The first call completes the
+     * computation for all algorithms; further updates need a {@link #reset()} first.
+     */
+    public Digest result(String algorithm) {
+        int index = algorithms.indexOf(algorithm);
+        if (index < 0) {
+            throw new IllegalArgumentException("Digest algorithm not computed: " + algorithm);
+        }
+        if (results == null) {
+            results = complete();
+        }
+        return results[index];
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        ensureOpen();
+        for (MessageDigest md : digests) {
+            md.update(input);
+        }
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        ensureOpen();
+        for (MessageDigest md : digests) {
+            md.update(input, offset, len);
+        }
+    }
+
+    /**
+     * Each algorithm reads the buffer from the same position, so pooled direct buffers
+     * are hashed without being copied to the heap
+     */
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        ensureOpen();
+        int position = input.position();
+        for (int i = 0; i < digests.length; i++) {
+            if (i > 0) {
+                input.position(position);
+            }
+            digests[i].update(input);
+        }
+    }
+
+    /**
+     * The concatenated raw digests, in the order of {@link #algorithms()}
+     */
+    @Override
+    protected byte[] engineDigest() {
+        ByteBuffer all = ByteBuffer.allocate(engineGetDigestLength());
+        for (Digest digest : complete()) {
+            all.put(digest.toBytes());
+        }
+        return all.array();
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        int length = 0;
+        for (MessageDigest md : digests) {
+            length += md.getDigestLength();
+        }
+        return length;
+    }
+
+    @Override
+    protected void engineReset() {
+        for (MessageDigest md : digests) {
+            md.reset();
+        }
+        results = null;
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            for (MessageDigest md : digests) {
+                DigestEngine.release(md);
+            }
+        }
+    }
+
+    /**
+     * Close without returning the instances to the pool, so an update still running on
+     * another thread cannot feed an instance that has been handed to someone else
+     */
+    public void discard() {
+        closed.set(true);
+    }
+
+    private void ensureOpen() {
+        if (closed.get()) {
+            throw new IllegalStateException("Digest is closed");
+        }
+    }
+
+    private Digest[] complete() {
+        Digest[] completed = new Digest[digests.length];
+        for (int i = 0; i < digests.length; i++) {
+            completed[i] = DigestEngine.finish(algorithms.get(i), digests[i]);
+        }
+        return completed;
+    }
+}
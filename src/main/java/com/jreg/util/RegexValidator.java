@@ -1,68 +1,151 @@
 package com.jreg.util;
 
-import java.util.regex.Pattern;
-
 /**
- * Validates OCI entity names against specification regex patterns.
+ * Validates OCI entity names against the specification patterns.
+ * Each pattern is checked by a hand-written scan equivalent to the regex in its
+ * doc comment, which allocates nothing and runs in a single pass.
  */
 public class RegexValidator {
+
+    private static final int MAX_TAG_LENGTH = 128;
+    private static final int SHA256_HEX = 64;
+    private static final int SHA512_HEX = 128;
+
+    /**
+     * {@code [a-z0-9]+(?:[._-][a-z0-9]+)*(?:/[a-z0-9]+(?:[._-][a-z0-9]+)*)*}
+     */
     public static boolean isValidRepository(String repository) {
-        return repository != null && repository.matches("^[a-z0-9]+(?:[._-][a-z0-9]+)*(?:/[a-z0-9]+(?:[._-][a-z0-9]+)*)*$");
+        return repository != null && scanRepository(repository, false);
     }
 
+    /**
+     * {@code [A-Za-z0-9_][A-Za-z0-9._-]{0,127}}
+     */
     public static boolean isValidTag(String tag) {
-        return tag != null && tag.matches("^[A-Za-z0-9_][A-Za-z0-9._-]{0,127}$");
+        if (tag == null || tag.isEmpty() || tag.length() > MAX_TAG_LENGTH) {
+            return false;
+        }
+        char first = tag.charAt(0);
+        if (!isAlphanumeric(first) && first != '_') {
+            return false;
+        }
+        for (int i = 1; i < tag.length(); i++) {
+            char c = tag.charAt(i);
+            if (!isAlphanumeric(c) && c != '_' && c != '.' && c != '-') {
+                return false;
+            }
+        }
+        return true;
     }
-    
-    // OCI Distribution Spec repository name pattern
-    private static final Pattern REPOSITORY_PATTERN = Pattern.compile(
-            "^[a-z0-9]+(?:(?:\\.|_|__|-+)[a-z0-9]+)*(?:/[a-z0-9]+(?:(?:\\.|_|__|-+)[a-z0-9]+)*)*$"
-    );
-    
-    // OCI Distribution Spec tag name pattern
-    private static final Pattern TAG_PATTERN = Pattern.compile(
-            "^[a-zA-Z0-9_][a-zA-Z0-9._-]{0,127}$"
-    );
-    
-    // Digest pattern (algorithm:hex)
-    private static final Pattern DIGEST_PATTERN = Pattern.compile(
-            "^(sha256|sha512):[a-f0-9]{64,128}$"
-    );
-    
+
     /**
-     * Validate repository name against OCI spec
+     * Validate repository name against OCI spec:
+     * {@code [a-z0-9]+(?:(?:\.|_|__|-+)[a-z0-9]+)*(?:/[a-z0-9]+(?:(?:\.|_|__|-+)[a-z0-9]+)*)*}
      */
     public static boolean isValidRepositoryName(String name) {
         if (name == null || name.isEmpty()) {
             return false;
         }
-        return REPOSITORY_PATTERN.matcher(name).matches();
+        return scanRepository(name, true);
     }
-    
+
     /**
      * Validate tag name against OCI spec
      */
     public static boolean isValidTagName(String tag) {
-        if (tag == null || tag.isEmpty() || tag.length() > 128) {
-            return false;
-        }
-        return TAG_PATTERN.matcher(tag).matches();
+        return isValidTag(tag);
     }
-    
+
     /**
-     * Validate digest format
+     * Validate digest format: {@code sha256:[a-f0-9]{64}|sha512:[a-f0-9]{128}}
      */
     public static boolean isValidDigest(String digest) {
-        if (digest == null || digest.isEmpty()) {
+        if (digest == null) {
+            return false;
+        }
+        int hexLength;
+        if (digest.startsWith("sha256:")) {
+            hexLength = SHA256_HEX;
+        } else if (digest.startsWith("sha512:")) {
+            hexLength = SHA512_HEX;
+        } else {
             return false;
         }
-        return DIGEST_PATTERN.matcher(digest).matches();
+        return digest.length() == 7 + hexLength && isLowerHex(digest, 7, digest.length());
     }
-    
+
     /**
      * Check if reference is a digest (vs a tag)
      */
     public static boolean isDigest(String reference) {
         return isValidDigest(reference);
     }
+
+    private static boolean isLowerHex(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Slash-separated path components of lowercase alphanumeric runs joined by separators.
+     * The simple form allows one of {@code . _ -} between runs; the spec form allows one
+     * {@code .}, one or two {@code _}, or any number of {@code -}.
+     */
+    private static boolean scanRepository(String s, boolean specSeparators) {
+        int n = s.length();
+        int i = 0;
+        while (true) {
+            // Each component, and each run after a separator, starts with an alphanumeric
+            if (i >= n || !isLowerAlphanumeric(s.charAt(i))) {
+                return false;
+            }
+            i++;
+            while (i < n) {
+                char c = s.charAt(i);
+                if (isLowerAlphanumeric(c)) {
+                    i++;
+                    continue;
+                }
+                if (c == '/') {
+                    break;
+                }
+                if (c == '.') {
+                    i++;
+                } else if (c == '_') {
+                    i++;
+                    if (specSeparators && i < n && s.charAt(i) == '_') {
+                        i++;
+                    }
+                } else if (c == '-') {
+                    i++;
+                    while (specSeparators && i < n && s.charAt(i) == '-') {
+                        i++;
+                    }
+                } else {
+                    return false;
+                }
+                if (i >= n || !isLowerAlphanumeric(s.charAt(i))) {
+                    return false;
+                }
+            }
+            if (i == n) {
+                return true;
+            }
+            // Skip the slash; the next component must follow
+            i++;
+        }
+    }
+
+    private static boolean isLowerAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return isLowerAlphanumeric(c) || (c >= 'A' && c <= 'Z');
+    }
 }
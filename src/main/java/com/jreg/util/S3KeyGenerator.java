@@ -5,6 +5,8 @@ import com.jreg.model.Digest;
 /**
  * Generates S3 object keys for different entity types.
  * Implements the S3 key structure defined in the data model.
+ * Keys are built by plain concatenation, which compiles to a single sized copy instead of
+ * parsing a format string on every request.
  */
 public class S3KeyGenerator {
     
@@ -15,7 +17,7 @@ public class S3KeyGenerator {
     public static String blobKey(Digest digest) {
         String hex = digest.hex();
         String prefix = hex.substring(0, 2);
-        return String.format("blobs/%s/%s/%s", digest.algorithm(), prefix, hex);
+        return "blobs/" + digest.algorithm() + "/" + prefix + "/" + hex;
     }
     
     /**
@@ -23,7 +25,7 @@ public class S3KeyGenerator {
      * Format: manifests/{repository}/{algorithm}/{digest}
      */
     public static String manifestKey(String repository, Digest digest) {
-        return String.format("manifests/%s/%s/%s", repository, digest.algorithm(), digest.hex());
+        return "manifests/" + repository + "/" + digest.algorithm() + "/" + digest.hex();
     }
     
     /**
@@ -31,7 +33,7 @@ public class S3KeyGenerator {
      * Format: tags/{repository}/{tag-name}
      */
     public static String tagKey(String repository, String tagName) {
-        return String.format("tags/%s/%s", repository, tagName);
+        return "tags/" + repository + "/" + tagName;
     }
     
     /**
@@ -39,7 +41,7 @@ public class S3KeyGenerator {
      * Format: uploads/{session-id}/metadata.json
      */
     public static String uploadMetadataKey(String sessionId) {
-        return String.format("uploads/%s/metadata.json", sessionId);
+        return "uploads/" + sessionId + "/metadata.json";
     }
     
     /**
@@ -47,7 +49,7 @@ public class S3KeyGenerator {
      * Format: uploads/{session-id}/chunks/{start}-{end}
      */
     public static String uploadChunkKey(String sessionId, long start, long end) {
-        return String.format("uploads/%s/chunks/%d-%d", sessionId, start, end);
+        return "uploads/" + sessionId + "/chunks/" + start + "-" + end;
     }
     
     /**
@@ -55,7 +57,7 @@ public class S3KeyGenerator {
      * Format: referrers/{repository}/{algorithm}/{digest}.json
      */
     public static String referrersKey(String repository, Digest digest) {
-        return String.format("referrers/%s/%s/%s.json", repository, digest.algorithm(), digest.hex());
+        return "referrers/" + repository + "/" + digest.algorithm() + "/" + digest.hex() + ".json";
     }
     
     /**
@@ -63,7 +65,7 @@ public class S3KeyGenerator {
      * Format: tags/{repository}/
      */
     public static String tagListPrefix(String repository) {
-        return String.format("tags/%s/", repository);
+        return "tags/" + repository + "/";
     }
     
     /**
@@ -71,6 +73,6 @@ public class S3KeyGenerator {
      * Format: manifests/{repository}/
      */
     public static String manifestListPrefix(String repository) {
-        return String.format("manifests/%s/", repository);
+        return "manifests/" + repository + "/";
     }
 }
@@ -0,0 +1,85 @@
+package com.jreg.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.jreg.storage.ContainerInputStream;
+import com.jreg.storage.DirectBufferPool;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoggingFilterTest {
+
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger(AccessLog.LOGGER_NAME);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void attach() {
+        appender.start();
+        accessLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detach() {
+        accessLogger.detachAppender(appender);
+    }
+
+    @Test
+    void testBodiesAreCountedNotBuffered() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/v2/app/blobs/uploads/1");
+        request.setContent(new byte[300]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new LoggingFilter().doFilter(request, response, (req, res) -> {
+            req.getInputStream().readAllBytes();
+            // Written straight through to the underlying response
+            res.getOutputStream().write(new byte[1000]);
+            assertEquals(1000, response.getContentAsByteArray().length);
+            ((HttpServletResponse) res).setStatus(202);
+        });
+
+        assertEquals(1, appender.list.size());
+        String line = appender.list.get(0).getFormattedMessage();
+        assertTrue(line.startsWith("PATCH /v2/app/blobs/uploads/1 202 in=300 out=1000 "), line);
+        assertTrue(line.contains(" ttfb="), line);
+        assertNotNull(response.getHeader("X-Request-ID"));
+    }
+
+    @Test
+    void testIngestKeepsTheContainerFastPath() throws Exception {
+        byte[] body = new byte[1000];
+        ContainerInputStream container = new ContainerInputStream(body);
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/v2/app/blobs/uploads/1") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return container;
+            }
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new LoggingFilter().doFilter(request, response, (req, res) -> {
+            // Ingest reads into a direct buffer through the counting wrapper
+            ReadableByteChannel channel = DirectBufferPool.channelFor(req.getInputStream());
+            ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+            while (DirectBufferPool.fill(channel, buffer)) {
+                buffer.clear();
+            }
+            ((HttpServletResponse) res).setStatus(202);
+        });
+
+        assertTrue(container.getBufferReads() > 0);
+        String line = appender.list.get(0).getFormattedMessage();
+        assertTrue(line.startsWith("PATCH /v2/app/blobs/uploads/1 202 in=1000 "), line);
+    }
+}
@@ -0,0 +1,83 @@
+package com.jreg.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class OciHandlerMappingTest {
+
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new RoutesController())
+            .setCustomHandlerMapping(OciHandlerMapping::new)
+            .setPatternParser(null)
+            .build();
+
+    @Test
+    void testMultiSegmentNameReachesController() throws Exception {
+        mockMvc.perform(get("/v2/library/nginx/manifests/latest"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("manifest library/nginx latest"));
+        mockMvc.perform(post("/v2/myorg/team/app/blobs/uploads/"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("upload myorg/team/app"));
+    }
+
+    @Test
+    void testParamsConditionIsHonoured() throws Exception {
+        mockMvc.perform(head("/v2/a/b/blobs/sha256:1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Handler", "exists"));
+        mockMvc.perform(head("/v2/a/b/blobs/sha256:1").param("mount", "sha256:1").param("from", "c"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Handler", "mount"));
+    }
+
+    @Test
+    void testUnsupportedMethodAndOtherPaths() throws Exception {
+        mockMvc.perform(patch("/v2/library/nginx/manifests/latest"))
+                .andExpect(status().isMethodNotAllowed());
+        mockMvc.perform(get("/v2/"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("version"));
+    }
+
+    @RestController
+    @RequestMapping("/v2")
+    static class RoutesController {
+
+        @GetMapping("/")
+        public String version() {
+            return "version";
+        }
+
+        @GetMapping("/{name:.+}/manifests/{reference}")
+        public String manifest(@PathVariable("name") String name, @PathVariable("reference") String reference) {
+            return "manifest " + name + " " + reference;
+        }
+
+        @PostMapping("/{name:.+}/blobs/uploads/")
+        public String upload(@PathVariable("name") String name) {
+            return "upload " + name;
+        }
+
+        @RequestMapping(method = RequestMethod.HEAD, path = "/{name:.+}/blobs/{digest}")
+        public ResponseEntity<Void> exists(@PathVariable("name") String name) {
+            return ResponseEntity.ok().header("X-Handler", "exists").build();
+        }
+
+        @RequestMapping(method = RequestMethod.HEAD, path = "/{name:.+}/blobs/{digest}", params = "mount")
+        public ResponseEntity<Void> mount(@RequestParam("from") String from) {
+            return ResponseEntity.ok().header("X-Handler", "mount").build();
+        }
+    }
+}
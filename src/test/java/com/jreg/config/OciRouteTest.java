@@ -0,0 +1,59 @@
+package com.jreg.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OciRouteTest {
+
+    private static final String DIGEST = "sha256:" + "a".repeat(64);
+
+    @Test
+    void testSingleAndMultiSegmentNames() {
+        assertEquals(new OciRoute(OciRoute.Kind.MANIFEST, "nginx", "latest"),
+                OciRoute.parse("/v2/nginx/manifests/latest"));
+        assertEquals(new OciRoute(OciRoute.Kind.MANIFEST, "library/nginx", "latest"),
+                OciRoute.parse("/v2/library/nginx/manifests/latest"));
+        assertEquals(new OciRoute(OciRoute.Kind.BLOB, "myorg/team/app", DIGEST),
+                OciRoute.parse("/v2/myorg/team/app/blobs/" + DIGEST));
+        assertEquals(new OciRoute(OciRoute.Kind.TAGS, "library/nginx", null),
+                OciRoute.parse("/v2/library/nginx/tags/list"));
+        assertEquals(new OciRoute(OciRoute.Kind.REFERRERS, "a/b", DIGEST),
+                OciRoute.parse("/v2/a/b/referrers/" + DIGEST));
+    }
+
+    @Test
+    void testUploadRoutes() {
+        assertEquals(new OciRoute(OciRoute.Kind.UPLOAD_START, "library/nginx", null),
+                OciRoute.parse("/v2/library/nginx/blobs/uploads/"));
+        assertEquals(new OciRoute(OciRoute.Kind.UPLOAD_START, "library/nginx", null),
+                OciRoute.parse("/v2/library/nginx/blobs/uploads"));
+        assertEquals(new OciRoute(OciRoute.Kind.UPLOAD, "library/nginx", "1234"),
+                OciRoute.parse("/v2/library/nginx/blobs/uploads/1234"));
+    }
+
+    @Test
+    void testTrailingSegmentsWinOverName() {
+        // Names may themselves contain endpoint words; only the trailing segments select the route
+        assertEquals(new OciRoute(OciRoute.Kind.BLOB, "a/blobs/uploads", DIGEST),
+                OciRoute.parse("/v2/a/blobs/uploads/blobs/" + DIGEST));
+        assertEquals(new OciRoute(OciRoute.Kind.MANIFEST, "manifests", "v1"),
+                OciRoute.parse("/v2/manifests/manifests/v1"));
+        assertEquals(Map.of("name", "tags/list", "reference", "v1"),
+                OciRoute.parse("/v2/tags/list/manifests/v1").variables());
+    }
+
+    @Test
+    void testNonRoutes() {
+        assertNull(OciRoute.parse("/v2/"));
+        assertNull(OciRoute.parse("/v2/nginx"));
+        assertNull(OciRoute.parse("/v2/manifests/latest"));
+        assertNull(OciRoute.parse("/v2//manifests/latest"));
+        assertNull(OciRoute.parse("/v2/nginx/manifests/"));
+        assertNull(OciRoute.parse("/v2/nginx/tags/other"));
+        assertNull(OciRoute.parse("/v2/nginx/uploads/1234"));
+        assertNull(OciRoute.parse("/actuator/health"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.jreg.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskExecutorsTest {
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    void testVirtualTasksSeeSubmitterMdc() throws Exception {
+        ExecutorService executor = TaskExecutors.perTask("test-", true);
+        try {
+            MDC.put("request_id", "req-1");
+            Future<String> seen = executor.submit(() -> {
+                assertTrue(Thread.currentThread().isVirtual());
+                return MDC.get("request_id");
+            });
+
+            assertEquals("req-1", seen.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testPooledThreadDoesNotKeepPreviousTaskMdc() throws Exception {
+        ExecutorService executor = TaskExecutors.fixed("test-", 1);
+        try {
+            MDC.put("request_id", "req-1");
+            executor.submit(() -> MDC.put("digest", "sha256:abc")).get();
+
+            MDC.clear();
+            Future<String> seen = executor.submit(() -> MDC.get("request_id") + "/" + MDC.get("digest"));
+
+            assertEquals("null/null", seen.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
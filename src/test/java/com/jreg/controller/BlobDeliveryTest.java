@@ -0,0 +1,54 @@
+package com.jreg.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobDeliveryTest {
+
+    @Test
+    void testSynchronousDeliveryLeavesResponseAlone() {
+        ResponseEntity<InputStreamResource> response = response(new ByteArrayInputStream(new byte[4]));
+
+        assertSame(response, new BlobDelivery(false).deliver(response));
+    }
+
+    @Test
+    void testAsyncDeliveryStreamsBodyAndKeepsHeaders() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        byte[] content = "layer bytes".getBytes(StandardCharsets.UTF_8);
+        ResponseEntity<InputStreamResource> response = response(new ByteArrayInputStream(content) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        });
+
+        ResponseEntity<?> delivered = new BlobDelivery(true).deliver(response);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, delivered.getStatusCode());
+        assertEquals("bytes 0-10/20", delivered.getHeaders().getFirst("Content-Range"));
+        StreamingResponseBody body = assertInstanceOf(StreamingResponseBody.class, delivered.getBody());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertArrayEquals(content, out.toByteArray());
+        assertTrue(closed.get());
+    }
+
+    private static ResponseEntity<InputStreamResource> response(ByteArrayInputStream content) {
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header("Content-Range", "bytes 0-10/20")
+                .header(HttpHeaders.CONTENT_TYPE, "application/octet-stream")
+                .body(new InputStreamResource(content));
+    }
+}
@@ -0,0 +1,48 @@
+package com.jreg.controller;
+
+import com.jreg.model.Digest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentCachingTest {
+
+    private static final Digest DIGEST =
+            Digest.parse("sha256:b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9");
+
+    @Test
+    void testEtagIsQuotedDigest() {
+        assertEquals("\"sha256:b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9\"",
+                ContentCaching.etag(DIGEST));
+    }
+
+    @Test
+    void testIfNoneMatch() {
+        String etag = ContentCaching.etag(DIGEST);
+        assertTrue(ContentCaching.isNotModified(etag, DIGEST));
+        assertTrue(ContentCaching.isNotModified("\"other\", " + etag, DIGEST));
+        assertTrue(ContentCaching.isNotModified("W/" + etag, DIGEST));
+        assertTrue(ContentCaching.isNotModified("*", DIGEST));
+        assertFalse(ContentCaching.isNotModified("\"other\"", DIGEST));
+        assertFalse(ContentCaching.isNotModified(DIGEST.toString(), DIGEST));
+        assertFalse(ContentCaching.isNotModified(null, DIGEST));
+    }
+
+    @Test
+    void testIfRange() {
+        Instant lastModified = Instant.parse("2024-01-02T03:04:05Z");
+        assertTrue(ContentCaching.isRangeApplicable(null, DIGEST, lastModified));
+        assertTrue(ContentCaching.isRangeApplicable(ContentCaching.etag(DIGEST), DIGEST, lastModified));
+        assertFalse(ContentCaching.isRangeApplicable("W/" + ContentCaching.etag(DIGEST), DIGEST, lastModified));
+        assertFalse(ContentCaching.isRangeApplicable("\"other\"", DIGEST, lastModified));
+        assertTrue(ContentCaching.isRangeApplicable("Tue, 2 Jan 2024 03:04:05 GMT", DIGEST, lastModified));
+        assertFalse(ContentCaching.isRangeApplicable("Wed, 3 Jan 2024 03:04:05 GMT", DIGEST, lastModified));
+    }
+
+    @Test
+    void testImmutableCacheControl() {
+        assertTrue(ContentCaching.IMMUTABLE.getHeaderValue().contains("immutable"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.jreg.controller;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataBufferInputStreamTest {
+
+    private final NettyDataBufferFactory factory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+
+    @Test
+    void testReadsBodyAndReleasesBuffers() throws Exception {
+        AtomicReference<Subscriber<? super DataBuffer>> subscriber = new AtomicReference<>();
+        DataBufferInputStream stream = DataBufferInputStream.subscribe(publisher(subscriber, new AtomicBoolean()), 2);
+        PooledDataBuffer first = buffer("abc");
+        PooledDataBuffer second = buffer("de");
+        subscriber.get().onNext(first);
+        subscriber.get().onNext(second);
+        subscriber.get().onComplete();
+
+        assertArrayEquals("abcde".getBytes(StandardCharsets.UTF_8), stream.readAllBytes());
+        assertFalse(first.isAllocated());
+        assertFalse(second.isAllocated());
+    }
+
+    @Test
+    void testBufferDeliveredAfterCloseIsReleased() {
+        AtomicReference<Subscriber<? super DataBuffer>> subscriber = new AtomicReference<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        DataBufferInputStream stream = DataBufferInputStream.subscribe(publisher(subscriber, cancelled), 2);
+        PooledDataBuffer queued = buffer("abc");
+        subscriber.get().onNext(queued);
+
+        stream.close();
+        assertTrue(cancelled.get());
+        assertFalse(queued.isAllocated());
+
+        // Already in flight when the subscription was cancelled
+        PooledDataBuffer late = buffer("def");
+        subscriber.get().onNext(late);
+        assertFalse(late.isAllocated());
+    }
+
+    private PooledDataBuffer buffer(String content) {
+        return (PooledDataBuffer) factory.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Publisher<DataBuffer> publisher(AtomicReference<Subscriber<? super DataBuffer>> subscriber,
+                                                   AtomicBoolean cancelled) {
+        return s -> {
+            subscriber.set(s);
+            s.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                }
+            });
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.jreg.controller;
+
+import com.jreg.model.ByteRange;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartByteRangesTest {
+
+    @Test
+    void testNearbyPartsShareOneRead() throws Exception {
+        byte[] content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        List<ByteRange> reads = new ArrayList<>();
+        List<ByteRange> parts = List.of(new ByteRange(0, 9), new ByteRange(100, 109), new ByteRange(900, 909));
+        MultipartByteRanges multipart = new MultipartByteRanges(parts, "application/octet-stream", content.length);
+
+        byte[] body;
+        try (InputStream in = multipart.open(window -> {
+            reads.add(window);
+            return new ByteArrayInputStream(content, (int) window.start(), (int) window.size());
+        }, 200)) {
+            body = in.readAllBytes();
+        }
+
+        assertEquals(List.of(new ByteRange(0, 109), new ByteRange(900, 909)), reads);
+        assertEquals(multipart.getContentLength(), body.length);
+
+        String text = new String(body, StandardCharsets.US_ASCII);
+        String boundary = multipart.getContentType().substring("multipart/byteranges; boundary=".length());
+        assertTrue(text.contains("Content-Range: bytes 100-109/1000\r\n\r\n"
+                + new String(content, 100, 10, StandardCharsets.US_ASCII) + "\r\n--" + boundary));
+        assertTrue(text.endsWith("\r\n--" + boundary + "--\r\n"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.jreg.controller;
+
+import com.jreg.model.ByteRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeHeaderTest {
+
+    @Test
+    void testSingleRangeForms() {
+        assertEquals(List.of(new ByteRange(0, 9)), RangeHeader.parse("bytes=0-9", 100));
+        assertEquals(List.of(new ByteRange(90, 99)), RangeHeader.parse("bytes=-10", 100));
+        assertEquals(List.of(new ByteRange(50, 99)), RangeHeader.parse("bytes=50-", 100));
+        // Last position past the end is clamped
+        assertEquals(List.of(new ByteRange(50, 99)), RangeHeader.parse("bytes=50-500", 100));
+    }
+
+    @Test
+    void testMultipleRangesKeepRequestOrder() {
+        assertEquals(List.of(new ByteRange(50, 59), new ByteRange(0, 4), new ByteRange(95, 99)),
+                RangeHeader.parse("bytes=50-59, 0-4,-5", 100));
+    }
+
+    @Test
+    void testUnsatisfiableRangesAreDropped() {
+        assertEquals(List.of(), RangeHeader.parse("bytes=100-200", 100));
+        assertEquals(List.of(new ByteRange(0, 0)), RangeHeader.parse("bytes=0-0,150-", 100));
+    }
+
+    @Test
+    void testMalformedHeaderIsIgnored() {
+        assertNull(RangeHeader.parse("items=0-9", 100));
+        assertNull(RangeHeader.parse("bytes=9-0", 100));
+        assertNull(RangeHeader.parse("bytes=abc", 100));
+        assertNull(RangeHeader.parse("bytes=", 100));
+    }
+
+    @Test
+    void testCoalesce() {
+        List<ByteRange> merged = RangeHeader.coalesce(
+                List.of(new ByteRange(50, 59), new ByteRange(0, 9), new ByteRange(5, 20), new ByteRange(70, 79)), 10);
+        assertEquals(List.of(new ByteRange(0, 20), new ByteRange(50, 79)), merged);
+    }
+}
@@ -0,0 +1,168 @@
+package com.jreg.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jreg.exception.ReactiveExceptionHandler;
+import com.jreg.model.Digest;
+import com.jreg.service.BlobRedirectService;
+import com.jreg.service.BlobService;
+import com.jreg.service.PullThroughCache;
+import com.jreg.service.ValidationService;
+import com.jreg.storage.BlockCache;
+import com.jreg.storage.DirectBufferPool;
+import com.jreg.storage.DownloadSpool;
+import com.jreg.storage.InMemoryAsyncStorageBackend;
+import com.jreg.storage.InMemoryStorageBackend;
+import com.jreg.storage.LocalBlobUrlSigner;
+import com.jreg.storage.ParallelPartUploader;
+import com.jreg.storage.UpstreamRegistryClient;
+import com.jreg.util.DigestCalculator;
+import com.jreg.util.S3KeyGenerator;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveBlobControllerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryStorageBackend storage = new InMemoryStorageBackend();
+    private final InMemoryAsyncStorageBackend asyncStorage = new InMemoryAsyncStorageBackend(storage);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private String upstreamBase = "";
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testBlobIsStreamedFromAsyncStorage() {
+        byte[] content = randomBytes(200_000);
+        Digest digest = store(content);
+
+        byte[] body = client().get().uri("/v2/app/blobs/" + digest)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentLength(content.length)
+                .expectHeader().valueEquals("Docker-Content-Digest", digest.toString())
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertArrayEquals(content, body);
+        assertEquals(2, asyncStorage.getRequests());
+    }
+
+    @Test
+    void testSingleRangeIsPartialContent() {
+        byte[] content = randomBytes(1000);
+        Digest digest = store(content);
+
+        byte[] body = client().get().uri("/v2/app/blobs/" + digest)
+                .header("Range", "bytes=100-199")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectHeader().valueEquals("Content-Range", "bytes 100-199/1000")
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 200), body);
+    }
+
+    @Test
+    void testMissingBlobIsOciError() {
+        Digest missing = DigestCalculator.calculateSha256("missing".getBytes());
+
+        client().head().uri("/v2/app/blobs/" + missing)
+                .exchange()
+                .expectStatus().isNotFound();
+        client().get().uri("/v2/app/blobs/" + missing)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.errors[0].code").isEqualTo("BLOB_UNKNOWN");
+    }
+
+    @Test
+    void testNotModifiedChecksTheUpstreamInPullThroughMode() throws Exception {
+        Digest upstreamOnly = DigestCalculator.calculateSha256("upstream".getBytes());
+        Digest missing = DigestCalculator.calculateSha256("missing".getBytes());
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v2/", exchange -> {
+            boolean found = exchange.getRequestURI().getPath().equals("/v2/app/blobs/" + upstreamOnly);
+            exchange.sendResponseHeaders(found ? 200 : 404, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            upstreamBase = "http://127.0.0.1:" + server.getAddress().getPort();
+            WebTestClient client = client();
+
+            client.head().uri("/v2/app/blobs/" + upstreamOnly)
+                    .header("If-None-Match", "\"" + upstreamOnly + "\"")
+                    .exchange()
+                    .expectStatus().isNotModified()
+                    .expectHeader().valueEquals("Docker-Content-Digest", upstreamOnly.toString());
+            client.get().uri("/v2/app/blobs/" + upstreamOnly)
+                    .header("If-None-Match", "\"" + upstreamOnly + "\"")
+                    .exchange()
+                    .expectStatus().isNotModified();
+            client.head().uri("/v2/app/blobs/" + missing)
+                    .header("If-None-Match", "\"" + missing + "\"")
+                    .exchange()
+                    .expectStatus().isNotFound();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private Digest store(byte[] content) {
+        Digest digest = DigestCalculator.calculateSha256(content);
+        storage.putObject(S3KeyGenerator.blobKey(digest), content, "application/octet-stream");
+        return digest;
+    }
+
+    private WebTestClient client() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        DirectBufferPool bufferPool = new DirectBufferPool(DataSize.ofBytes(64), 8,
+                DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+        ParallelPartUploader partUploader = new ParallelPartUploader(
+                storage, bufferPool, executor, DataSize.ofBytes(1000), 2);
+        BlockCache blockCache = new BlockCache(storage, false, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1), "",
+                DataSize.ofMegabytes(1), DataSize.ofMegabytes(1), new SimpleMeterRegistry());
+        UpstreamRegistryClient upstream = new UpstreamRegistryClient(upstreamBase, "", "", Duration.ofSeconds(1), "",
+                objectMapper);
+        PullThroughCache pullThroughCache = new PullThroughCache(upstream, storage, partUploader, bufferPool,
+                executor, tempDir.toString(), new SimpleMeterRegistry());
+        DownloadSpool downloadSpool = new DownloadSpool(false, tempDir.toString(), DataSize.ofMegabytes(1),
+                DataSize.ofMegabytes(1), bufferPool, executor, new SimpleMeterRegistry());
+        BlobService blobService = new BlobService(storage, Optional.of(asyncStorage),
+                new ValidationService(objectMapper), partUploader, blockCache, downloadSpool, pullThroughCache, new SimpleMeterRegistry());
+        BlobRedirectService redirectService = new BlobRedirectService(new LocalBlobUrlSigner(), false,
+                Duration.ofMinutes(5), Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+        return WebTestClient.bindToController(
+                        new ReactiveBlobController(blobService, redirectService, DataSize.ofKilobytes(64)))
+                .controllerAdvice(new ReactiveExceptionHandler())
+                .build();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,167 @@
+package com.jreg.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jreg.exception.ReactiveExceptionHandler;
+import com.jreg.model.Digest;
+import com.jreg.service.BlobService;
+import com.jreg.service.PullThroughCache;
+import com.jreg.service.UploadSessionService;
+import com.jreg.service.ValidationService;
+import com.jreg.storage.BlockCache;
+import com.jreg.storage.DirectBufferPool;
+import com.jreg.storage.DownloadSpool;
+import com.jreg.storage.InMemoryAsyncStorageBackend;
+import com.jreg.storage.InMemoryStorageBackend;
+import com.jreg.storage.ParallelPartUploader;
+import com.jreg.storage.UploadSpool;
+import com.jreg.storage.UpstreamRegistryClient;
+import com.jreg.util.DigestCalculator;
+import com.jreg.util.S3KeyGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveUploadControllerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryStorageBackend storage = new InMemoryStorageBackend();
+    private final InMemoryAsyncStorageBackend asyncStorage = new InMemoryAsyncStorageBackend(storage);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testMonolithicUploadIsVerifiedByStorage() throws Exception {
+        byte[] content = randomBytes(5000);
+        Digest digest = DigestCalculator.calculateSha256(content);
+
+        client().post().uri("/v2/app/blobs/uploads/?digest=" + digest)
+                .bodyValue(content)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals("Docker-Content-Digest", digest.toString());
+
+        assertArrayEquals(content, storage.getObject(S3KeyGenerator.blobKey(digest)).readAllBytes());
+        // One HEAD for deduplication, one verified PUT
+        assertEquals(2, asyncStorage.getRequests());
+    }
+
+    @Test
+    void testMonolithicUploadWithWrongDigestIsRejected() {
+        byte[] content = randomBytes(5000);
+        Digest wrong = DigestCalculator.calculateSha256("other".getBytes());
+
+        client().post().uri("/v2/app/blobs/uploads/?digest=" + wrong)
+                .bodyValue(content)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].code").isEqualTo("DIGEST_INVALID");
+
+        assertFalse(storage.objectExists(S3KeyGenerator.blobKey(wrong)));
+    }
+
+    @Test
+    void testChunkedUploadReadsBodiesOffTheEventLoop() throws Exception {
+        byte[] content = randomBytes(3000);
+        Digest digest = DigestCalculator.calculateSha256(content);
+        WebTestClient client = client();
+
+        String location = client.post().uri("/v2/app/blobs/uploads/")
+                .exchange()
+                .expectStatus().isAccepted()
+                .returnResult(Void.class).getResponseHeaders().getLocation().toString();
+
+        client.patch().uri(location)
+                .header("Content-Range", "0-1999")
+                .bodyValue(Arrays.copyOfRange(content, 0, 2000))
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectHeader().valueEquals("Range", "0-1999");
+
+        client.put().uri(location + "?digest=" + digest)
+                .bodyValue(Arrays.copyOfRange(content, 2000, 3000))
+                .exchange()
+                .expectStatus().isCreated();
+
+        assertArrayEquals(content, storage.getObject(S3KeyGenerator.blobKey(digest)).readAllBytes());
+    }
+
+    @Test
+    void testFailedMonolithicPutKeepsTheSession() throws Exception {
+        byte[] content = randomBytes(3000);
+        Digest digest = DigestCalculator.calculateSha256(content);
+        WebTestClient client = client();
+
+        String location = client.post().uri("/v2/app/blobs/uploads/")
+                .exchange()
+                .expectStatus().isAccepted()
+                .returnResult(Void.class).getResponseHeaders().getLocation().toString();
+
+        client.put().uri(location + "?digest=" + DigestCalculator.calculateSha256("other".getBytes()))
+                .bodyValue(content)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        // The client retries on the same session
+        client.put().uri(location + "?digest=" + digest)
+                .bodyValue(content)
+                .exchange()
+                .expectStatus().isCreated();
+
+        assertArrayEquals(content, storage.getObject(S3KeyGenerator.blobKey(digest)).readAllBytes());
+        client.get().uri(location)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private WebTestClient client() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ValidationService validationService = new ValidationService(objectMapper);
+        DirectBufferPool bufferPool = new DirectBufferPool(DataSize.ofBytes(64), 8,
+                DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+        ParallelPartUploader partUploader = new ParallelPartUploader(
+                storage, bufferPool, executor, DataSize.ofBytes(1000), 2);
+        BlockCache blockCache = new BlockCache(storage, false, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1), "",
+                DataSize.ofMegabytes(1), DataSize.ofMegabytes(1), new SimpleMeterRegistry());
+        UpstreamRegistryClient upstream = new UpstreamRegistryClient("", "", "", Duration.ofSeconds(1), "",
+                objectMapper);
+        PullThroughCache pullThroughCache = new PullThroughCache(upstream, storage, partUploader, bufferPool,
+                executor, tempDir.toString(), new SimpleMeterRegistry());
+        DownloadSpool downloadSpool = new DownloadSpool(false, tempDir.toString(), DataSize.ofMegabytes(1),
+                DataSize.ofMegabytes(1), bufferPool, executor, new SimpleMeterRegistry());
+        BlobService blobService = new BlobService(storage, Optional.of(asyncStorage), validationService,
+                partUploader, blockCache, downloadSpool, pullThroughCache, new SimpleMeterRegistry());
+        UploadSessionService uploadSessionService = new UploadSessionService(storage, validationService,
+                new UploadSpool(false, tempDir.toString(), bufferPool), blobService, bufferPool,
+                DataSize.ofBytes(1000), false, DataSize.ofMegabytes(64), List.of("sha256"), Duration.ofHours(24));
+
+        return WebTestClient.bindToController(new ReactiveUploadController(uploadSessionService, blobService))
+                .controllerAdvice(new ReactiveExceptionHandler())
+                .build();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
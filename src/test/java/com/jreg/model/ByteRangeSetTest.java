@@ -0,0 +1,64 @@
+package com.jreg.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteRangeSetTest {
+
+    @Test
+    void testOutOfOrderRangesCoalesce() {
+        ByteRangeSet set = new ByteRangeSet();
+        set.add(200, 299);
+        set.add(0, 99);
+        assertFalse(set.isContiguous());
+        assertEquals(99, set.contiguousEnd());
+        assertEquals(List.of(new ByteRange(100, 199)), set.gaps());
+
+        set.add(100, 199);
+        assertTrue(set.isContiguous());
+        assertEquals(299, set.contiguousEnd());
+        assertEquals(300, set.size());
+        assertTrue(set.gaps().isEmpty());
+    }
+
+    @Test
+    void testMissingStartIsAGap() {
+        ByteRangeSet set = new ByteRangeSet();
+        set.add(10, 19);
+        assertEquals(-1, set.contiguousEnd());
+        assertEquals(List.of(new ByteRange(0, 9)), set.gaps());
+    }
+
+    @Test
+    void testOverlaps() {
+        ByteRangeSet set = new ByteRangeSet();
+        set.add(10, 19);
+        assertTrue(set.overlaps(15, 30));
+        assertTrue(set.overlaps(0, 10));
+        assertFalse(set.overlaps(0, 9));
+        assertFalse(set.overlaps(20, Long.MAX_VALUE));
+    }
+
+    @Test
+    void testRemoveSplitsInterval() {
+        ByteRangeSet set = new ByteRangeSet();
+        set.add(0, 99);
+        set.remove(40, 59);
+        assertEquals("[0-39, 60-99]", set.toString());
+        set.remove(0, 39);
+        set.remove(60, 99);
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void testOpenEndedReservation() {
+        ByteRangeSet set = new ByteRangeSet();
+        set.add(100, Long.MAX_VALUE);
+        assertTrue(set.overlaps(5000, 5999));
+        set.remove(100, Long.MAX_VALUE);
+        assertTrue(set.isEmpty());
+    }
+}
@@ -0,0 +1,70 @@
+package com.jreg.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DigestTest {
+
+    private static final String SHA256_HEX = "b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9";
+
+    @Test
+    void testRoundTrip() {
+        Random random = new Random(48);
+        for (int length : new int[] {32, 64}) {
+            for (int i = 0; i < 1000; i++) {
+                byte[] hash = new byte[length];
+                random.nextBytes(hash);
+                String hex = HexFormat.of().formatHex(hash);
+                String algorithm = length == 32 ? "sha256" : "sha512";
+
+                Digest digest = Digest.parse(algorithm + ":" + hex);
+                assertEquals(algorithm, digest.algorithm());
+                assertEquals(hex, digest.hex());
+                assertEquals(algorithm + ":" + hex, digest.toString());
+                assertArrayEquals(hash, digest.toBytes());
+                assertEquals(digest, Digest.of(algorithm, hash));
+                assertEquals(digest, new Digest(algorithm, hex));
+            }
+        }
+    }
+
+    @Test
+    void testEqualityAndOrder() {
+        Digest a = Digest.parse("sha256:" + SHA256_HEX);
+        Digest b = new Digest("sha256", SHA256_HEX);
+        Digest c = Digest.parse("sha256:" + SHA256_HEX.substring(0, 63) + "a");
+        Digest d = Digest.parse("sha512:" + SHA256_HEX + SHA256_HEX);
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, c);
+        assertNotEquals(a, d);
+        assertTrue(a.compareTo(c) < 0);
+        assertTrue(c.compareTo(d) < 0);
+        assertEquals(0, a.compareTo(b));
+    }
+
+    @Test
+    void testWords() {
+        Digest digest = Digest.parse("sha256:" + SHA256_HEX);
+        assertEquals(0xb94d27b9934d3e08L, digest.word(0));
+        assertEquals(0x9088f7ace2efcde9L, digest.word(3));
+    }
+
+    @Test
+    void testRejectsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> Digest.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> Digest.parse(SHA256_HEX));
+        assertThrows(IllegalArgumentException.class, () -> Digest.parse("md5:" + SHA256_HEX));
+        assertThrows(IllegalArgumentException.class, () -> Digest.parse("sha256:" + SHA256_HEX.toUpperCase()));
+        assertThrows(IllegalArgumentException.class, () -> Digest.parse("sha256:" + SHA256_HEX + "0"));
+        assertThrows(IllegalArgumentException.class, () -> Digest.parse("sha256:" + SHA256_HEX + SHA256_HEX));
+        assertThrows(IllegalArgumentException.class, () -> Digest.parse("sha512:" + SHA256_HEX));
+        assertThrows(IllegalArgumentException.class, () -> new Digest("sha256", null));
+        assertThrows(IllegalArgumentException.class, () -> Digest.of("sha512", new byte[32]));
+    }
+}
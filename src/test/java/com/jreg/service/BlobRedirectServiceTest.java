@@ -0,0 +1,45 @@
+package com.jreg.service;
+
+import com.jreg.model.Digest;
+import com.jreg.storage.LocalBlobUrlSigner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobRedirectServiceTest {
+
+    private static final Digest DIGEST =
+            Digest.parse("sha256:b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9");
+
+    private final LocalBlobUrlSigner signer = new LocalBlobUrlSigner();
+
+    @Test
+    void testUrlIsCachedWhileFresh() {
+        BlobRedirectService service = new BlobRedirectService(signer, true,
+                Duration.ofMinutes(5), Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+        URI first = service.getDownloadUrl(DIGEST);
+        URI second = service.getDownloadUrl(DIGEST);
+
+        assertEquals(first, second);
+        assertEquals(1, signer.getSignedCount());
+        assertTrue(first.getPath().endsWith("/" + DIGEST.hex()));
+    }
+
+    @Test
+    void testUrlIsResignedNearExpiry() {
+        // Every URL is already inside the refresh margin when issued
+        BlobRedirectService service = new BlobRedirectService(signer, true,
+                Duration.ofSeconds(30), Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+        URI first = service.getDownloadUrl(DIGEST);
+        URI second = service.getDownloadUrl(DIGEST);
+
+        assertNotEquals(first, second);
+        assertEquals(2, signer.getSignedCount());
+    }
+}
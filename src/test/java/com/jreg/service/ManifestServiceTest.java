@@ -0,0 +1,114 @@
+package com.jreg.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jreg.exception.DigestInvalidException;
+import com.jreg.model.Digest;
+import com.jreg.storage.DirectBufferPool;
+import com.jreg.storage.InMemoryAsyncStorageBackend;
+import com.jreg.storage.InMemoryStorageBackend;
+import com.jreg.storage.ParallelPartUploader;
+import com.jreg.storage.UpstreamRegistryClient;
+import com.jreg.util.DigestCalculator;
+import com.jreg.util.DigestEngine;
+import com.jreg.util.S3KeyGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManifestServiceTest {
+
+    private static final String MANIFEST_TYPE = "application/vnd.oci.image.manifest.v1+json";
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryStorageBackend storage = new InMemoryStorageBackend();
+    private final InMemoryAsyncStorageBackend asyncStorage = new InMemoryAsyncStorageBackend(storage);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testReferrersIndexFiltersByArtifactType() {
+        ManifestService service = newService();
+        Digest subject = DigestCalculator.calculateSha256("subject".getBytes(StandardCharsets.UTF_8));
+        Digest sbom = store("{\"schemaVersion\":2,\"artifactType\":\"application/spdx+json\"}");
+        Digest signature = store("{\"schemaVersion\":2,\"artifactType\":\"application/vnd.dev.cosign\"}");
+        storage.putObject(S3KeyGenerator.referrersKey("app", subject), ("{\"manifests\":["
+                + "{\"digest\":\"" + sbom + "\",\"artifactType\":\"application/spdx+json\"},"
+                + "{\"digest\":\"" + signature + "\",\"artifactType\":\"application/vnd.dev.cosign\"}]}")
+                .getBytes(StandardCharsets.UTF_8), "application/vnd.oci.image.index.v1+json");
+
+        assertEquals(2, service.getReferrersIndex("app", subject, null).get("manifests").size());
+        JsonNode filtered = service.getReferrersIndex("app", subject, "application/spdx+json").get("manifests");
+        assertEquals(1, filtered.size());
+        assertEquals(sbom.toString(), filtered.get(0).get("digest").asText());
+
+        Digest other = DigestCalculator.calculateSha256("other".getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, service.getReferrersIndex("app", other, null).get("manifests").size());
+    }
+
+    @Test
+    void testFindManifestAsyncIsEmptyWhenMissing() {
+        ManifestService service = newService();
+        Digest missing = DigestCalculator.calculateSha256("missing".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(service.findManifestAsync("app", missing).join().isEmpty());
+    }
+
+    @Test
+    void testStoreManifestUsesReferenceAlgorithm() {
+        ManifestService service = newService();
+        byte[] content = ("{\"schemaVersion\":2,\"mediaType\":\"" + MANIFEST_TYPE + "\","
+                + "\"config\":{\"mediaType\":\"application/vnd.oci.image.config.v1+json\",\"size\":2,"
+                + "\"digest\":\"" + DigestEngine.digest("sha256", new byte[2]) + "\"},"
+                + "\"layers\":[{\"mediaType\":\"application/vnd.oci.image.layer.v1.tar\",\"size\":2,"
+                + "\"digest\":\"" + DigestEngine.digest("sha512", new byte[2]) + "\"}]}").getBytes(StandardCharsets.UTF_8);
+
+        Digest sha512 = DigestEngine.digest("sha512", content);
+        assertEquals(sha512, service.storeManifest("app", content, MANIFEST_TYPE, sha512).getDigest());
+        assertTrue(storage.objectExists(S3KeyGenerator.manifestKey("app", sha512)));
+
+        Digest sha256 = DigestEngine.digest("sha256", content);
+        assertEquals(sha256, service.storeManifest("app", content, MANIFEST_TYPE).getDigest());
+
+        Digest other = DigestEngine.digest("sha512", new byte[1]);
+        assertThrows(DigestInvalidException.class, () -> service.storeManifest("app", content, MANIFEST_TYPE, other));
+        assertFalse(storage.objectExists(S3KeyGenerator.manifestKey("app", other)));
+    }
+
+    private Digest store(String json) {
+        byte[] content = json.getBytes(StandardCharsets.UTF_8);
+        Digest digest = DigestCalculator.calculateSha256(content);
+        storage.putObject(S3KeyGenerator.manifestKey("app", digest), content, MANIFEST_TYPE);
+        return digest;
+    }
+
+    private ManifestService newService() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        DirectBufferPool bufferPool = new DirectBufferPool(DataSize.ofBytes(64), 8,
+                DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+        UpstreamRegistryClient upstream = new UpstreamRegistryClient("", "", "", Duration.ofSeconds(1), "",
+                objectMapper);
+        PullThroughCache pullThroughCache = new PullThroughCache(upstream, storage,
+                new ParallelPartUploader(storage, bufferPool, executor, DataSize.ofBytes(1000), 2),
+                bufferPool, executor, tempDir.toString(), new SimpleMeterRegistry());
+        return new ManifestService(storage, Optional.of(asyncStorage), new ValidationService(objectMapper),
+                objectMapper, pullThroughCache, new SimpleMeterRegistry());
+    }
+}
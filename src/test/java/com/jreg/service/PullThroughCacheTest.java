@@ -0,0 +1,186 @@
+package com.jreg.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jreg.model.Digest;
+import com.jreg.model.Manifest;
+import com.jreg.service.PullThroughCache.PulledBlob;
+import com.jreg.storage.DirectBufferPool;
+import com.jreg.storage.InMemoryStorageBackend;
+import com.jreg.storage.ParallelPartUploader;
+import com.jreg.storage.UpstreamRegistryClient;
+import com.jreg.util.DigestCalculator;
+import com.jreg.util.S3KeyGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the pull-through cache against a stand-in upstream registry that requires bearer tokens
+ */
+class PullThroughCacheTest {
+
+    private static final String MANIFEST_TYPE = "application/vnd.oci.image.manifest.v1+json";
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryStorageBackend storage = new InMemoryStorageBackend();
+    private final DirectBufferPool bufferPool = new DirectBufferPool(DataSize.ofBytes(64), 8,
+            DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final byte[] manifest = "{\"schemaVersion\":2,\"mediaType\":\"application/vnd.oci.image.manifest.v1+json\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    private final Digest manifestDigest = DigestCalculator.calculateSha256(manifest);
+    private final byte[] blob = randomBytes(5000);
+    private final Digest blobDigest = DigestCalculator.calculateSha256(blob);
+    private final AtomicInteger blobRequests = new AtomicInteger();
+    private final CountDownLatch releaseBlob = new CountDownLatch(1);
+    private HttpServer server;
+    private PullThroughCache cache;
+
+    @BeforeEach
+    void startUpstream() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/token", exchange ->
+                respond(exchange, 200, "application/json", "{\"token\":\"secret\",\"expires_in\":300}".getBytes()));
+        server.createContext("/v2/", exchange -> {
+            if (!"Bearer secret".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                exchange.getResponseHeaders().add("WWW-Authenticate",
+                        "Bearer realm=\"" + base + "/token\",service=\"upstream\"");
+                respond(exchange, 401, "application/json", new byte[0]);
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/v2/library/app/manifests/latest") || path.equals("/v2/library/app/manifests/" + manifestDigest)) {
+                exchange.getResponseHeaders().add("Docker-Content-Digest", manifestDigest.toString());
+                respond(exchange, 200, MANIFEST_TYPE, manifest);
+            } else if (path.equals("/v2/library/app/blobs/" + blobDigest)) {
+                blobRequests.incrementAndGet();
+                sendBlobSlowly(exchange);
+            } else {
+                respond(exchange, 404, "application/json", new byte[0]);
+            }
+        });
+        server.start();
+
+        UpstreamRegistryClient upstream = new UpstreamRegistryClient(base, "", "", Duration.ofSeconds(5),
+                "library/", new ObjectMapper());
+        ParallelPartUploader partUploader = new ParallelPartUploader(
+                storage, bufferPool, executor, DataSize.ofBytes(1000), 2);
+        cache = new PullThroughCache(upstream, storage, partUploader, bufferPool, executor,
+                tempDir.toString(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void stopUpstream() {
+        releaseBlob.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testManifestIsFetchedAndStored() {
+        Digest resolved = cache.resolveTag("app", "latest").orElseThrow();
+        assertEquals(manifestDigest, resolved);
+
+        Manifest pulled = cache.fetchManifest("app", resolved).orElseThrow();
+
+        assertArrayEquals(manifest, pulled.getContent());
+        assertEquals(MANIFEST_TYPE, pulled.getMediaType());
+        assertTrue(storage.objectExists(S3KeyGenerator.manifestKey("app", manifestDigest)));
+        assertTrue(cache.fetchManifest("app", DigestCalculator.calculateSha256(new byte[1])).isEmpty());
+    }
+
+    @Test
+    void testConcurrentBlobPullsShareOneUpstreamFetch() throws Exception {
+        PulledBlob first = cache.openBlob("app", blobDigest).orElseThrow();
+        PulledBlob second = cache.openBlob("app", blobDigest).orElseThrow();
+        assertEquals(blob.length, first.blob().getSize());
+
+        CompletableFuture<byte[]> firstRead = CompletableFuture.supplyAsync(() -> readAll(first.content()));
+        CompletableFuture<byte[]> secondRead = CompletableFuture.supplyAsync(() -> readAll(second.content()));
+        releaseBlob.countDown();
+
+        assertArrayEquals(blob, firstRead.get(5, TimeUnit.SECONDS));
+        assertArrayEquals(blob, secondRead.get(5, TimeUnit.SECONDS));
+        assertEquals(1, blobRequests.get());
+
+        String key = S3KeyGenerator.blobKey(blobDigest);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!storage.objectExists(key) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(blob.length, storage.getObjectSize(key));
+    }
+
+    @Test
+    void testMissingUpstreamBlob() {
+        assertTrue(cache.openBlob("app", DigestCalculator.calculateSha256(new byte[1])).isEmpty());
+    }
+
+    /**
+     * Send half the blob, then hold the response open until the test releases it
+     */
+    private void sendBlobSlowly(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, blob.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(blob, 0, blob.length / 2);
+            out.flush();
+            releaseBlob.await(5, TimeUnit.SECONDS);
+            out.write(blob, blob.length / 2, blob.length - blob.length / 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        boolean head = "HEAD".equals(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(status, head || body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (!head) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static byte[] readAll(InputStream in) {
+        try (in) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
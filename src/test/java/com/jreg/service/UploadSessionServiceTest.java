@@ -0,0 +1,268 @@
+package com.jreg.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jreg.exception.BlobUploadInvalidException;
+import com.jreg.exception.BlobUploadUnknownException;
+import com.jreg.exception.DigestInvalidException;
+import com.jreg.model.Digest;
+import com.jreg.model.UploadSession;
+import com.jreg.storage.BlockCache;
+import com.jreg.storage.DirectBufferPool;
+import com.jreg.storage.DownloadSpool;
+import com.jreg.storage.InMemoryAsyncStorageBackend;
+import com.jreg.storage.InMemoryStorageBackend;
+import com.jreg.storage.ParallelPartUploader;
+import com.jreg.storage.UploadSpool;
+import com.jreg.storage.UpstreamRegistryClient;
+import com.jreg.util.DigestEngine;
+import com.jreg.util.S3KeyGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSessionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryStorageBackend storage = new InMemoryStorageBackend() {
+        @Override
+        public long getMinimumPartSize() {
+            return 100;
+        }
+    };
+    private final DirectBufferPool bufferPool = new DirectBufferPool(DataSize.ofBytes(16), 8,
+            DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSmallChunksAreCoalesced() throws Exception {
+        UploadSessionService service = newService(false);
+        UploadSession session = service.startSession("myrepo");
+        byte[] content = randomBytes(300);
+
+        for (int offset = 0; offset < content.length; offset += 30) {
+            service.uploadChunk(session.getSessionId(), chunk(content, offset, 30), offset, 30);
+        }
+
+        // 300 bytes in 30-byte chunks with a 100-byte minimum: two writes of 120, 60 still buffered
+        assertEquals(2, storage.listObjects("uploads/" + session.getSessionId() + "/").size());
+        assertEquals(299, session.getLastUploadedByte());
+
+        try (InputStream assembled = service.completeSession(session.getSessionId())) {
+            assertArrayEquals(content, assembled.readAllBytes());
+        }
+        assertTrue(storage.listObjects("uploads/").isEmpty());
+    }
+
+    @Test
+    void testPendingChunksHoldNoPooledBuffers() throws Exception {
+        int available = bufferPool.getAvailableBuffers();
+        UploadSessionService service = newService(false, false, List.of("sha256"), Duration.ofMillis(20));
+        UploadSession session = service.startSession("myrepo");
+        byte[] content = randomBytes(160);
+
+        service.uploadChunk(session.getSessionId(), chunk(content, 0, 100), 0, 100);
+        // Below the 100-byte minimum, so both stay buffered
+        service.uploadChunk(session.getSessionId(), chunk(content, 100, 30), 100, 30);
+        service.uploadChunk(session.getSessionId(), chunk(content, 130, 30), 130, 30);
+        assertEquals(159, session.getLastUploadedByte());
+        assertEquals(available, bufferPool.getAvailableBuffers());
+
+        // Abandoned: expiry drops the session and the chunks it wrote
+        Thread.sleep(50);
+        service.cleanupExpiredSessions();
+        assertThrows(BlobUploadUnknownException.class, () -> service.getStatus(session.getSessionId()));
+        assertTrue(storage.listObjects("uploads/").isEmpty());
+    }
+
+    @Test
+    void testOutOfOrderChunksRequireNoGaps() throws Exception {
+        UploadSessionService service = newService(true);
+        UploadSession session = service.startSession("myrepo");
+        byte[] content = randomBytes(300);
+
+        service.uploadChunk(session.getSessionId(), chunk(content, 200, 100), 200, 100);
+        service.uploadChunk(session.getSessionId(), chunk(content, 0, 100), 0, 100);
+        assertThrows(BlobUploadInvalidException.class,
+                () -> service.uploadChunk(session.getSessionId(), chunk(content, 150, 100), 150, 100));
+        assertThrows(BlobUploadInvalidException.class, () -> service.completeSession(session.getSessionId()));
+
+        service.uploadChunk(session.getSessionId(), chunk(content, 100, 100), 100, 100);
+
+        try (InputStream assembled = service.completeSession(session.getSessionId())) {
+            assertArrayEquals(content, assembled.readAllBytes());
+        }
+    }
+
+    @Test
+    void testBufferedChunkMustMatchDeclaredLength() throws Exception {
+        UploadSessionService service = newService(true);
+        UploadSession session = service.startSession("myrepo");
+        byte[] content = randomBytes(90);
+
+        service.uploadChunk(session.getSessionId(), chunk(content, 60, 30), 60, 30);
+        assertThrows(BlobUploadInvalidException.class,
+                () -> service.uploadChunk(session.getSessionId(), chunk(content, 0, 20), 0, 30));
+        // A longer body must not overrun the range received at 60
+        assertThrows(BlobUploadInvalidException.class,
+                () -> service.uploadChunk(session.getSessionId(), chunk(content, 0, 70), 0, 60));
+        assertEquals(-1, session.getLastUploadedByte());
+
+        service.uploadChunk(session.getSessionId(), chunk(content, 0, 60), 0, 60);
+
+        try (InputStream assembled = service.completeSession(session.getSessionId())) {
+            assertArrayEquals(content, assembled.readAllBytes());
+        }
+    }
+
+    @Test
+    void testSpooledUploadVerifiesEachAlgorithm() throws Exception {
+        byte[] content = randomBytes(300);
+        for (List<String> running : List.of(List.of("sha256"), List.of("sha256", "sha512"))) {
+            UploadSessionService service = newService(false, true, running);
+            for (String algorithm : List.of("sha256", "sha512")) {
+                UploadSession session = service.startSession("myrepo");
+                service.uploadChunk(session.getSessionId(), chunk(content, 0, 150), 0, 150);
+                service.uploadChunk(session.getSessionId(), chunk(content, 150, 150), 150, 150);
+
+                Digest digest = DigestEngine.digest(algorithm, content);
+                assertEquals(digest, service.completeSpooledSession(session.getSessionId(), digest,
+                        "application/octet-stream").getDigest());
+                assertArrayEquals(content, storage.getObject(S3KeyGenerator.blobKey(digest)).readAllBytes());
+            }
+
+            UploadSession session = service.startSession("myrepo");
+            service.uploadChunk(session.getSessionId(), chunk(content, 0, 300), 0, 300);
+            Digest wrong = DigestEngine.digest("sha512", randomBytes(10));
+            assertThrows(DigestInvalidException.class, () -> service.completeSpooledSession(
+                    session.getSessionId(), wrong, "application/octet-stream"));
+        }
+    }
+
+    @Test
+    void testSpooledUploadResumesAfterFailedChunk() throws Exception {
+        UploadSessionService service = newService(false, true, List.of("sha256"));
+        UploadSession session = service.startSession("myrepo");
+        byte[] content = randomBytes(300);
+
+        service.uploadChunk(session.getSessionId(), chunk(content, 0, 100), 0, 100);
+        // The connection drops after 50 of 100 bytes, several buffers into the body
+        InputStream broken = new SequenceInputStream(chunk(content, 100, 50), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+        assertThrows(RuntimeException.class, () -> service.uploadChunk(session.getSessionId(), broken, 100, 100));
+        assertEquals(99, session.getLastUploadedByte());
+
+        // The client resumes from the reported range
+        service.uploadChunk(session.getSessionId(), chunk(content, 100, 100), 100, 100);
+        service.uploadChunk(session.getSessionId(), chunk(content, 200, 100), 200, 100);
+
+        Digest digest = DigestEngine.digest("sha256", content);
+        assertEquals(digest, service.completeSpooledSession(session.getSessionId(), digest,
+                "application/octet-stream").getDigest());
+    }
+
+    @Test
+    void testSpooledChunkMustMatchDeclaredLength() throws Exception {
+        UploadSessionService service = newService(true, true, List.of("sha256"));
+        UploadSession session = service.startSession("myrepo");
+        byte[] content = randomBytes(300);
+
+        service.uploadChunk(session.getSessionId(), chunk(content, 200, 100), 200, 100);
+        assertThrows(BlobUploadInvalidException.class,
+                () -> service.uploadChunk(session.getSessionId(), chunk(content, 0, 60), 0, 100));
+        // A longer body must not spill into the range already received at 200
+        assertThrows(BlobUploadInvalidException.class,
+                () -> service.uploadChunk(session.getSessionId(), chunk(content, 0, 250), 0, 200));
+        assertEquals(-1, session.getLastUploadedByte());
+
+        service.uploadChunk(session.getSessionId(), chunk(content, 0, 200), 0, 200);
+
+        Digest digest = DigestEngine.digest("sha256", content);
+        assertEquals(digest, service.completeSpooledSession(session.getSessionId(), digest,
+                "application/octet-stream").getDigest());
+    }
+
+    @Test
+    void testSpoolDigestIsReleasedWithTheSession() throws Exception {
+        UploadSessionService service = newService(false, true, List.of("sha256"));
+        byte[] content = randomBytes(100);
+
+        UploadSession completed = service.startSession("myrepo");
+        service.uploadChunk(completed.getSessionId(), chunk(content, 0, 100), 0, 100);
+        Digest digest = DigestEngine.digest("sha256", content);
+        service.completeSpooledSession(completed.getSessionId(), digest, "application/octet-stream");
+        assertThrows(IllegalStateException.class, () -> completed.getSpoolDigest().update(content));
+
+        UploadSession cancelled = service.startSession("myrepo");
+        service.uploadChunk(cancelled.getSessionId(), chunk(content, 0, 100), 0, 100);
+        service.cancelSession(cancelled.getSessionId());
+        assertThrows(IllegalStateException.class, () -> cancelled.getSpoolDigest().update(content));
+    }
+
+    private UploadSessionService newService(boolean outOfOrderChunks) {
+        return newService(outOfOrderChunks, false, List.of("sha256"));
+    }
+
+    private UploadSessionService newService(boolean outOfOrderChunks, boolean spool, List<String> digestAlgorithms) {
+        return newService(outOfOrderChunks, spool, digestAlgorithms, Duration.ofHours(24));
+    }
+
+    private UploadSessionService newService(boolean outOfOrderChunks, boolean spool, List<String> digestAlgorithms,
+                                            Duration sessionTimeout) {
+        ValidationService validationService = new ValidationService(new ObjectMapper());
+        ParallelPartUploader partUploader = new ParallelPartUploader(
+                storage, bufferPool, executor, DataSize.ofBytes(1000), 2);
+        BlockCache blockCache = new BlockCache(storage, false, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1), "",
+                DataSize.ofMegabytes(1), DataSize.ofMegabytes(1), new SimpleMeterRegistry());
+        UpstreamRegistryClient upstream = new UpstreamRegistryClient("", "", "", Duration.ofSeconds(1), "",
+                new ObjectMapper());
+        PullThroughCache pullThroughCache = new PullThroughCache(upstream, storage, partUploader, bufferPool,
+                executor, tempDir.toString(), new SimpleMeterRegistry());
+        DownloadSpool downloadSpool = new DownloadSpool(false, tempDir.toString(), DataSize.ofMegabytes(1),
+                DataSize.ofMegabytes(1), bufferPool, executor, new SimpleMeterRegistry());
+        BlobService blobService = new BlobService(storage, Optional.of(new InMemoryAsyncStorageBackend(storage)),
+                validationService, partUploader, blockCache, downloadSpool, pullThroughCache,
+                new SimpleMeterRegistry());
+        return new UploadSessionService(storage, validationService,
+                new UploadSpool(spool, tempDir.toString(), bufferPool), blobService, bufferPool,
+                DataSize.ofBytes(1000), outOfOrderChunks, DataSize.ofMegabytes(64), digestAlgorithms,
+                sessionTimeout);
+    }
+
+    private static InputStream chunk(byte[] content, int offset, int length) {
+        return new ByteArrayInputStream(Arrays.copyOfRange(content, offset, offset + length));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
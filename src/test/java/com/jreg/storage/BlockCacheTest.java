@@ -0,0 +1,86 @@
+package com.jreg.storage;
+
+import com.jreg.model.ByteRange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<String> rangeReads = new CopyOnWriteArrayList<>();
+    private final InMemoryStorageBackend storage = new InMemoryStorageBackend() {
+        @Override
+        public InputStream getObjectRange(String key, String range) {
+            rangeReads.add(range);
+            return super.getObjectRange(key, range);
+        }
+    };
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final byte[] content = randomBytes(100);
+
+    @Test
+    void testMissesAreFetchedAsAlignedBlocks() throws Exception {
+        BlockCache cache = newCache(1000, "");
+        storage.putObject("blob", content, "application/octet-stream");
+
+        assertArrayEquals(slice(5, 40), read(cache, 5, 40));
+        // Blocks 0-2 (bytes 0-47) in one request
+        assertEquals(List.of("bytes=0-47"), rangeReads);
+
+        // Blocks 1-2 are cached, block 3 is fetched; the last block is short
+        assertArrayEquals(slice(20, 99), read(cache, 20, 99));
+        assertEquals(List.of("bytes=0-47", "bytes=48-99"), rangeReads);
+
+        assertArrayEquals(slice(0, 99), read(cache, 0, 99));
+        assertEquals(2, rangeReads.size());
+        assertTrue(registry.get("jreg.blob.block.cache.hit.ratio").gauge().value() > 0.5);
+    }
+
+    @Test
+    void testEvictedBlocksAreServedFromDisk() throws Exception {
+        // Memory holds two blocks; the disk tier holds everything
+        BlockCache cache = newCache(32, tempDir.toString());
+        storage.putObject("blob", content, "application/octet-stream");
+
+        read(cache, 0, 99);
+        assertEquals(1, rangeReads.size());
+
+        assertArrayEquals(slice(0, 15), read(cache, 0, 15));
+        assertEquals(1, rangeReads.size());
+        assertEquals(1, registry.get("jreg.blob.block.cache.requests").tag("result", "disk").counter().count());
+    }
+
+    private BlockCache newCache(long memoryCapacity, String diskDirectory) {
+        return new BlockCache(storage, true, DataSize.ofBytes(16), DataSize.ofBytes(memoryCapacity), diskDirectory,
+                DataSize.ofBytes(1000), DataSize.ofBytes(1000), registry);
+    }
+
+    private byte[] read(BlockCache cache, long start, long end) throws Exception {
+        try (InputStream in = cache.read("blob", content.length, new ByteRange(start, end))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private byte[] slice(int start, int end) {
+        return Arrays.copyOfRange(content, start, end + 1);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,57 @@
+package com.jreg.storage;
+
+import org.apache.catalina.connector.CoyoteInputStream;
+import org.apache.catalina.connector.InputBuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tomcat request stream over fixed content that only supports reads into a ByteBuffer,
+ * so a test fails if a body is copied through a heap array instead
+ */
+public class ContainerInputStream extends CoyoteInputStream {
+    private final byte[] content;
+    private int position;
+    private int bufferReads;
+
+    public ContainerInputStream(byte[] content) {
+        super(new InputBuffer(16));
+        this.content = content;
+    }
+
+    public int getBufferReads() {
+        return bufferReads;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+        bufferReads++;
+        if (position == content.length) {
+            return -1;
+        }
+        int n = Math.min(dst.remaining(), content.length - position);
+        dst.put(content, position, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int read() {
+        throw new AssertionError("Body read through a heap stream");
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        throw new AssertionError("Body read through a heap stream");
+    }
+
+    @Override
+    public boolean isFinished() {
+        return position == content.length;
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+}
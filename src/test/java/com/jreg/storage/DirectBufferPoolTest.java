@@ -0,0 +1,123 @@
+package com.jreg.storage;
+
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectBufferPoolTest {
+
+    @Test
+    void testContainerStreamIsReadIntoDirectBuffers() throws Exception {
+        byte[] body = new byte[1000];
+        new Random(27).nextBytes(body);
+        ContainerInputStream container = new ContainerInputStream(body);
+        // Filters that wrap the request without replacing its stream hand the container stream through
+        HttpServletRequestWrapper request = new HttpServletRequestWrapper(new MockHttpServletRequest() {
+            @Override
+            public ServletInputStream getInputStream() {
+                return container;
+            }
+        });
+
+        assertArrayEquals(body, drain(DirectBufferPool.channelFor(request.getInputStream())));
+        assertTrue(container.getBufferReads() > 0);
+    }
+
+    @Test
+    void testOtherStreamsAreAdapted() throws Exception {
+        byte[] body = new byte[1000];
+        new Random(28).nextBytes(body);
+
+        assertArrayEquals(body, drain(DirectBufferPool.channelFor(new ByteArrayInputStream(body))));
+    }
+
+    @Test
+    void testBudgetBoundsOutstandingBuffers() throws Exception {
+        DirectBufferPool pool = new DirectBufferPool(DataSize.ofBytes(64), 1,
+                DataSize.ofBytes(128), Duration.ofMillis(50));
+        ByteBuffer first = pool.acquire();
+        ByteBuffer second = pool.acquire();
+        assertEquals(0, pool.getAvailableBuffers());
+
+        // Exhausted: waits for the timeout, then fails rather than allocating
+        assertThrows(IllegalStateException.class, pool::acquire);
+
+        // A released buffer frees budget even when the idle pool is full and drops it
+        pool.release(first);
+        pool.release(second);
+        assertEquals(2, pool.getAvailableBuffers());
+    }
+
+    @Test
+    void testReserveTakesTheWholeCountAtOnce() {
+        DirectBufferPool pool = new DirectBufferPool(DataSize.ofBytes(64), 4,
+                DataSize.ofBytes(256), Duration.ofMillis(50));
+        assertEquals(3, pool.reserve(3));
+        ByteBuffer taken = pool.take();
+        assertEquals(1, pool.getAvailableBuffers());
+
+        // Never holds part of a reservation while waiting for the rest
+        assertThrows(IllegalStateException.class, () -> pool.reserve(2));
+        assertEquals(1, pool.getAvailableBuffers());
+
+        pool.release(taken);
+        pool.unreserve(2);
+        assertEquals(4, pool.getAvailableBuffers());
+        // Capped to the whole budget
+        assertEquals(4, pool.reserve(10));
+        pool.unreserve(4);
+    }
+
+    @Test
+    void testAcquireWaitsForRelease() throws Exception {
+        DirectBufferPool pool = new DirectBufferPool(DataSize.ofBytes(64), 1,
+                DataSize.ofBytes(64), Duration.ofSeconds(5));
+        ByteBuffer held = pool.acquire();
+        Thread releaser = new Thread(() -> {
+            sleep(20);
+            pool.release(held);
+        });
+        releaser.start();
+        // Waits for the release instead of failing
+        assertNotNull(pool.acquire());
+        releaser.join();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] drain(ReadableByteChannel channel) throws Exception {
+        DirectBufferPool pool = new DirectBufferPool(DataSize.ofBytes(64), 2,
+                DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+        ByteBuffer buffer = pool.acquire();
+        assertTrue(buffer.isDirect());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean more = true;
+        while (more) {
+            buffer.clear();
+            more = DirectBufferPool.fill(channel, buffer);
+            buffer.flip();
+            byte[] chunk = new byte[buffer.remaining()];
+            buffer.get(chunk);
+            out.write(chunk);
+        }
+        pool.release(buffer);
+        return out.toByteArray();
+    }
+}
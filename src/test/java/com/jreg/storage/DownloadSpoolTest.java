@@ -0,0 +1,103 @@
+package com.jreg.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadSpoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final DirectBufferPool bufferPool = new DirectBufferPool(DataSize.ofBytes(64), 4,
+            DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testStorageStreamClosedBeforeClientReads() throws Exception {
+        DownloadSpool spool = newSpool(100, 10_000);
+        byte[] content = randomBytes(1000);
+        CountDownLatch storageClosed = new CountDownLatch(1);
+
+        InputStream client = spool.open("blobs/a", content.length, () -> new ByteArrayInputStream(content) {
+            @Override
+            public void close() {
+                storageClosed.countDown();
+            }
+        }).orElseThrow();
+
+        // The storage connection is released while the client has not read a byte
+        assertTrue(storageClosed.await(5, TimeUnit.SECONDS));
+        assertEquals(1000, meterRegistry.get("jreg.blob.download.spool.bytes").gauge().value());
+
+        assertArrayEquals(content, client.readAllBytes());
+        client.close();
+        // The drain thread drops its reference just after closing the storage stream
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("jreg.blob.download.spool.bytes").gauge().value() > 0
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, meterRegistry.get("jreg.blob.download.spool.bytes").gauge().value());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testSmallObjectsAndFullDiskStreamDirectly() throws IOException {
+        DownloadSpool spool = newSpool(100, 1500);
+        byte[] content = randomBytes(1000);
+
+        assertTrue(spool.open("blobs/small", 50, () -> new ByteArrayInputStream(content)).isEmpty());
+
+        InputStream first = spool.open("blobs/a", content.length, () -> new ByteArrayInputStream(content)).orElseThrow();
+        assertTrue(spool.open("blobs/b", content.length, () -> new ByteArrayInputStream(content)).isEmpty());
+        first.readAllBytes();
+        first.close();
+    }
+
+    @Test
+    void testShortStorageReadFailsClient() {
+        DownloadSpool spool = newSpool(100, 10_000);
+        byte[] content = randomBytes(1000);
+
+        InputStream client = spool.open("blobs/a", 2000, () -> new ByteArrayInputStream(content)).orElseThrow();
+
+        assertThrows(IOException.class, client::readAllBytes);
+    }
+
+    private DownloadSpool newSpool(long threshold, long maxDiskUsage) {
+        return new DownloadSpool(true, tempDir.toString(), DataSize.ofBytes(threshold), DataSize.ofBytes(maxDiskUsage),
+                bufferPool, executor, meterRegistry);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
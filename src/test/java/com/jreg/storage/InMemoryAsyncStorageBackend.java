@@ -0,0 +1,157 @@
+package com.jreg.storage;
+
+import com.jreg.storage.StorageBackend.ListObjectsResult;
+import com.jreg.storage.StorageBackend.ObjectInfo;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Async storage test double over an {@link InMemoryStorageBackend}.
+ * Requests complete immediately; tests can observe how many were issued.
+ */
+public class InMemoryAsyncStorageBackend implements AsyncStorageBackend {
+
+    private final InMemoryStorageBackend storage;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    public InMemoryAsyncStorageBackend(InMemoryStorageBackend storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Number of requests issued so far
+     */
+    public int getRequests() {
+        return requests.get();
+    }
+
+    @Override
+    public CompletableFuture<Optional<StoredObject>> getObjectBytes(String key) {
+        return later(() -> storage.headObject(key)
+                .map(info -> new StoredObject(storage.objects.get(key), info)));
+    }
+
+    @Override
+    public CompletableFuture<Optional<ObjectContent>> getObject(String key) {
+        return later(() -> storage.headObject(key)
+                .map(info -> new ObjectContent(info, AsyncRequestBody.fromBytes(storage.objects.get(key)))));
+    }
+
+    @Override
+    public CompletableFuture<Optional<ObjectContent>> getObjectRange(String key, String range) {
+        return later(() -> storage.headObject(key).map(info -> {
+            try {
+                byte[] slice = storage.getObjectRange(key, range).readAllBytes();
+                return new ObjectContent(new ObjectInfo(slice.length, info.contentType(), info.lastModified()),
+                        AsyncRequestBody.fromBytes(slice));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    @Override
+    public CompletableFuture<Optional<ObjectInfo>> headObject(String key) {
+        return later(() -> storage.headObject(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, byte[] content, String contentType) {
+        return later(() -> {
+            storage.putObject(key, content, contentType);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String key, Publisher<ByteBuffer> content, long contentLength,
+                                             String contentType) {
+        return collect(content).thenCompose(bytes -> later(() -> {
+            storage.putObject(key, new ByteArrayInputStream(bytes), contentLength, contentType);
+            return null;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> putObjectVerified(String key, Publisher<ByteBuffer> content, long contentLength,
+                                                        String contentType, byte[] sha256) {
+        return collect(content).thenCompose(bytes -> later(() -> {
+            if (!Arrays.equals(sha256(bytes), sha256)) {
+                return false;
+            }
+            storage.putObject(key, new ByteArrayInputStream(bytes), contentLength, contentType);
+            return true;
+        }));
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static CompletableFuture<byte[]> collect(Publisher<ByteBuffer> content) {
+        CompletableFuture<byte[]> collected = new CompletableFuture<>();
+        content.subscribe(new Subscriber<>() {
+            private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                out.writeBytes(bytes);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                collected.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                collected.complete(out.toByteArray());
+            }
+        });
+        return collected;
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteObject(String key) {
+        return later(() -> {
+            storage.deleteObject(key);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<ListObjectsResult> listObjects(String prefix, int maxKeys, String startAfter) {
+        return later(() -> storage.listObjects(prefix, maxKeys, startAfter));
+    }
+
+    private <T> CompletableFuture<T> later(Supplier<T> result) {
+        requests.incrementAndGet();
+        return CompletableFuture.supplyAsync(result, Runnable::run);
+    }
+}
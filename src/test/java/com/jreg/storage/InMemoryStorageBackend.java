@@ -0,0 +1,155 @@
+package com.jreg.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Storage backend test double that keeps objects and multipart uploads in memory.
+ */
+public class InMemoryStorageBackend implements StorageBackend {
+
+    final Map<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    final Map<String, ObjectInfo> attributes = new ConcurrentHashMap<>();
+    final Map<String, Map<Integer, byte[]>> multipartUploads = new ConcurrentHashMap<>();
+
+    @Override
+    public InputStream getObject(String key) {
+        return new ByteArrayInputStream(require(key));
+    }
+
+    @Override
+    public InputStream getObjectRange(String key, String range) {
+        byte[] content = require(key);
+        String[] bounds = range.replace("bytes=", "").split("-");
+        int start = Integer.parseInt(bounds[0]);
+        int end = Integer.parseInt(bounds[1]);
+        return new ByteArrayInputStream(content, start, end - start + 1);
+    }
+
+    @Override
+    public void putObject(String key, byte[] content, String contentType) {
+        store(key, content.clone(), contentType);
+    }
+
+    @Override
+    public void putObject(String key, InputStream content, long contentLength, String contentType) {
+        store(key, readExactly(content, contentLength), contentType);
+    }
+
+    @Override
+    public void putObject(String key, byte[] content, String contentType, Map<String, String> metadata) {
+        store(key, content.clone(), contentType);
+    }
+
+    @Override
+    public boolean objectExists(String key) {
+        return objects.containsKey(key);
+    }
+
+    @Override
+    public Map<String, String> getObjectMetadata(String key) {
+        require(key);
+        return Map.of();
+    }
+
+    @Override
+    public Optional<ObjectInfo> headObject(String key) {
+        return Optional.ofNullable(attributes.get(key));
+    }
+
+    @Override
+    public long getObjectSize(String key) {
+        return require(key).length;
+    }
+
+    @Override
+    public void deleteObject(String key) {
+        objects.remove(key);
+        attributes.remove(key);
+    }
+
+    @Override
+    public List<String> listObjects(String prefix) {
+        return objects.keySet().stream().filter(key -> key.startsWith(prefix)).toList();
+    }
+
+    @Override
+    public ListObjectsResult listObjects(String prefix, int maxKeys, String startAfter) {
+        List<String> keys = listObjects(prefix).stream()
+                .map(key -> key.substring(prefix.length()))
+                .filter(key -> startAfter == null || key.compareTo(startAfter) > 0)
+                .limit(maxKeys)
+                .toList();
+        return new ListObjectsResult(keys, null, false);
+    }
+
+    @Override
+    public String createMultipartUpload(String key, String contentType) {
+        String uploadId = UUID.randomUUID().toString();
+        multipartUploads.put(uploadId, new ConcurrentHashMap<>());
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream content, long contentLength) {
+        multipartUploads.get(uploadId).put(partNumber, readExactly(content, contentLength));
+        return "etag-" + partNumber;
+    }
+
+    @Override
+    public void completeMultipartUpload(String key, String uploadId, List<String> partETags) {
+        Map<Integer, byte[]> parts = new TreeMap<>(multipartUploads.remove(uploadId));
+        if (parts.size() != partETags.size()) {
+            throw new IllegalStateException("Expected " + partETags.size() + " parts but got " + parts.size());
+        }
+        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+        parts.values().forEach(assembled::writeBytes);
+        store(key, assembled.toByteArray(), "application/octet-stream");
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) {
+        multipartUploads.remove(uploadId);
+    }
+
+    List<String> keys() {
+        return new ArrayList<>(objects.keySet());
+    }
+
+    private void store(String key, byte[] content, String contentType) {
+        objects.put(key, content);
+        attributes.put(key, new ObjectInfo(content.length, contentType, Instant.now()));
+    }
+
+    private byte[] require(String key) {
+        byte[] content = objects.get(key);
+        if (content == null) {
+            throw new IllegalArgumentException("No such key: " + key);
+        }
+        return content;
+    }
+
+    private static byte[] readExactly(InputStream content, long contentLength) {
+        try {
+            byte[] bytes = content.readNBytes((int) contentLength);
+            if (bytes.length != contentLength) {
+                throw new IllegalStateException("Expected " + contentLength + " bytes but got " + bytes.length);
+            }
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
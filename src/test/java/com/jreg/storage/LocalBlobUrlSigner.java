@@ -0,0 +1,28 @@
+package com.jreg.storage;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in signer for tests: issues unsigned URLs on a fake storage host
+ * and counts how many it has issued.
+ */
+public class LocalBlobUrlSigner implements BlobUrlSigner {
+
+    private final AtomicInteger signed = new AtomicInteger();
+
+    @Override
+    public PresignedUrl presignGet(String key, Duration ttl) {
+        Instant expiresAt = Instant.now().plus(ttl);
+        int serial = signed.incrementAndGet();
+        return new PresignedUrl(
+                URI.create("http://storage.local/" + key + "?expires=" + expiresAt.getEpochSecond() + "&n=" + serial),
+                expiresAt);
+    }
+
+    public int getSignedCount() {
+        return signed.get();
+    }
+}
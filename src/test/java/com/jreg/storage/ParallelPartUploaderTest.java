@@ -0,0 +1,125 @@
+package com.jreg.storage;
+
+import com.jreg.util.DigestCalculator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelPartUploaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryStorageBackend storage = new InMemoryStorageBackend();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ParallelPartUploader uploader = new ParallelPartUploader(
+            storage, new DirectBufferPool(DataSize.ofBytes(16), 8,
+                    DataSize.ofMegabytes(1), Duration.ofSeconds(5)),
+            executor, DataSize.ofBytes(100), 3);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSmallStreamUsesSinglePut() {
+        byte[] content = randomBytes(60);
+        MessageDigest md = DigestCalculator.newSha256();
+
+        long size = uploader.uploadStream("blob", new ByteArrayInputStream(content), "application/octet-stream",
+                md, () -> { });
+
+        assertEquals(60, size);
+        assertArrayEquals(content, storage.objects.get("blob"));
+        assertTrue(storage.multipartUploads.isEmpty());
+        assertEquals(DigestCalculator.calculateSha256(content), DigestCalculator.finishSha256(md));
+    }
+
+    @Test
+    void testLargeStreamIsUploadedInParts() {
+        byte[] content = randomBytes(1050);
+        MessageDigest md = DigestCalculator.newSha256();
+
+        long size = uploader.uploadStream("blob", new ByteArrayInputStream(content), "application/octet-stream",
+                md, () -> { });
+
+        assertEquals(1050, size);
+        assertArrayEquals(content, storage.objects.get("blob"));
+        assertEquals(DigestCalculator.calculateSha256(content), DigestCalculator.finishSha256(md));
+    }
+
+    @Test
+    void testFailedVerificationDiscardsUpload() {
+        byte[] content = randomBytes(450);
+
+        assertThrows(IllegalStateException.class, () ->
+                uploader.uploadStream("blob", new ByteArrayInputStream(content), "application/octet-stream",
+                        DigestCalculator.newSha256(), () -> {
+                            throw new IllegalStateException("digest mismatch");
+                        }));
+
+        assertFalse(storage.objectExists("blob"));
+        assertTrue(storage.multipartUploads.isEmpty());
+    }
+
+    @Test
+    void testQueuedPartsReleaseBuffersOnAbort() throws Exception {
+        DirectBufferPool bufferPool = new DirectBufferPool(DataSize.ofBytes(16), 8,
+                DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        CountDownLatch blocked = new CountDownLatch(1);
+        try {
+            // Every part task stays queued behind this one until the upload is aborted
+            single.submit(() -> {
+                blocked.await();
+                return null;
+            });
+            ParallelPartUploader queueing = new ParallelPartUploader(
+                    storage, bufferPool, single, DataSize.ofBytes(100), 8);
+            int available = bufferPool.getAvailableBuffers();
+
+            assertThrows(IllegalStateException.class, () ->
+                    queueing.uploadStream("blob", new ByteArrayInputStream(randomBytes(450)),
+                            "application/octet-stream", DigestCalculator.newSha256(), () -> {
+                                throw new IllegalStateException("digest mismatch");
+                            }));
+
+            assertEquals(available, bufferPool.getAvailableBuffers());
+            assertTrue(storage.multipartUploads.isEmpty());
+        } finally {
+            blocked.countDown();
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFileUploadInParts() throws Exception {
+        byte[] content = randomBytes(777);
+        Path file = tempDir.resolve("spool");
+        Files.write(file, content);
+
+        uploader.uploadFile("blob", file, content.length, "application/octet-stream");
+
+        assertArrayEquals(content, storage.objects.get("blob"));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
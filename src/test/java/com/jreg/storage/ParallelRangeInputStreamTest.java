@@ -0,0 +1,115 @@
+package com.jreg.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelRangeInputStreamTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final DirectBufferPool bufferPool = new DirectBufferPool(DataSize.ofBytes(16), 16,
+            DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+    private final byte[] content = randomBytes(1000);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSegmentsAreReassembledInOrder() throws Exception {
+        int maxSeen = 0;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ParallelRangeInputStream in = new ParallelRangeInputStream(
+                (start, end) -> slowRange(start, end), content.length, executor, bufferPool, 64, 4)) {
+            byte[] buffer = new byte[50];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+                maxSeen = Math.max(maxSeen, in.getParallelism());
+            }
+        }
+
+        assertArrayEquals(content, out.toByteArray());
+        // The reader always outpaces the slow fetches, so parallelism widens to the cap
+        assertEquals(4, maxSeen);
+    }
+
+    @Test
+    void testFailedSegmentSurfacesAsIOException() {
+        ParallelRangeInputStream in = new ParallelRangeInputStream((start, end) -> {
+            if (start > 0) {
+                throw new IllegalStateException("connection reset");
+            }
+            return new ByteArrayInputStream(content, (int) start, (int) (end - start + 1));
+        }, content.length, executor, bufferPool, 64, 4);
+
+        IOException e = assertThrows(IOException.class, in::readAllBytes);
+        assertTrue(e.getMessage().contains("connection reset"));
+        in.close();
+    }
+
+    @Test
+    void testCloseAbortsRangeReadsInProgress() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch aborted = new CountDownLatch(2);
+        ParallelRangeInputStream in = new ParallelRangeInputStream((start, end) -> new InputStream() {
+            private final CountDownLatch closed = new CountDownLatch(1);
+
+            @Override
+            public int read() throws IOException {
+                started.countDown();
+                // Stands in for a socket read, which ignores interrupts and only ends when the connection is aborted
+                while (closed.getCount() > 0) {
+                    try {
+                        closed.await();
+                    } catch (InterruptedException ignored) {
+                        // Keep blocking
+                    }
+                }
+                throw new IOException("aborted");
+            }
+
+            @Override
+            public void close() {
+                if (closed.getCount() > 0) {
+                    closed.countDown();
+                    aborted.countDown();
+                }
+            }
+        }, content.length, executor, bufferPool, 64, 2);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        in.close();
+
+        assertTrue(aborted.await(5, TimeUnit.SECONDS));
+    }
+
+    private InputStream slowRange(long start, long end) {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new ByteArrayInputStream(content, (int) start, (int) (end - start + 1));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,60 @@
+package com.jreg.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledBuffersTest {
+
+    private final DirectBufferPool pool = new DirectBufferPool(DataSize.ofBytes(4), 4,
+            DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+
+    @Test
+    void testReadIsBoundedBySegmentSize() throws Exception {
+        ReadableByteChannel channel = Channels.newChannel(
+                new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.UTF_8)));
+
+        try (PooledBuffers first = PooledBuffers.read(pool, channel, 6)) {
+            assertEquals(6, first.size());
+            assertFalse(first.isEndOfStream());
+            assertEquals("012345", new String(first.asInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        try (PooledBuffers second = PooledBuffers.read(pool, channel, 6)) {
+            assertEquals(4, second.size());
+            assertTrue(second.isEndOfStream());
+            assertEquals("6789", new String(second.asInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testUnusedReservationIsGivenBack() throws Exception {
+        int available = pool.getAvailableBuffers();
+        ReadableByteChannel channel = Channels.newChannel(
+                new ByteArrayInputStream("0123456".getBytes(StandardCharsets.UTF_8)));
+
+        try (PooledBuffers buffers = PooledBuffers.read(pool, channel, 100)) {
+            assertEquals(7, buffers.size());
+            assertEquals(available - 2, pool.getAvailableBuffers());
+        }
+        assertEquals(available, pool.getAvailableBuffers());
+    }
+
+    @Test
+    void testEmptyStream() throws Exception {
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(new byte[0]));
+
+        try (PooledBuffers buffers = PooledBuffers.read(pool, channel, 6)) {
+            assertEquals(0, buffers.size());
+            assertTrue(buffers.isEndOfStream());
+            assertEquals(-1, buffers.asInputStream().read());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.jreg.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpoolFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final DirectBufferPool bufferPool = new DirectBufferPool(DataSize.ofBytes(16), 4,
+            DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+
+    @Test
+    void testReaderFollowsProducer() throws Exception {
+        byte[] content = randomBytes(500);
+        SpoolFile spool = SpoolFile.create(tempDir, "test-");
+        InputStream reader = spool.openReader();
+        CompletableFuture<byte[]> read = CompletableFuture.supplyAsync(() -> readAll(reader));
+
+        PipedOutputStream upstream = new PipedOutputStream();
+        PipedInputStream source = new PipedInputStream(upstream);
+        CompletableFuture<Long> filled = CompletableFuture.supplyAsync(() -> {
+            try {
+                return spool.fill(source, bufferPool, null);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        upstream.write(content, 0, 200);
+        upstream.flush();
+        // The reader sees the first bytes before the producer finishes
+        while (spool.getWritten() == 0) {
+            Thread.sleep(5);
+        }
+        assertFalse(read.isDone());
+
+        upstream.write(content, 200, 300);
+        upstream.close();
+        assertEquals(500, filled.get(5, TimeUnit.SECONDS));
+        spool.complete();
+
+        assertArrayEquals(content, read.get(5, TimeUnit.SECONDS));
+        reader.close();
+        spool.close();
+        assertFalse(Files.exists(spool.getPath()));
+    }
+
+    @Test
+    void testFailureReachesReaders() throws Exception {
+        SpoolFile spool = SpoolFile.create(tempDir, "test-");
+        spool.fill(new ByteArrayInputStream(randomBytes(40)), bufferPool, null);
+        InputStream reader = spool.openReader();
+
+        spool.fail(new IOException("digest mismatch"));
+
+        IOException e = assertThrows(IOException.class, reader::readAllBytes);
+        assertTrue(e.getMessage().contains("digest mismatch"));
+        reader.close();
+        spool.close();
+    }
+
+    @Test
+    void testFileKeptUntilLastReaderCloses() throws Exception {
+        SpoolFile spool = SpoolFile.create(tempDir, "test-");
+        InputStream reader = spool.openReader();
+        spool.complete();
+        spool.close();
+
+        assertTrue(Files.exists(spool.getPath()));
+        assertEquals(-1, reader.read());
+        reader.close();
+
+        assertFalse(Files.exists(spool.getPath()));
+        assertNull(spool.openReader());
+    }
+
+    private static byte[] readAll(InputStream in) {
+        try {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
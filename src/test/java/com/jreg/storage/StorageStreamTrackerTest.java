@@ -0,0 +1,51 @@
+package com.jreg.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageStreamTrackerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StorageStreamTracker tracker = new StorageStreamTracker(meterRegistry);
+    private final AtomicInteger aborts = new AtomicInteger();
+
+    @Test
+    void testEarlyCloseAbortsConnection() throws Exception {
+        InputStream in = tracker.track(response(100));
+        assertEquals(1, tracker.getInFlight());
+
+        in.readNBytes(40);
+        in.close();
+
+        assertEquals(1, aborts.get());
+        assertEquals(0, tracker.getInFlight());
+        assertEquals(1, meterRegistry.get("jreg.storage.streams.aborted").counter().count());
+    }
+
+    @Test
+    void testFullyReadStreamIsNotAborted() throws Exception {
+        InputStream in = tracker.track(response(100));
+
+        // Reading exactly the content length counts as finished even without seeing end of stream
+        in.readNBytes(100);
+        in.close();
+        in.close();
+
+        assertEquals(0, aborts.get());
+        assertEquals(0, tracker.getInFlight());
+    }
+
+    private ResponseInputStream<GetObjectResponse> response(int length) {
+        return new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) length).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(new byte[length]), aborts::incrementAndGet));
+    }
+}
@@ -0,0 +1,72 @@
+package com.jreg.storage;
+
+import com.jreg.util.DigestCalculator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSpoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final DirectBufferPool bufferPool = new DirectBufferPool(DataSize.ofBytes(4), 2,
+            DataSize.ofMegabytes(1), Duration.ofSeconds(5));
+
+    @Test
+    void testSequentialChunksAreHashedIncrementally() throws Exception {
+        UploadSpool spool = new UploadSpool(true, tempDir.toString(), bufferPool);
+        UUID sessionId = UUID.randomUUID();
+        Path file = spool.create(sessionId);
+        MessageDigest digest = DigestCalculator.newSha256();
+
+        byte[] first = "hello ".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "world".getBytes(StandardCharsets.UTF_8);
+        assertEquals(first.length, spool.write(file, 0, new ByteArrayInputStream(first), digest));
+        assertEquals(second.length, spool.write(file, first.length, new ByteArrayInputStream(second), digest));
+
+        assertEquals("hello world", Files.readString(file));
+        assertEquals("b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9",
+                     DigestCalculator.finishSha256(digest).hex());
+    }
+
+    @Test
+    void testOutOfOrderChunksHashedAfterTheFact() throws Exception {
+        UploadSpool spool = new UploadSpool(true, tempDir.toString(), bufferPool);
+        Path file = spool.create(UUID.randomUUID());
+
+        byte[] first = "hello ".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "world".getBytes(StandardCharsets.UTF_8);
+        spool.write(file, first.length, new ByteArrayInputStream(second), null);
+        spool.write(file, 0, new ByteArrayInputStream(first), null);
+
+        MessageDigest digest = DigestCalculator.newSha256();
+        spool.hash(file, 0, 3, digest);
+        spool.hash(file, 3, first.length + second.length - 3, digest);
+
+        assertEquals("hello world", Files.readString(file));
+        assertEquals("b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9",
+                     DigestCalculator.finishSha256(digest).hex());
+    }
+
+    @Test
+    void testDeleteRemovesSpoolFile() {
+        UploadSpool spool = new UploadSpool(true, tempDir.toString(), bufferPool);
+        UUID sessionId = UUID.randomUUID();
+        Path file = spool.create(sessionId);
+
+        spool.delete(sessionId);
+
+        assertFalse(Files.exists(file));
+    }
+}
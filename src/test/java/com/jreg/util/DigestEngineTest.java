@@ -0,0 +1,76 @@
+package com.jreg.util;
+
+import com.jreg.model.Digest;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DigestEngineTest {
+
+    @Test
+    void testAllInputPathsAgree() throws Exception {
+        byte[] data = new byte[3 * 1024 * 1024 + 17];
+        new Random(47).nextBytes(data);
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-512").digest(data));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+
+        assertEquals(expected, DigestEngine.digest("sha512", data).hex());
+        assertEquals(expected, DigestEngine.digest("sha512", ByteBuffer.wrap(data)).hex());
+        assertEquals(expected, DigestEngine.digest("sha512", direct).hex());
+        assertEquals(expected, DigestEngine.digest("sha512", new ByteArrayInputStream(data)).hex());
+        assertFalse(direct.hasRemaining());
+    }
+
+    @Test
+    void testReleasedInstancesComeBackReset() {
+        MessageDigest md = DigestEngine.acquire("sha256");
+        md.update("partial".getBytes());
+        DigestEngine.release(md);
+
+        MessageDigest reused = DigestEngine.acquire("sha256");
+        try {
+            // sha256 of the empty input
+            assertEquals(new Digest("sha256", "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855"),
+                    DigestEngine.finish("sha256", reused));
+        } finally {
+            DigestEngine.release(reused);
+        }
+    }
+
+    @Test
+    void testConcurrentUseKeepsInstancesApart() throws Exception {
+        byte[] data = "hello world".getBytes();
+        Thread[] threads = new Thread[8];
+        Throwable[] failure = new Throwable[1];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2000; i++) {
+                        assertEquals("b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9",
+                                DigestEngine.digest("sha256", data).hex());
+                    }
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure[0]);
+    }
+
+    @Test
+    void testUnsupportedAlgorithm() {
+        assertThrows(IllegalArgumentException.class, () -> DigestEngine.acquire("md5"));
+        assertNotNull(DigestEngine.providerName("sha256"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.jreg.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("com.jreg.util.EventLogTest.events");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void attach() {
+        logger.setLevel(Level.INFO);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detach() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void testFieldsAreStructuredArguments() {
+        EventLog event = EventLog.info(logger, "test-stored", "Stored blob", "repository", "size");
+
+        event.log("library/alpine", 1024L);
+
+        assertEquals(1, appender.list.size());
+        assertEquals("Stored blob repository=library/alpine size=1024", appender.list.get(0).getFormattedMessage());
+        assertEquals(2, appender.list.get(0).getArgumentArray().length);
+    }
+
+    @Test
+    void testPrimitiveFieldsRenderAsNumbers() {
+        EventLog event = EventLog.info(logger, "test-chunk", "Uploaded chunk", "session_id", "repository",
+                "size", "offset");
+
+        event.log("s1", "library/alpine", 1024, 4096L);
+
+        assertEquals("Uploaded chunk session_id=s1 repository=library/alpine size=1024 offset=4096",
+                appender.list.get(0).getFormattedMessage());
+    }
+
+    @Test
+    void testDisabledLevelIsNotRendered() {
+        EventLog event = EventLog.debug(logger, "test-debug", "Read range", "range");
+
+        event.log(new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("rendered a disabled event");
+            }
+        });
+
+        assertTrue(appender.list.isEmpty());
+    }
+
+    @Test
+    void testEventTypesAreSampled() {
+        EventLog sampled = EventLog.info(logger, "test-sampled", "Downloading blob", "digest");
+        EventLog other = EventLog.info(logger, "test-unsampled", "Deleted blob", "digest");
+        EventLog.setSampleRate("test-sampled", 1000);
+
+        for (int i = 0; i < 1000; i++) {
+            sampled.log(i);
+            other.log(i);
+        }
+
+        long sampledCount = appender.list.stream()
+                .filter(e -> e.getMessage().startsWith("Downloading blob")).count();
+        assertTrue(sampledCount < 20, "logged " + sampledCount + " of 1000");
+        assertEquals(1000, appender.list.size() - sampledCount);
+    }
+}
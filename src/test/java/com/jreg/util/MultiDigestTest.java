@@ -0,0 +1,82 @@
+package com.jreg.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiDigestTest {
+
+    @Test
+    void testOnePassMatchesEachAlgorithm() {
+        byte[] data = new byte[1024 * 1024 + 3];
+        new Random(49).nextBytes(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+
+        try (MultiDigest md = MultiDigest.of("sha256", "sha512")) {
+            // Mixed update paths over consecutive slices
+            md.update(data, 0, 1000);
+            md.update(data[1000]);
+            md.update(direct.position(1001).limit(500_000));
+            assertEquals(500_000, direct.position());
+            md.update(ByteBuffer.wrap(data, 500_000, data.length - 500_000));
+
+            assertEquals(DigestEngine.digest("sha256", data), md.result("sha256"));
+            assertEquals(DigestEngine.digest("sha512", data), md.result("sha512"));
+            assertThrows(IllegalArgumentException.class, () -> md.result("md5"));
+
+            md.reset();
+            md.update(data);
+            byte[] both = md.digest();
+            assertEquals(32 + 64, both.length);
+            assertArrayEquals(DigestEngine.digest("sha256", data).toBytes(), Arrays.copyOf(both, 32));
+        }
+    }
+
+    @Test
+    void testAlgorithms() {
+        try (MultiDigest md = MultiDigest.of(List.of("sha512", "sha512"))) {
+            assertEquals(List.of("sha512"), md.algorithms());
+            assertTrue(md.computes("sha512"));
+            assertFalse(md.computes("sha256"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> MultiDigest.of(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> MultiDigest.of("sha1"));
+    }
+
+    @Test
+    void testCloseReleasesOnce() {
+        MultiDigest md = MultiDigest.of("sha256");
+        md.close();
+        md.close();
+        assertThrows(IllegalStateException.class, () -> md.update(new byte[1]));
+
+        // A second release would hand the same instance out twice
+        MessageDigest first = DigestEngine.acquire("sha256");
+        MessageDigest second = DigestEngine.acquire("sha256");
+        try {
+            assertNotSame(first, second);
+        } finally {
+            DigestEngine.release(first);
+            DigestEngine.release(second);
+        }
+    }
+
+    @Test
+    void testDiscardClosesWithoutReleasing() {
+        byte[] data = new byte[100];
+        MultiDigest md = MultiDigest.of("sha256", "sha512");
+        md.update(data);
+        md.discard();
+        assertThrows(IllegalStateException.class, () -> md.update(data));
+
+        // Closing after a discard must not hand the instances back either
+        md.close();
+        assertThrows(IllegalStateException.class, () -> md.update(data));
+    }
+}
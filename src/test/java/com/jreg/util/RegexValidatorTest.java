@@ -2,10 +2,25 @@ package com.jreg.util;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class RegexValidatorTest {
 
+    // The patterns the scanners replaced, used as the reference in the equivalence tests
+    private static final Pattern REPOSITORY = Pattern.compile(
+            "^[a-z0-9]+(?:[._-][a-z0-9]+)*(?:/[a-z0-9]+(?:[._-][a-z0-9]+)*)*$");
+    private static final Pattern REPOSITORY_NAME = Pattern.compile(
+            "^[a-z0-9]+(?:(?:\\.|_|__|-+)[a-z0-9]+)*(?:/[a-z0-9]+(?:(?:\\.|_|__|-+)[a-z0-9]+)*)*$");
+    private static final Pattern TAG = Pattern.compile("^[A-Za-z0-9_][A-Za-z0-9._-]{0,127}$");
+    private static final Pattern DIGEST = Pattern.compile("^(sha256:[a-f0-9]{64}|sha512:[a-f0-9]{128})$");
+
+    private static final int SAMPLES = 200_000;
+
     @Test
     void testValidRepositoryNames() {
         assertTrue(RegexValidator.isValidRepositoryName("myrepo"));
@@ -71,6 +86,17 @@ class RegexValidatorTest {
         assertFalse(RegexValidator.isValidDigest("abc123")); // no algorithm
     }
 
+    @Test
+    void testDigestLengthMatchesAlgorithm() {
+        String hex64 = "b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9";
+        assertTrue(RegexValidator.isValidDigest("sha256:" + hex64));
+        assertTrue(RegexValidator.isValidDigest("sha512:" + hex64 + hex64));
+        assertFalse(RegexValidator.isValidDigest("sha256:" + hex64 + "0"));
+        assertFalse(RegexValidator.isValidDigest("sha256:" + hex64 + hex64));
+        assertFalse(RegexValidator.isValidDigest("sha512:" + hex64));
+        assertFalse(RegexValidator.isValidDigest("sha512:" + hex64 + hex64.substring(1)));
+    }
+
     @Test
     void testIsDigest() {
         assertTrue(RegexValidator.isDigest(
@@ -79,4 +105,61 @@ class RegexValidatorTest {
         assertFalse(RegexValidator.isDigest("latest"));
         assertFalse(RegexValidator.isDigest("v1.0.0"));
     }
+
+    @Test
+    void testRepositoryScannersMatchPatterns() {
+        String[] pieces = {"a", "z", "0", "9", "b1", ".", "_", "__", "-", "--", "/", "A", " ", ":"};
+        assertEquivalent(REPOSITORY, RegexValidator::isValidRepository, r -> concat(r, pieces, 12), 1);
+        assertEquivalent(REPOSITORY_NAME, RegexValidator::isValidRepositoryName, r -> concat(r, pieces, 12), 2);
+    }
+
+    @Test
+    void testTagScannerMatchesPattern() {
+        String[] pieces = {"a", "Z", "0", "_", ".", "-", "v1.0", "x".repeat(60), " ", "/", ":", "\u00e9"};
+        assertEquivalent(TAG, RegexValidator::isValidTag, r -> concat(r, pieces, 6), 3);
+        assertEquivalent(TAG, RegexValidator::isValidTagName, r -> concat(r, pieces, 6), 4);
+    }
+
+    @Test
+    void testDigestScannerMatchesPattern() {
+        String[] prefixes = {"sha256:", "sha512:", "sha256:", "sha512:", "sha384:", "sha256", ":", ""};
+        String hex32 = "0123456789abcdef".repeat(2);
+        String hex64 = hex32 + hex32;
+        String[] pieces = {"0", "f", "g", "A", ":", hex64, hex64, hex32, hex32};
+        assertEquivalent(DIGEST, RegexValidator::isValidDigest,
+                r -> prefixes[r.nextInt(prefixes.length)] + concat(r, pieces, 4), 5);
+    }
+
+    /**
+     * Compare a scanner with its pattern on generated inputs that hit the interesting
+     * boundaries: separators, case, lengths and foreign characters.
+     */
+    private static void assertEquivalent(Pattern pattern, Predicate<String> scanner,
+                                         Function<Random, String> generator, long seed) {
+        Random random = new Random(seed);
+        int accepted = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            String input = generator.apply(random);
+            boolean expected = pattern.matcher(input).matches();
+            assertEquals(expected, scanner.test(input), () -> "input: \"" + input + "\"");
+            if (expected) {
+                accepted++;
+            }
+        }
+        // Both outcomes must actually be exercised
+        assertTrue(accepted > SAMPLES / 100, "accepted " + accepted);
+        assertTrue(accepted < SAMPLES - SAMPLES / 100, "accepted " + accepted);
+    }
+
+    /**
+     * Up to {@code maxPieces} random pieces, concatenated
+     */
+    private static String concat(Random random, String[] pieces, int maxPieces) {
+        StringBuilder sb = new StringBuilder();
+        int count = random.nextInt(maxPieces + 1);
+        for (int p = 0; p < count; p++) {
+            sb.append(pieces[random.nextInt(pieces.length)]);
+        }
+        return sb.toString();
+    }
 }